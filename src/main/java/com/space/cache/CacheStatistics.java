@@ -0,0 +1,50 @@
+package com.space.cache;
+
+public class CacheStatistics {
+
+    private long size;
+    private long weight;
+    private long hits;
+    private long misses;
+    private double hitRate;
+    private long evictions;
+    private long invalidations;
+
+    public CacheStatistics(long size, long weight, long hits, long misses, double hitRate, long evictions, long invalidations) {
+        this.size = size;
+        this.weight = weight;
+        this.hits = hits;
+        this.misses = misses;
+        this.hitRate = hitRate;
+        this.evictions = evictions;
+        this.invalidations = invalidations;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getWeight() {
+        return weight;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public double getHitRate() {
+        return hitRate;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getInvalidations() {
+        return invalidations;
+    }
+}
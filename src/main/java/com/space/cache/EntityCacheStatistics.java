@@ -0,0 +1,38 @@
+package com.space.cache;
+
+public class EntityCacheStatistics {
+
+    private long size;
+    private long hits;
+    private long misses;
+    private double hitRate;
+    private long puts;
+
+    public EntityCacheStatistics(long size, long hits, long misses, double hitRate, long puts) {
+        this.size = size;
+        this.hits = hits;
+        this.misses = misses;
+        this.hitRate = hitRate;
+        this.puts = puts;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public double getHitRate() {
+        return hitRate;
+    }
+
+    public long getPuts() {
+        return puts;
+    }
+}
@@ -0,0 +1,63 @@
+package com.space.cache;
+
+import com.space.model.Ship;
+import com.space.service.ShipChangeListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Table-level version for list ETags: any change to the ship table bumps it. The epoch keeps tags
+// handed out before a restart from matching again. Writes from other instances are not seen here
+@Component
+public class ShipChangeCounter implements ShipChangeListener {
+
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+    private final AtomicLong changes = new AtomicLong();
+
+    // Read before querying, so data changed during the query can never be tagged with the newer value
+    public String tag() {
+        return epoch + "-" + changes.get();
+    }
+
+    @Override
+    public void shipCreated(Ship ship) {
+        changes.incrementAndGet();
+    }
+
+    @Override
+    public void shipsCreated(List<Ship> ships) {
+        changes.incrementAndGet();
+    }
+
+    @Override
+    public void shipUpdated(Ship previous, Ship current) {
+        changes.incrementAndGet();
+    }
+
+    @Override
+    public void shipsUpdated(List<Ship> previous, List<Ship> current) {
+        changes.incrementAndGet();
+    }
+
+    @Override
+    public void shipDeleted(Ship ship) {
+        changes.incrementAndGet();
+    }
+
+    @Override
+    public void shipsDeleted(List<Ship> ships) {
+        changes.incrementAndGet();
+    }
+
+    @Override
+    public void shipsReloaded() {
+        changes.incrementAndGet();
+    }
+
+    @Override
+    public void ratingsChanged() {
+        changes.incrementAndGet();
+    }
+}
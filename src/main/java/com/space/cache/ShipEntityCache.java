@@ -0,0 +1,64 @@
+package com.space.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.space.model.Ship;
+import com.space.service.ShipChangeListener;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.cache.CacheManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+// Hibernate keeps the "ship" region in sync for writes through the session, only changes made behind its back need an eviction
+@Component
+public class ShipEntityCache implements ShipChangeListener {
+
+    private static final String REGION = "ship";
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager entityCacheManager;
+
+    public EntityCacheStatistics statistics() {
+        CacheRegionStatistics stats = entityManagerFactory.unwrap(SessionFactory.class)
+                .getStatistics().getDomainDataRegionStatistics(REGION);
+        long hits = stats.getHitCount();
+        long misses = stats.getMissCount();
+        Cache<?, ?> region = entityCacheManager.getCache(REGION).unwrap(Cache.class);
+        return new EntityCacheStatistics(region.estimatedSize(), hits, misses,
+                hits + misses == 0 ? 1.0 : (double) hits / (hits + misses), stats.getPutCount());
+    }
+
+    @Override
+    public void shipCreated(Ship ship) {
+    }
+
+    @Override
+    public void shipUpdated(Ship previous, Ship current) {
+    }
+
+    @Override
+    public void shipDeleted(Ship ship) {
+    }
+
+    // Bulk statements write past the session
+    @Override
+    public void shipsUpdated(List<Ship> previous, List<Ship> current) {
+        previous.forEach(ship -> entityManagerFactory.getCache().evict(Ship.class, ship.getId()));
+    }
+
+    @Override
+    public void shipsDeleted(List<Ship> ships) {
+        ships.forEach(ship -> entityManagerFactory.getCache().evict(Ship.class, ship.getId()));
+    }
+
+    @Override
+    public void shipsReloaded() {
+        entityManagerFactory.getCache().evict(Ship.class);
+    }
+}
@@ -0,0 +1,181 @@
+package com.space.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.space.model.Ship;
+import com.space.service.ShipChangeListener;
+import com.space.service.ShipFilter;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+@Component
+public class ShipSearchCache implements ShipChangeListener, InitializingBean {
+
+    @Value("${cache.search.enabled:true}")
+    private boolean enabled;
+
+    // Weight of an entry is the number of ships it holds plus one, so this caps both rows and entries
+    @Value("${cache.search.maxWeight:100000}")
+    private long maxWeight;
+
+    @Value("${cache.search.ttlSeconds:60}")
+    private long ttlSeconds;
+
+    private Cache<Key, Object> cache;
+    // Bumped before every invalidation, a load that started earlier must not be stored. Invalidations hold the write
+    // lock, so no load can pass the check and be stored behind the invalidation's back
+    private final AtomicLong generation = new AtomicLong();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongAdder invalidations = new LongAdder();
+
+    @Override
+    public void afterPropertiesSet() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((Key key, Object value) -> value instanceof Page ? ((Page<?>) value).getNumberOfElements() + 1 : 1)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    public Page<Ship> page(ShipFilter filter, Pageable pageable, Supplier<Page<Ship>> loader) {
+        return (Page<Ship>) get(new Key(filter.normalized(), pageable), loader::get);
+    }
+
+    public long count(ShipFilter filter, LongSupplier loader) {
+        return (Long) get(new Key(filter.normalized(), null), loader::getAsLong);
+    }
+
+    // Wildcard terms are never cached, invalidate could not tell which writes change their results
+    private Object get(Key key, Supplier<Object> loader) {
+        if (!enabled || !key.filter.hasLiteralTerms()) {
+            return loader.get();
+        }
+        Object value = cache.getIfPresent(key);
+        if (value == null) {
+            long loadGeneration = generation.get();
+            value = loader.get();
+            lock.readLock().lock();
+            try {
+                if (generation.get() == loadGeneration) {
+                    cache.put(key, value);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        return value;
+    }
+
+    public CacheStatistics statistics() {
+        CacheStats stats = cache.stats();
+        return new CacheStatistics(cache.estimatedSize(),
+                cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L),
+                stats.hitCount(), stats.missCount(), stats.hitRate(),
+                stats.evictionCount(), invalidations.sum());
+    }
+
+    @Override
+    public void shipCreated(Ship ship) {
+        invalidate(ship, ship);
+    }
+
+    @Override
+    public void shipUpdated(Ship previous, Ship current) {
+        invalidate(previous, current);
+    }
+
+    @Override
+    public void shipDeleted(Ship ship) {
+        invalidate(ship, ship);
+    }
+
+    // Matching every key against every ship of a large batch would cost more than reloading the entries
+    @Override
+    public void shipsCreated(List<Ship> ships) {
+        shipsReloaded();
+    }
+
+    @Override
+    public void shipsUpdated(List<Ship> previous, List<Ship> current) {
+        shipsReloaded();
+    }
+
+    @Override
+    public void shipsDeleted(List<Ship> ships) {
+        shipsReloaded();
+    }
+
+    // Cached pages carry the ratings of the old year
+    @Override
+    public void ratingsChanged() {
+        shipsReloaded();
+    }
+
+    @Override
+    public void shipsReloaded() {
+        lock.writeLock().lock();
+        try {
+            generation.incrementAndGet();
+            invalidations.add(cache.estimatedSize());
+            cache.invalidateAll();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Only filters the ship matched before or after the write can have a different count or page
+    private void invalidate(Ship previous, Ship current) {
+        lock.writeLock().lock();
+        try {
+            generation.incrementAndGet();
+            cache.asMap().keySet().removeIf(key -> {
+                boolean affected = key.filter.matches(previous) || key.filter.matches(current);
+                if (affected) {
+                    invalidations.increment();
+                }
+                return affected;
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static final class Key {
+        private final ShipFilter filter;
+        private final Pageable pageable;
+
+        private Key(ShipFilter filter, Pageable pageable) {
+            this.filter = filter;
+            this.pageable = pageable;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key that = (Key) o;
+            return filter.equals(that.filter) && Objects.equals(pageable, that.pageable);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(filter, pageable);
+        }
+    }
+}
@@ -1,12 +1,22 @@
 package com.space.config;
 
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.space.pool.DbExecutor;
+import com.space.pool.PoolMetrics;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.env.Environment;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
@@ -15,19 +25,27 @@ import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
+import javax.cache.CacheManager;
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
+import java.util.OptionalLong;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
 
 @Configuration
 @EnableTransactionManagement
-@ComponentScan("com.space.service")
+@ComponentScan({"com.space.service", "com.space.index", "com.space.cache"})
 @EnableJpaRepositories(basePackages = "com.space.repository")
+@PropertySource("classpath:cosmoport.properties")
 public class AppConfig {
 
+    @Autowired
+    private Environment env;
+
     @Bean
+    @DependsOn("flyway")
     public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
         em.setDataSource(dataSource());
@@ -41,14 +59,54 @@ public class AppConfig {
     }
 
     @Profile("prod")
-    @Bean
+    @Bean(destroyMethod = "close")
     public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
-        dataSource.setUrl("jdbc:mysql://localhost:3306/cosmoport?serverTimezone=UTC");
-        dataSource.setUsername("root");
-        dataSource.setPassword("root");
-        return dataSource;
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("cosmoport");
+        config.setDriverClassName("com.mysql.cj.jdbc.Driver");
+        config.setJdbcUrl(env.getRequiredProperty("db.url"));
+        config.setUsername(env.getRequiredProperty("db.username"));
+        config.setPassword(env.getRequiredProperty("db.password"));
+        config.setMinimumIdle(env.getProperty("db.pool.minIdle", Integer.class, 5));
+        config.setMaximumPoolSize(env.getProperty("db.pool.maxSize", Integer.class, 20));
+        config.setConnectionTimeout(env.getProperty("db.pool.connectionTimeoutMs", Long.class, 3000L));
+        config.setValidationTimeout(env.getProperty("db.pool.validationTimeoutMs", Long.class, 1000L));
+        config.setLeakDetectionThreshold(env.getProperty("db.pool.leakDetectionThresholdMs", Long.class, 10000L));
+        config.setMetricsTrackerFactory(poolMetrics());
+        return new HikariDataSource(config);
+    }
+
+    @Profile("prod")
+    @Bean
+    public PoolMetrics poolMetrics() {
+        return new PoolMetrics();
+    }
+
+    // Request handlers run here when async handling is enabled. By default they get the pooled connections that
+    // export streams, import writers and the rating job can not take, so a busy pool shows up as the 503 of a
+    // full queue rather than as connection timeouts inside handlers
+    @Bean(destroyMethod = "shutdown")
+    public DbExecutor dbExecutor() {
+        int threads = env.getProperty("async.threads", Integer.class, 0);
+        if (threads <= 0) {
+            threads = Math.max(1, env.getProperty("db.pool.maxSize", Integer.class, 20)
+                    - env.getProperty("async.streamThreads", Integer.class, 4)
+                    - env.getProperty("import.writers", Integer.class, 2) * env.getProperty("import.concurrency", Integer.class, 2)
+                    - 1);
+        }
+        return new DbExecutor(
+                env.getProperty("async.enabled", Boolean.class, true),
+                threads,
+                env.getProperty("async.queueCapacity", Integer.class, 100),
+                env.getProperty("async.timeoutMs", Long.class, 10000L));
+    }
+
+    // Registered with the servlet container by MyWebAppInit through a DelegatingFilterProxy
+    @Bean
+    public CompressionFilter compressionFilter() {
+        return new CompressionFilter(
+                env.getProperty("compression.enabled", Boolean.class, true),
+                env.getProperty("compression.minSize", Integer.class, 1024));
     }
 
     @Profile("dev")
@@ -60,10 +118,33 @@ public class AppConfig {
                 .setType(H2)
                 .setScriptEncoding("UTF-8")
                 .ignoreFailedDrops(true)
-                .addScript("test.sql")
                 .build();
     }
 
+    // Existing databases created by init.sql are baselined at V1 and only receive the later migrations
+    @Bean(initMethod = "migrate")
+    public Flyway flyway() {
+        return Flyway.configure()
+                .dataSource(dataSource())
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .cleanDisabled(true)
+                .load();
+    }
+
+    // Second-level cache regions, Hibernate picks them up by name. Each context gets its own provider
+    // instead of the shared default manager, so several contexts in one JVM do not clash over region names
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager() {
+        CacheManager cacheManager = new CaffeineCachingProvider().getCacheManager();
+        CaffeineConfiguration<Object, Object> ship = new CaffeineConfiguration<>();
+        ship.setMaximumSize(OptionalLong.of(env.getProperty("cache.entity.ship.maxSize", Long.class, 10000L)));
+        ship.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(env.getProperty("cache.entity.ship.ttlSeconds", Long.class, 600L))));
+        cacheManager.createCache("ship", ship);
+        return cacheManager;
+    }
+
     @Bean
     public PlatformTransactionManager transactionManager(EntityManagerFactory emf) {
         JpaTransactionManager transactionManager = new JpaTransactionManager();
@@ -80,6 +161,12 @@ public class AppConfig {
     private Properties additionalProperties() {
         Properties properties = new Properties();
         properties.setProperty("hibernate.dialect", "org.hibernate.dialect.MySQL5Dialect");
+        properties.setProperty("hibernate.cache.use_second_level_cache", env.getProperty("cache.entity.enabled", "true"));
+        properties.setProperty("hibernate.cache.region.factory_class", "jcache");
+        properties.put("hibernate.javax.cache.cache_manager", entityCacheManager());
+        properties.setProperty("hibernate.javax.cache.missing_cache_strategy", "fail");
+        properties.setProperty("javax.persistence.sharedCache.mode", "ENABLE_SELECTIVE");
+        properties.setProperty("hibernate.generate_statistics", "true");
 
         return properties;
     }
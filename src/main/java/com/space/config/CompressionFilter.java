@@ -0,0 +1,256 @@
+package com.space.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+// Gzips text responses once they grow past minSize bytes. The first minSize bytes are held back to decide,
+// after that the body streams through the compressor, so exports are compressed without being buffered.
+// Responses that already carry a Content-Encoding, like the pre-compressed static resources, pass unchanged
+public class CompressionFilter extends OncePerRequestFilter {
+
+    private final boolean enabled;
+    private final int minSize;
+
+    public CompressionFilter(boolean enabled, int minSize) {
+        this.enabled = enabled;
+        this.minSize = minSize;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || "HEAD".equals(request.getMethod())
+                || !StaticResourceResolver.accepts(request.getHeader(HttpHeaders.ACCEPT_ENCODING), "gzip");
+    }
+
+    // The async dispatch of a DeferredResult or streamed export writes the body, so it has to close the stream
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        CompressingResponse compressing = WebUtils.getNativeResponse(response, CompressingResponse.class);
+        if (compressing == null) {
+            compressing = new CompressingResponse(response);
+            response = compressing;
+        }
+        chain.doFilter(request, response);
+        if (!isAsyncStarted(request)) {
+            compressing.finish();
+        }
+    }
+
+    private static boolean compressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        MediaType type;
+        try {
+            type = MediaType.parseMediaType(contentType);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        String subtype = type.getSubtype();
+        return type.getType().equals("text") || subtype.equals("json") || subtype.endsWith("+json")
+                || subtype.equals("x-ndjson") || subtype.equals("javascript") || subtype.endsWith("xml");
+    }
+
+    private class CompressingResponse extends HttpServletResponseWrapper {
+
+        private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        private OutputStream target;
+        private long contentLength = -1;
+        private ServletOutputStream stream;
+        private PrintWriter writer;
+
+        CompressingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        // Called once the first minSize bytes are in, or when the response ends with less
+        private void decide() throws IOException {
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            boolean eligible = response.getHeader(HttpHeaders.CONTENT_ENCODING) == null
+                    && response.getStatus() != HttpServletResponse.SC_NO_CONTENT
+                    && response.getStatus() != HttpServletResponse.SC_NOT_MODIFIED
+                    && compressible(response.getContentType());
+            if (eligible && !response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING)) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+            if (eligible && pending.size() >= minSize) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                // The same entity in another encoding: the tag keeps matching If-None-Match, but only weakly
+                String etag = response.getHeader(HttpHeaders.ETAG);
+                if (etag != null && !etag.startsWith("W/")) {
+                    response.setHeader(HttpHeaders.ETAG, "W/" + etag);
+                }
+                target = new GZIPOutputStream(response.getOutputStream(), 8192, true);
+            } else {
+                if (contentLength >= 0) {
+                    response.setContentLengthLong(contentLength);
+                }
+                target = response.getOutputStream();
+            }
+            pending.writeTo(target);
+            pending.reset();
+        }
+
+        private void write(byte[] bytes, int offset, int length) throws IOException {
+            if (target == null) {
+                pending.write(bytes, offset, length);
+                if (pending.size() >= minSize) {
+                    decide();
+                }
+            } else {
+                target.write(bytes, offset, length);
+            }
+        }
+
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (target == null) {
+                decide();
+            }
+            if (target instanceof GZIPOutputStream) {
+                ((GZIPOutputStream) target).finish();
+            }
+            target.flush();
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (stream == null) {
+                stream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        CompressingResponse.this.write(new byte[]{(byte) b}, 0, 1);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        CompressingResponse.this.write(b, off, len);
+                    }
+
+                    // Held-back bytes stay held back, a flush is no reason to give up on compressing
+                    @Override
+                    public void flush() throws IOException {
+                        if (target != null) {
+                            target.flush();
+                        }
+                    }
+
+                    // Bytes held back or compressed still end up in the container's stream, so it decides readiness
+                    @Override
+                    public boolean isReady() {
+                        try {
+                            return getResponse().getOutputStream().isReady();
+                        } catch (IOException e) {
+                            return false;
+                        }
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener listener) {
+                        try {
+                            getResponse().getOutputStream().setWriteListener(listener);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                };
+            }
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            getOutputStream().flush();
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            pending.reset();
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            pending.reset();
+            contentLength = -1;
+        }
+
+        @Override
+        public void setContentLength(int len) {
+            setContentLengthLong(len);
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            if (target == null) {
+                contentLength = len;
+            } else if (!(target instanceof GZIPOutputStream)) {
+                super.setContentLengthLong(len);
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(value);
+            } else {
+                super.setIntHeader(name, value);
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.space.config;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.resource.AbstractResourceResolver;
+import org.springframework.web.servlet.resource.HttpResource;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+// Sits between the caching and the version resolver. Text resources go out compressed: a .br or .gz file next to
+// the resource when one was deployed, otherwise gzip compressed once and kept in memory. Resources requested
+// under their content-hashed name can never change, so those are marked immutable for a year
+public class StaticResourceResolver extends AbstractResourceResolver {
+
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final Set<String> COMPRESSIBLE = new HashSet<>(Arrays.asList(
+            "css", "js", "map", "html", "json", "svg", "txt", "xml"));
+
+    private final int minSize;
+    private final Map<String, byte[]> gzipped = new ConcurrentHashMap<>();
+
+    public StaticResourceResolver(int minSize) {
+        this.minSize = minSize;
+    }
+
+    @Override
+    protected Resource resolveResourceInternal(HttpServletRequest request, String requestPath,
+                                               List<? extends Resource> locations, ResourceResolverChain chain) {
+        Resource resource = chain.resolveResource(request, requestPath, locations);
+        if (resource == null || request == null) {
+            return resource;
+        }
+        HttpHeaders headers = new HttpHeaders();
+        if (resource instanceof HttpResource) {
+            headers.putAll(((HttpResource) resource).getResponseHeaders());
+        }
+        // The version resolver below maps bootstrap-<hash>.css to bootstrap.css
+        if (!resource.getFilename().equals(StringUtils.getFilename(requestPath))) {
+            headers.setCacheControl(IMMUTABLE);
+        }
+        if (!compressible(resource)) {
+            return headers.isEmpty() ? resource : new StaticResource(resource, null, headers);
+        }
+        headers.setVary(Arrays.asList(HttpHeaders.ACCEPT_ENCODING));
+        String accepted = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        try {
+            if (accepts(accepted, "br")) {
+                Resource brotli = resource.createRelative(resource.getFilename() + ".br");
+                if (brotli.isReadable()) {
+                    headers.set(HttpHeaders.CONTENT_ENCODING, "br");
+                    return new StaticResource(resource, brotli, headers);
+                }
+            }
+            if (accepts(accepted, "gzip")) {
+                Resource gzip = resource.createRelative(resource.getFilename() + ".gz");
+                if (!gzip.isReadable()) {
+                    gzip = new ByteArrayResource(gzip(resource));
+                }
+                headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+                return new StaticResource(resource, gzip, headers);
+            }
+        } catch (IOException e) {
+            logger.warn("Serving " + requestPath + " uncompressed", e);
+        }
+        return new StaticResource(resource, null, headers);
+    }
+
+    @Override
+    protected String resolveUrlPathInternal(String resourceUrlPath, List<? extends Resource> locations,
+                                            ResourceResolverChain chain) {
+        return chain.resolveUrlPath(resourceUrlPath, locations);
+    }
+
+    private boolean compressible(Resource resource) {
+        String extension = StringUtils.getFilenameExtension(resource.getFilename());
+        try {
+            return extension != null && COMPRESSIBLE.contains(extension.toLowerCase()) && resource.contentLength() >= minSize;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private byte[] gzip(Resource resource) throws IOException {
+        String key = resource.getURL().toString();
+        byte[] bytes = gzipped.get(key);
+        if (bytes == null) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) resource.contentLength() / 4);
+            try (InputStream in = resource.getInputStream();
+                 GZIPOutputStream gzip = new GZIPOutputStream(out) {
+                     {
+                         def.setLevel(Deflater.BEST_COMPRESSION);
+                     }
+                 }) {
+                StreamUtils.copy(in, gzip);
+            }
+            bytes = out.toByteArray();
+            gzipped.put(key, bytes);
+        }
+        return bytes;
+    }
+
+    static boolean accepts(String acceptEncoding, String coding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase(coding)) {
+                return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    // Describes itself as the original, so the media type and Last-Modified stay those of the resource,
+    // while the content is the compressed variant if there is one
+    private static class StaticResource extends AbstractResource implements HttpResource {
+
+        private final Resource original;
+        private final Resource content;
+        private final HttpHeaders headers;
+
+        StaticResource(Resource original, Resource content, HttpHeaders headers) {
+            this.original = original;
+            this.content = content != null ? content : original;
+            this.headers = headers;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return content.getInputStream();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return content.contentLength();
+        }
+
+        @Override
+        public boolean exists() {
+            return original.exists();
+        }
+
+        @Override
+        public boolean isReadable() {
+            return original.isReadable();
+        }
+
+        @Override
+        public URL getURL() throws IOException {
+            return original.getURL();
+        }
+
+        @Override
+        public URI getURI() throws IOException {
+            return original.getURI();
+        }
+
+        @Override
+        public long lastModified() throws IOException {
+            return original.lastModified();
+        }
+
+        @Override
+        public Resource createRelative(String relativePath) throws IOException {
+            return original.createRelative(relativePath);
+        }
+
+        @Override
+        public String getFilename() {
+            return original.getFilename();
+        }
+
+        @Override
+        public String getDescription() {
+            return original.getDescription();
+        }
+
+        @Override
+        public HttpHeaders getResponseHeaders() {
+            return headers;
+        }
+
+        // The transformer cache is keyed by resource, and the variants of one file differ in their headers only
+        @Override
+        public boolean equals(Object other) {
+            return this == other || other instanceof StaticResource
+                    && original.equals(((StaticResource) other).original) && headers.equals(((StaticResource) other).headers);
+        }
+
+        @Override
+        public int hashCode() {
+            return original.hashCode() * 31 + headers.hashCode();
+        }
+    }
+}
@@ -2,16 +2,27 @@ package com.space.config;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.io.ShipSerializer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.CacheControl;
 import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.servlet.ViewResolver;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
 import org.springframework.web.servlet.view.InternalResourceViewResolver;
 import org.springframework.web.servlet.view.JstlView;
 
@@ -22,6 +33,8 @@ import java.util.List;
 @ComponentScan("com.space.controller")
 public class WebConfig implements WebMvcConfigurer {
 
+    @Autowired
+    private Environment env;
 
     @Bean
     public ViewResolver internalResourceViewResolver() {
@@ -32,21 +45,63 @@ public class WebConfig implements WebMvcConfigurer {
         return bean;
     }
 
+    // Imports and streaming exports run here. Each holds a pooled connection for as long as it runs, so they
+    // are bounded well below the pool, and once async.streamQueueCapacity are waiting new ones are rejected
+    @Bean
+    public ThreadPoolTaskExecutor streamExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("stream-");
+        executor.setCorePoolSize(env.getProperty("async.streamThreads", Integer.class, 4));
+        executor.setMaxPoolSize(env.getProperty("async.streamThreads", Integer.class, 4));
+        executor.setQueueCapacity(env.getProperty("async.streamQueueCapacity", Integer.class, 16));
+        executor.setDaemon(true);
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(streamExecutor());
+        configurer.setDefaultTimeout(env.getProperty("async.streamTimeoutMs", Long.class, 600000L));
+    }
+
     @Override
     public void addViewControllers(ViewControllerRegistry registry) {
         registry.addViewController("/").setViewName("index");
     }
 
+    // Plain names are revalidated on every use, content-hashed names are cached for good by StaticResourceResolver
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        registry.addResourceHandler("/resources/**").addResourceLocations("/resources/");
+        registry.addResourceHandler("/resources/**").addResourceLocations("/resources/")
+                .setCacheControl(CacheControl.noCache())
+                .resourceChain(true)
+                .addResolver(new StaticResourceResolver(env.getProperty("compression.minSize", Integer.class, 1024)))
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
     }
 
+    // JSON stays first, so it is what clients get unless they ask for Smile or CBOR
     @Override
     public void configureMessageConverters(List<HttpMessageConverter<?>> converters) {
-        MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter();
-        converter.getObjectMapper().setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
-        converter.getObjectMapper().setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
-        converters.add(converter);
+        converters.add(configure(new MappingJackson2HttpMessageConverter()));
+        converters.add(binary(configure(new MappingJackson2SmileHttpMessageConverter())));
+        converters.add(binary(configure(new MappingJackson2CborHttpMessageConverter())));
+    }
+
+    // Jackson converters default to UTF-8, which would put a meaningless charset on binary content types
+    private static AbstractJackson2HttpMessageConverter binary(AbstractJackson2HttpMessageConverter converter) {
+        converter.setDefaultCharset(null);
+        return converter;
+    }
+
+    private static AbstractJackson2HttpMessageConverter configure(AbstractJackson2HttpMessageConverter converter) {
+        configure(converter.getObjectMapper());
+        return converter;
+    }
+
+    public static ObjectMapper configure(ObjectMapper mapper) {
+        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        mapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        mapper.registerModule(ShipSerializer.module());
+        return mapper;
     }
 }
\ No newline at end of file
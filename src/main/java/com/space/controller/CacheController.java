@@ -0,0 +1,33 @@
+package com.space.controller;
+
+import com.space.cache.CacheStatistics;
+import com.space.cache.EntityCacheStatistics;
+import com.space.cache.ShipEntityCache;
+import com.space.cache.ShipSearchCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping(value = "/rest/cache")
+public class CacheController {
+    @Autowired
+    private ShipSearchCache shipSearchCache;
+
+    @Autowired
+    private ShipEntityCache shipEntityCache;
+
+    @GetMapping(value = "/search/stats", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<CacheStatistics> getSearchStats() {
+        return new ResponseEntity<>(shipSearchCache.statistics(), HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/ship/stats", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<EntityCacheStatistics> getShipStats() {
+        return new ResponseEntity<>(shipEntityCache.statistics(), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,33 @@
+package com.space.controller;
+
+import com.space.index.BitmapStatistics;
+import com.space.index.KdTreeStatistics;
+import com.space.index.ShipBitmaps;
+import com.space.index.ShipKdTree;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping(value = "/rest/index")
+public class IndexController {
+    @Autowired
+    private ShipBitmaps shipBitmaps;
+
+    @Autowired
+    private ShipKdTree shipKdTree;
+
+    @GetMapping(value = "/bitmaps/stats", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<BitmapStatistics> getBitmapStats() {
+        return new ResponseEntity<>(shipBitmaps.statistics(), HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/kdtree/stats", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<KdTreeStatistics> getKdTreeStats() {
+        return new ResponseEntity<>(shipKdTree.statistics(), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,25 @@
+package com.space.controller;
+
+import com.space.pool.PoolMetrics;
+import com.space.pool.PoolStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@Profile("prod")
+@RestController
+@RequestMapping(value = "/rest/pool")
+public class PoolController {
+    @Autowired
+    private PoolMetrics poolMetrics;
+
+    @GetMapping(value = "/stats", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<PoolStatistics> getStats() {
+        return new ResponseEntity<>(poolMetrics.snapshot(), HttpStatus.OK);
+    }
+}
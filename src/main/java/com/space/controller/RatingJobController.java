@@ -0,0 +1,31 @@
+package com.space.controller;
+
+import com.space.model.RatingJobProgress;
+import com.space.service.ShipRerater;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping(value = "/rest/rating-job")
+public class RatingJobController {
+    @Autowired
+    private ShipRerater shipRerater;
+
+    @GetMapping(value = "", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<RatingJobProgress> getProgress() {
+        return new ResponseEntity<>(shipRerater.progress(), HttpStatus.OK);
+    }
+
+    // restart=true rewrites every rating even if the stored ones already match the configured year
+    @PostMapping(value = "", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<RatingJobProgress> start(@RequestParam(value = "restart", required = false, defaultValue = "false") boolean restart) {
+        return new ResponseEntity<>(shipRerater.start(restart), HttpStatus.OK);
+    }
+}
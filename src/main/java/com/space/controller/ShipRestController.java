@@ -1,34 +1,77 @@
 package com.space.controller;
 
+import com.space.cache.ShipChangeCounter;
+import com.space.exception.BadRequestException;
+import com.space.exception.ConflictException;
+import com.space.io.ShipFormat;
+import com.space.io.ShipWriter;
 import com.space.model.Ship;
+import com.space.model.ShipBatchResult;
+import com.space.model.ShipImportReport;
+import com.space.model.ShipPage;
+import com.space.model.ShipRow;
+import com.space.model.ShipSlice;
 import com.space.model.ShipType;
+import com.space.pool.DbExecutor;
+import com.space.service.ShipCursor;
+import com.space.service.ShipFilter;
+import com.space.service.ShipImporter;
 import com.space.service.ShipService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 
 @RestController
 @RequestMapping(value = "/rest/ships")
 public class ShipRestController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    // Binary alternatives to JSON for service-to-service calls, chosen by the Accept header
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+    public static final String CBOR_VALUE = "application/cbor";
+
     @Autowired
     private ShipService shipService;
 
-    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<Ship> getShipById(@PathVariable Long id) {
-        return new ResponseEntity<>(shipService.getById(id), HttpStatus.OK);
+    @Autowired
+    private ShipImporter shipImporter;
+
+    @Autowired
+    private DbExecutor dbExecutor;
+
+    @Autowired
+    private ShipChangeCounter shipChangeCounter;
+
+    // A matching If-None-Match is answered with 304 by the ResponseEntity handler, without writing the body.
+    // The lookup itself is usually served by the entity cache
+    @GetMapping(value = "/{id}", produces = {MediaType.APPLICATION_JSON_UTF8_VALUE, SMILE_VALUE, CBOR_VALUE})
+    public DeferredResult<ResponseEntity<Ship>> getShipById(@PathVariable Long id, WebRequest request) {
+        String variant = variant(request);
+        return dbExecutor.submit(() -> {
+            Ship ship = shipService.getById(id);
+            return ResponseEntity.ok().eTag(entityTag(ship, variant)).varyBy(HttpHeaders.ACCEPT).body(ship);
+        });
     }
 
-    @GetMapping(value = "", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<List<Ship>> getShips(@RequestParam(value = "name", required = false) String name,
+    @GetMapping(value = "", produces = {MediaType.APPLICATION_JSON_UTF8_VALUE, SMILE_VALUE, CBOR_VALUE})
+    public DeferredResult<ResponseEntity<List<?>>> getShips(@RequestParam(value = "name", required = false) String name,
                                                @RequestParam(value = "planet", required = false) String planet,
                                                @RequestParam(value = "shipType", required = false) ShipType shipType,
                                                @RequestParam(value = "after", required = false) Long after,
@@ -42,25 +85,40 @@ public class ShipRestController {
                                                @RequestParam(value = "maxRating", required = false) Double maxRating,
                                                @RequestParam(value = "pageNumber", required = false, defaultValue = "0") Integer pageNumber,
                                                @RequestParam(value = "pageSize", required = false, defaultValue = "3") Integer pageSize,
-                                               @RequestParam(value = "order", required = false, defaultValue = "ID") ShipOrder order) {
+                                               @RequestParam(value = "order", required = false, defaultValue = "ID") ShipOrder order,
+                                               @RequestParam(value = "cursor", required = false) String cursor,
+                                               @RequestParam(value = "fields", required = false) String fields,
+                                               WebRequest request) {
+        ShipFilter filter = new ShipFilter(name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+        List<String> projection = projection(fields);
+        String etag = listTag(filter, order, pageSize, cursor == null ? pageNumber : cursor, projection, variant(request));
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        if (cursor != null) {
+            // Keyset mode: an empty cursor starts from the beginning, pageNumber is ignored
+            ShipCursor decoded = cursor.isEmpty() ? null : ShipCursor.decode(cursor, order);
+            return dbExecutor.submit(() -> {
+                ShipSlice<?> slice = projection == null
+                        ? shipService.getShipsAfter(shipService.filter(filter), order, decoded, pageSize)
+                        : shipService.getShipRowsAfter(shipService.filter(filter), order, decoded, pageSize, projection);
+                HttpHeaders headers = new HttpHeaders();
+                if (slice.getNextCursor() != null) {
+                    headers.set(NEXT_CURSOR_HEADER, slice.getNextCursor());
+                }
+                return ResponseEntity.ok().headers(headers).eTag(etag).varyBy(HttpHeaders.ACCEPT).<List<?>>body(slice.getItems());
+            });
+        }
         Pageable pageable = PageRequest.of(pageNumber, pageSize, Sort.by(Sort.Direction.ASC, order.getFieldName()));
-        List<Ship> ships = shipService.getAllShips(
-                Specification
-                        .where(shipService.filterByName(name))
-                        .and(shipService.filterByPlanet(planet))
-                        .and(shipService.filterByShipType(shipType))
-                        .and(shipService.filterByDate(after, before))
-                        .and(shipService.filterByIsUsed(isUsed))
-                        .and(shipService.filterByRating(minRating, maxRating))
-                        .and(shipService.filterByCrew(minCrewSize, maxCrewSize))
-                        .and(shipService.filterBySpeed(minSpeed, maxSpeed)), pageable)
-                .getContent();
-        return new ResponseEntity<>(ships, HttpStatus.OK);
+        return dbExecutor.submit(() -> ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).<List<?>>body(projection == null
+                ? shipService.getAllShips(filter, pageable).getContent()
+                : shipService.getShipRows(filter, pageable, projection)));
     }
 
 
     @GetMapping(value = "/count", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<Long> getCount(@RequestParam(value = "name", required = false) String name,
+    public DeferredResult<ResponseEntity<Long>> getCount(@RequestParam(value = "name", required = false) String name,
                                          @RequestParam(value = "planet", required = false) String planet,
                                          @RequestParam(value = "shipType", required = false) ShipType shipType,
                                          @RequestParam(value = "after", required = false) Long after,
@@ -71,39 +129,244 @@ public class ShipRestController {
                                          @RequestParam(value = "minCrewSize", required = false) Integer minCrewSize,
                                          @RequestParam(value = "maxCrewSize", required = false) Integer maxCrewSize,
                                          @RequestParam(value = "minRating", required = false) Double minRating,
-                                         @RequestParam(value = "maxRating", required = false) Double maxRating) {
-        Long count = shipService.shipCount(
-                Specification
-                        .where(shipService.filterByName(name))
-                        .and(shipService.filterByPlanet(planet))
-                        .and(shipService.filterByShipType(shipType))
-                        .and(shipService.filterByDate(after, before))
-                        .and(shipService.filterByIsUsed(isUsed))
-                        .and(shipService.filterByRating(minRating, maxRating))
-                        .and(shipService.filterByCrew(minCrewSize, maxCrewSize))
-                        .and(shipService.filterBySpeed(minSpeed, maxSpeed)));
-        return new ResponseEntity<>(count, HttpStatus.OK);
+                                         @RequestParam(value = "maxRating", required = false) Double maxRating,
+                                         WebRequest request) {
+        ShipFilter filter = new ShipFilter(name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+        String etag = listTag(filter);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return dbExecutor.submit(() -> ResponseEntity.ok().eTag(etag).body(shipService.shipCount(filter)));
     }
 
+    @GetMapping(value = "/search", produces = {MediaType.APPLICATION_JSON_UTF8_VALUE, SMILE_VALUE, CBOR_VALUE})
+    public DeferredResult<ResponseEntity<ShipPage<?>>> search(@RequestParam(value = "name", required = false) String name,
+                                           @RequestParam(value = "planet", required = false) String planet,
+                                           @RequestParam(value = "shipType", required = false) ShipType shipType,
+                                           @RequestParam(value = "after", required = false) Long after,
+                                           @RequestParam(value = "before", required = false) Long before,
+                                           @RequestParam(value = "isUsed", required = false) Boolean isUsed,
+                                           @RequestParam(value = "minSpeed", required = false) Double minSpeed,
+                                           @RequestParam(value = "maxSpeed", required = false) Double maxSpeed,
+                                           @RequestParam(value = "minCrewSize", required = false) Integer minCrewSize,
+                                           @RequestParam(value = "maxCrewSize", required = false) Integer maxCrewSize,
+                                           @RequestParam(value = "minRating", required = false) Double minRating,
+                                           @RequestParam(value = "maxRating", required = false) Double maxRating,
+                                           @RequestParam(value = "pageNumber", required = false, defaultValue = "0") Integer pageNumber,
+                                           @RequestParam(value = "pageSize", required = false, defaultValue = "3") Integer pageSize,
+                                           @RequestParam(value = "order", required = false, defaultValue = "ID") ShipOrder order,
+                                           @RequestParam(value = "fields", required = false) String fields,
+                                           WebRequest request) {
+        Pageable pageable = PageRequest.of(pageNumber, pageSize, Sort.by(Sort.Direction.ASC, order.getFieldName()));
+        ShipFilter filter = new ShipFilter(name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+        List<String> projection = projection(fields);
+        String etag = listTag(filter, order, pageSize, pageNumber, projection, variant(request));
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return dbExecutor.submit(() -> ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).<ShipPage<?>>body(projection == null
+                ? shipService.search(filter, pageable)
+                : shipService.searchRows(filter, pageable, projection)));
+    }
+
+
+    // Rows go to the client as the cursor reads them, nothing is collected in memory
+    @GetMapping(value = "/export")
+    public ResponseEntity<StreamingResponseBody> exportShips(@RequestParam(value = "name", required = false) String name,
+                                                             @RequestParam(value = "planet", required = false) String planet,
+                                                             @RequestParam(value = "shipType", required = false) ShipType shipType,
+                                                             @RequestParam(value = "after", required = false) Long after,
+                                                             @RequestParam(value = "before", required = false) Long before,
+                                                             @RequestParam(value = "isUsed", required = false) Boolean isUsed,
+                                                             @RequestParam(value = "minSpeed", required = false) Double minSpeed,
+                                                             @RequestParam(value = "maxSpeed", required = false) Double maxSpeed,
+                                                             @RequestParam(value = "minCrewSize", required = false) Integer minCrewSize,
+                                                             @RequestParam(value = "maxCrewSize", required = false) Integer maxCrewSize,
+                                                             @RequestParam(value = "minRating", required = false) Double minRating,
+                                                             @RequestParam(value = "maxRating", required = false) Double maxRating,
+                                                             @RequestParam(value = "order", required = false, defaultValue = "ID") ShipOrder order,
+                                                             @RequestParam(value = "format", required = false, defaultValue = "NDJSON") ShipFormat format) {
+        ShipFilter filter = new ShipFilter(name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+        StreamingResponseBody body = out -> {
+            try (ShipWriter writer = format.writer(out)) {
+                shipService.exportShips(filter, order, ship -> {
+                    try {
+                        writer.write(ship);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMediaType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"ships." + format.getExtension() + "\"")
+                .body(body);
+    }
 
     @PostMapping(value = "", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
     @ResponseBody
-    public ResponseEntity<Ship> createShip(@RequestBody Ship ship) {
-        shipService.createShip(ship);
-        return ResponseEntity.ok(ship);
+    public DeferredResult<ResponseEntity<Ship>> createShip(@RequestBody Ship ship) {
+        return dbExecutor.submit(() -> {
+            shipService.createShip(ship);
+            return ResponseEntity.ok().eTag(entityTag(ship, "")).body(ship);
+        });
+    }
+
+    @PostMapping(value = "/batch", produces = {MediaType.APPLICATION_JSON_UTF8_VALUE, SMILE_VALUE, CBOR_VALUE})
+    public DeferredResult<ResponseEntity<ShipBatchResult>> createShips(@RequestBody List<Ship> ships) {
+        return dbExecutor.submit(() -> {
+            ShipBatchResult result = shipService.createShips(ships);
+            return new ResponseEntity<>(result, result.getErrors().isEmpty() ? HttpStatus.OK : HttpStatus.BAD_REQUEST);
+        });
+    }
+
+    // The request body is read as it arrives, path imports a file from the server's import directory instead.
+    // Runs on the stream executor, not on the container thread
+    @PostMapping(value = "/import", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public Callable<ResponseEntity<ShipImportReport>> importShips(@RequestParam(value = "format", required = false, defaultValue = "NDJSON") ShipFormat format,
+                                                                  @RequestParam(value = "path", required = false) String path,
+                                                                  InputStream body) {
+        return () -> ResponseEntity.ok(path == null ? shipImporter.importShips(body, format) : shipImporter.importFile(path, format));
+    }
+
+    @GetMapping(value = "/import", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<List<ShipImportReport>> getImports() {
+        return ResponseEntity.ok(shipImporter.imports());
     }
 
+    // A concurrent change, or a ship no longer at the If-Match ETag, is answered with 409 like for PATCH
     @PostMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
     @ResponseBody
-    public ResponseEntity<Ship> updateShip(@PathVariable Long id, @RequestBody Ship ship) {
-        Ship result = shipService.updateShip(id, ship);
-        return ResponseEntity.ok(result);
+    public DeferredResult<ResponseEntity<Ship>> updateShip(@PathVariable Long id,
+                                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                           @RequestBody Ship ship) {
+        Long expectedVersion = expectedVersion(id, ifMatch);
+        return dbExecutor.submit(() -> {
+            Ship result = shipService.updateShip(id, ship, expectedVersion);
+            return ResponseEntity.ok().eTag(entityTag(result, "")).body(result);
+        });
+    }
+
+    // Only the supplied fields are validated and written. With If-Match the ship must still be at that ETag,
+    // otherwise the answer is 409 and the client should GET the ship again and retry
+    @PatchMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public DeferredResult<ResponseEntity<Ship>> patchShip(@PathVariable Long id,
+                                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                          @RequestBody Ship changes) {
+        Long expectedVersion = expectedVersion(id, ifMatch);
+        return dbExecutor.submit(() -> {
+            Ship result = shipService.patchShip(id, changes, expectedVersion);
+            return ResponseEntity.ok().eTag(entityTag(result, "")).body(result);
+        });
+    }
+
+    @DeleteMapping(value = "/bulk", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public DeferredResult<ResponseEntity<Long>> deleteShips(@RequestParam(value = "name", required = false) String name,
+                                            @RequestParam(value = "planet", required = false) String planet,
+                                            @RequestParam(value = "shipType", required = false) ShipType shipType,
+                                            @RequestParam(value = "after", required = false) Long after,
+                                            @RequestParam(value = "before", required = false) Long before,
+                                            @RequestParam(value = "isUsed", required = false) Boolean isUsed,
+                                            @RequestParam(value = "minSpeed", required = false) Double minSpeed,
+                                            @RequestParam(value = "maxSpeed", required = false) Double maxSpeed,
+                                            @RequestParam(value = "minCrewSize", required = false) Integer minCrewSize,
+                                            @RequestParam(value = "maxCrewSize", required = false) Integer maxCrewSize,
+                                            @RequestParam(value = "minRating", required = false) Double minRating,
+                                            @RequestParam(value = "maxRating", required = false) Double maxRating) {
+        ShipFilter filter = new ShipFilter(name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+        return dbExecutor.submit(() -> new ResponseEntity<>(shipService.deleteShips(filter), HttpStatus.OK));
+    }
+
+    @PostMapping(value = "/bulk", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public DeferredResult<ResponseEntity<Long>> updateShips(@RequestParam(value = "name", required = false) String name,
+                                            @RequestParam(value = "planet", required = false) String planet,
+                                            @RequestParam(value = "shipType", required = false) ShipType shipType,
+                                            @RequestParam(value = "after", required = false) Long after,
+                                            @RequestParam(value = "before", required = false) Long before,
+                                            @RequestParam(value = "isUsed", required = false) Boolean isUsed,
+                                            @RequestParam(value = "minSpeed", required = false) Double minSpeed,
+                                            @RequestParam(value = "maxSpeed", required = false) Double maxSpeed,
+                                            @RequestParam(value = "minCrewSize", required = false) Integer minCrewSize,
+                                            @RequestParam(value = "maxCrewSize", required = false) Integer maxCrewSize,
+                                            @RequestParam(value = "minRating", required = false) Double minRating,
+                                            @RequestParam(value = "maxRating", required = false) Double maxRating,
+                                            @RequestBody Ship changes) {
+        ShipFilter filter = new ShipFilter(name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+        return dbExecutor.submit(() -> new ResponseEntity<>(shipService.updateShips(filter, changes), HttpStatus.OK));
     }
 
     @DeleteMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public void deleteShip(@PathVariable Long id) {
-        shipService.deleteShip(id);
-        ResponseEntity.ok();
+    public DeferredResult<ResponseEntity<Void>> deleteShip(@PathVariable Long id) {
+        return dbExecutor.submit(() -> {
+            shipService.deleteShip(id);
+            return ResponseEntity.ok().<Void>build();
+        });
+    }
+
+    // fields=id,name,rating: the listed fields of ShipRow.FIELDS in that order, null returns whole ships
+    private static List<String> projection(String fields) {
+        if (fields == null) {
+            return null;
+        }
+        List<String> projection = new ArrayList<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (!ShipRow.FIELDS.contains(name)) {
+                throw new BadRequestException("Unknown field: " + name);
+            }
+            if (!projection.contains(name)) {
+                projection.add(name);
+            }
+        }
+        return projection;
+    }
+
+    private static String entityTag(Ship ship, String variant) {
+        return "\"" + ship.getId() + "-" + ship.getVersion() + (ship.hasNextRating() ? "-n" : "") + variant + "\"";
+    }
+
+    // Strong ETags must differ between representations, so the binary formats get their own suffix
+    private static String variant(WebRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return "";
+        }
+        return accept.contains(SMILE_VALUE) ? "-smile" : accept.contains(CBOR_VALUE) ? "-cbor" : "";
+    }
+
+    // Null for a missing or "*" If-Match, a tag of another ship can never match
+    private static Long expectedVersion(Long id, String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        // Compressed responses carry the weak form of the same tag
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        String prefix = "\"" + id + "-";
+        if (!tag.startsWith(prefix) || !tag.endsWith("\"") || tag.length() <= prefix.length() + 1) {
+            throw new ConflictException();
+        }
+        // A tag of a binary representation names the same version
+        String version = tag.substring(prefix.length(), tag.length() - 1);
+        int variant = version.indexOf('-');
+        try {
+            return Long.parseLong(variant < 0 ? version : version.substring(0, variant));
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Malformed If-Match header");
+        }
+    }
+
+    // Lists are tagged before the query runs, so a match costs no database access at all
+    private String listTag(Object... query) {
+        return "\"" + shipChangeCounter.tag() + "-" + Integer.toHexString(Arrays.hashCode(query)) + "\"";
     }
 
 }
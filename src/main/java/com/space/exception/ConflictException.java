@@ -0,0 +1,15 @@
+package com.space.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.CONFLICT,
+        reason = "Ship was changed concurrently, GET it again and retry with its new ETag in If-Match")
+public class ConflictException extends RuntimeException {
+
+    public ConflictException() {}
+
+    public ConflictException(String message) {
+        super(message);
+    }
+}
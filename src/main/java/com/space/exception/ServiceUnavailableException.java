@@ -0,0 +1,14 @@
+package com.space.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ServiceUnavailableException extends RuntimeException {
+
+    public ServiceUnavailableException() {}
+
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,66 @@
+package com.space.index;
+
+import java.util.List;
+
+public class BitmapStatistics {
+
+    private boolean usable;
+    private long ships;
+    private int bitmaps;
+    private long bytes;
+    private List<Dimension> dimensions;
+
+    public BitmapStatistics(boolean usable, long ships, int bitmaps, long bytes, List<Dimension> dimensions) {
+        this.usable = usable;
+        this.ships = ships;
+        this.bitmaps = bitmaps;
+        this.bytes = bytes;
+        this.dimensions = dimensions;
+    }
+
+    public boolean isUsable() {
+        return usable;
+    }
+
+    public long getShips() {
+        return ships;
+    }
+
+    public int getBitmaps() {
+        return bitmaps;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public List<Dimension> getDimensions() {
+        return dimensions;
+    }
+
+    // Bitmaps and bytes of the non-empty buckets of one dimension
+    public static class Dimension {
+
+        private String name;
+        private int bitmaps;
+        private long bytes;
+
+        public Dimension(String name, int bitmaps, long bytes) {
+            this.name = name;
+            this.bitmaps = bitmaps;
+            this.bytes = bytes;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getBitmaps() {
+            return bitmaps;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.space.index;
+
+public class KdTreeStatistics {
+
+    private long ships;
+    private int nodes;
+    private int leaves;
+    private int depth;
+    private long rebuilds;
+    private long queries;
+    private long visits;
+
+    public KdTreeStatistics(long ships, int nodes, int leaves, int depth, long rebuilds, long queries, long visits) {
+        this.ships = ships;
+        this.nodes = nodes;
+        this.leaves = leaves;
+        this.depth = depth;
+        this.rebuilds = rebuilds;
+        this.queries = queries;
+        this.visits = visits;
+    }
+
+    public long getShips() {
+        return ships;
+    }
+
+    public int getNodes() {
+        return nodes;
+    }
+
+    public int getLeaves() {
+        return leaves;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getRebuilds() {
+        return rebuilds;
+    }
+
+    public long getQueries() {
+        return queries;
+    }
+
+    // Ships compared with a query one by one, all queries together
+    public long getVisits() {
+        return visits;
+    }
+}
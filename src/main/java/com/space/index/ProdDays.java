@@ -0,0 +1,27 @@
+package com.space.index;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+// Production dates as epoch days in the default zone, which is how the database stores and compares prodDate
+final class ProdDays {
+
+    private ProdDays() {
+    }
+
+    static int epochDay(long millis) {
+        return (int) Instant.ofEpochMilli(millis).atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+
+    // The database compares prodDate as midnight of that day, so "after" starts at the first midnight not before it
+    static int firstDayFrom(long after) {
+        ZonedDateTime time = Instant.ofEpochMilli(after).atZone(ZoneId.systemDefault());
+        LocalDate date = time.toLocalDate();
+        if (time.isAfter(date.atStartOfDay(time.getZone()))) {
+            date = date.plusDays(1);
+        }
+        return (int) date.toEpochDay();
+    }
+}
@@ -0,0 +1,36 @@
+package com.space.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Changes that arrive while a structure is rebuilt from the table. The read may or may not see a write that
+// commits meanwhile, so every change applied to the live structure during the read is recorded as well and
+// replayed onto the rebuilt one right before it is swapped in. Changes must therefore also be correct when the
+// rebuilt structure already contains them. Not thread-safe, it is used under the lock of the structure
+final class RebuildLog<T> {
+
+    // Null while no rebuild reads the table
+    private List<Consumer<T>> changes;
+
+    // Before the read starts, a change notified earlier has committed before it and is seen by the read
+    void start() {
+        changes = new ArrayList<>();
+    }
+
+    void record(Consumer<T> change) {
+        if (changes != null) {
+            changes.add(change);
+        }
+    }
+
+    void replay(T rebuilt) {
+        changes.forEach(change -> change.accept(rebuilt));
+        changes = null;
+    }
+
+    // The read failed, the live structure stays
+    void discard() {
+        changes = null;
+    }
+}
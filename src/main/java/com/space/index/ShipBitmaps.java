@@ -0,0 +1,445 @@
+package com.space.index;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.service.ShipChangeListener;
+import com.space.service.ShipFilter;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+// Compressed bitmaps of ship ids for shipType, isUsed and production year, and for range buckets of speed,
+// crew size and rating. A filter is an AND over its dimensions of the OR of the buckets inside its bounds,
+// so most counts are a cardinality. Ships in a bucket cut by a bound, and all of them when name or planet
+// are filtered, may or may not match: the database decides for those, by id, when there are few enough
+@Component
+@DependsOn("flyway")
+public class ShipBitmaps implements ShipChangeListener, InitializingBean {
+
+    private static final int FIRST_YEAR = 2800;
+    private static final int LAST_YEAR = 3019;
+
+    @Value("${bitmaps.enabled:true}")
+    private boolean enabled;
+
+    @Value("${bitmaps.maxCandidates:1000}")
+    private int maxCandidates;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Rebuilds run one at a time, each with the log of changes made while it reads
+    private final Object rebuilding = new Object();
+    private final RebuildLog<Index> changes = new RebuildLog<>();
+    private Index index = new Index();
+
+    public ShipBitmaps() {
+    }
+
+    public ShipBitmaps(boolean enabled, int maxCandidates) {
+        this.enabled = enabled;
+        this.maxCandidates = maxCandidates;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (enabled) {
+            rebuild(new JdbcTemplate(dataSource));
+        }
+    }
+
+    public void rebuild(JdbcTemplate jdbcTemplate) {
+        synchronized (rebuilding) {
+            Index rebuilt = new Index();
+            read(() -> {
+                jdbcTemplate.setFetchSize(1000);
+                jdbcTemplate.query("SELECT id, shipType, prodDate, isUsed, speed, crewSize, rating FROM ship", rs -> {
+                    long id = rs.getLong(1);
+                    if (id > Integer.MAX_VALUE) {
+                        rebuilt.usable = false;
+                        return;
+                    }
+                    String type = rs.getString(2);
+                    java.sql.Date prodDate = rs.getDate(3);
+                    boolean used = rs.getBoolean(4);
+                    Boolean isUsed = rs.wasNull() ? null : used;
+                    double speed = rs.getDouble(5);
+                    Double speedValue = rs.wasNull() ? null : speed;
+                    int crew = rs.getInt(6);
+                    Integer crewValue = rs.wasNull() ? null : crew;
+                    double rating = rs.getDouble(7);
+                    Double ratingValue = rs.wasNull() ? null : rating;
+                    rebuilt.add((int) id, values(type == null ? null : ShipType.valueOf(type),
+                            prodDate == null ? null : prodDate.toLocalDate().toEpochDay(), isUsed, speedValue, crewValue, ratingValue));
+                });
+                rebuilt.optimize();
+            });
+            swap(rebuilt);
+        }
+    }
+
+    // The number of ships matching the filter, or null when the bitmaps can not tell. The ids of ships that
+    // may or may not match go to refine, which counts the matching ones among them
+    public Long count(ShipFilter filter, ToLongFunction<long[]> refine) {
+        RoaringBitmap[] candidates = evaluate(filter);
+        if (candidates == null) {
+            return null;
+        }
+        long certain = candidates[0].getLongCardinality();
+        if (candidates[1].isEmpty()) {
+            return certain;
+        }
+        if (candidates[1].getLongCardinality() > maxCandidates) {
+            return null;
+        }
+        return certain + refine.applyAsLong(ids(candidates[1]));
+    }
+
+    // Ids of all ships that may match the filter, or null when there are more than maxCandidates of them or
+    // the filter leaves out no ship for sure
+    public long[] candidates(ShipFilter filter) {
+        RoaringBitmap[] candidates = evaluate(filter);
+        if (candidates == null) {
+            return null;
+        }
+        long count = candidates[0].getLongCardinality() + candidates[1].getLongCardinality();
+        if (count > maxCandidates || count == size()) {
+            return null;
+        }
+        return ids(RoaringBitmap.or(candidates[0], candidates[1]));
+    }
+
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return index.all.getLongCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public BitmapStatistics statistics() {
+        lock.readLock().lock();
+        try {
+            List<BitmapStatistics.Dimension> dimensions = new ArrayList<>();
+            long bytes = index.all.getLongSizeInBytes();
+            int bitmaps = 1;
+            for (Dimension dimension : index.dimensions) {
+                int used = 0;
+                long size = 0;
+                for (RoaringBitmap bucket : dimension.buckets) {
+                    if (!bucket.isEmpty()) {
+                        used++;
+                        size += bucket.getLongSizeInBytes();
+                    }
+                }
+                dimensions.add(new BitmapStatistics.Dimension(dimension.name, used, size));
+                bitmaps += used;
+                bytes += size;
+            }
+            return new BitmapStatistics(enabled && index.usable, index.all.getLongCardinality(), bitmaps, bytes, dimensions);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void shipCreated(Ship ship) {
+        change(null, ship);
+    }
+
+    @Override
+    public void shipUpdated(Ship previous, Ship current) {
+        change(previous, current);
+    }
+
+    @Override
+    public void shipDeleted(Ship ship) {
+        change(ship, null);
+    }
+
+    @Override
+    public void shipsReloaded() {
+        afterPropertiesSet();
+    }
+
+    private void read(Runnable read) {
+        lock.writeLock().lock();
+        try {
+            changes.start();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            read.run();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changes.discard();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+    }
+
+    private void swap(Index rebuilt) {
+        lock.writeLock().lock();
+        try {
+            changes.replay(rebuilt);
+            index = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Removing the previous values first keeps the replay right when the rebuilt index already holds the current ones
+    private void change(Ship previous, Ship current) {
+        if (!enabled) {
+            return;
+        }
+        Consumer<Index> change = index -> {
+            if (previous != null && previous.getId() <= Integer.MAX_VALUE) {
+                index.remove(previous.getId().intValue(), values(previous));
+            }
+            if (current != null) {
+                if (current.getId() > Integer.MAX_VALUE) {
+                    index.usable = false;
+                    return;
+                }
+                index.add(current.getId().intValue(), values(current));
+            }
+        };
+        lock.writeLock().lock();
+        try {
+            change.accept(index);
+            changes.record(change);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Certain and possible but uncertain matches, both new bitmaps, or null when nothing can be told
+    private RoaringBitmap[] evaluate(ShipFilter filter) {
+        if (!enabled) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            Index index = this.index;
+            if (!index.usable) {
+                return null;
+            }
+            RoaringBitmap certain = index.all;
+            RoaringBitmap possible = index.all;
+            if (filter.getShipType() != null) {
+                int ordinal = filter.getShipType().ordinal();
+                RoaringBitmap[] cover = index.type.cover(ordinal, ordinal);
+                certain = RoaringBitmap.and(certain, cover[0]);
+                possible = RoaringBitmap.and(possible, cover[0]);
+            }
+            if (filter.getUsed() != null) {
+                int used = filter.getUsed() ? 1 : 0;
+                RoaringBitmap[] cover = index.used.cover(used, used);
+                certain = RoaringBitmap.and(certain, cover[0]);
+                possible = RoaringBitmap.and(possible, cover[0]);
+            }
+            RoaringBitmap[][] covers = {
+                    filter.getAfter() == null && filter.getBefore() == null ? null : index.year.cover(
+                            filter.getAfter() == null ? Double.NEGATIVE_INFINITY : ProdDays.firstDayFrom(filter.getAfter()),
+                            filter.getBefore() == null ? Double.POSITIVE_INFINITY : ProdDays.epochDay(filter.getBefore())),
+                    range(index.speed, filter.getMinSpeed(), filter.getMaxSpeed()),
+                    range(index.crew, filter.getMinCrewSize(), filter.getMaxCrewSize()),
+                    range(index.rating, filter.getMinRating(), filter.getMaxRating())};
+            for (RoaringBitmap[] cover : covers) {
+                if (cover != null) {
+                    certain = RoaringBitmap.and(certain, cover[0]);
+                    possible = RoaringBitmap.and(possible, RoaringBitmap.or(cover[0], cover[1]));
+                }
+            }
+            if (filter.getName() != null || filter.getPlanet() != null) {
+                certain = new RoaringBitmap();
+            }
+            // Both may still be the live bitmap of all ships, which writes change after the lock is released
+            return new RoaringBitmap[]{certain == index.all ? certain.clone() : certain,
+                    RoaringBitmap.andNot(possible, certain)};
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static RoaringBitmap[] range(Dimension dimension, Number min, Number max) {
+        if (min == null && max == null) {
+            return null;
+        }
+        return dimension.cover(min == null ? Double.NEGATIVE_INFINITY : min.doubleValue(),
+                max == null ? Double.POSITIVE_INFINITY : max.doubleValue());
+    }
+
+    private static long[] ids(RoaringBitmap bitmap) {
+        long[] ids = new long[bitmap.getCardinality()];
+        int i = 0;
+        for (int id : bitmap) {
+            ids[i++] = id;
+        }
+        return ids;
+    }
+
+    private static double[] values(Ship ship) {
+        return values(ship.getShipType(), ship.getProdDate() == null ? null : (long) ProdDays.epochDay(ship.getProdDate().getTime()),
+                ship.getUsed(), ship.getSpeed(), ship.getCrewSize(), ship.getRating());
+    }
+
+    // One value per dimension in the order of Index.dimensions, NaN for null
+    private static double[] values(ShipType type, Long day, Boolean used, Double speed, Integer crew, Double rating) {
+        return new double[]{
+                type == null ? Double.NaN : type.ordinal(),
+                used == null ? Double.NaN : used ? 1 : 0,
+                day == null ? Double.NaN : day,
+                speed == null ? Double.NaN : speed,
+                crew == null ? Double.NaN : crew,
+                rating == null ? Double.NaN : rating};
+    }
+
+    // Divided rather than multiplied by a fraction, so that 29 / 100.0 is the same double as a parsed 0.29
+    private static double[] grid(int count, int multiplier, int divisor) {
+        double[] bounds = new double[count];
+        for (int i = 0; i < count; i++) {
+            bounds[i] = (double) i * multiplier / divisor;
+        }
+        return bounds;
+    }
+
+    private static double[] yearStarts() {
+        double[] bounds = new double[LAST_YEAR - FIRST_YEAR + 2];
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = LocalDate.of(FIRST_YEAR + i, 1, 1).toEpochDay();
+        }
+        return bounds;
+    }
+
+    private static class Index {
+
+        private final RoaringBitmap all;
+        private final Dimension type;
+        private final Dimension used;
+        private final Dimension year;
+        private final Dimension speed;
+        private final Dimension crew;
+        private final Dimension rating;
+        private final Dimension[] dimensions;
+        // Ids beyond the int range can not be set in a bitmap
+        private boolean usable = true;
+
+        Index() {
+            all = new RoaringBitmap();
+            type = new Dimension("shipType", grid(ShipType.values().length, 1, 1), 1);
+            used = new Dimension("isUsed", grid(2, 1, 1), 1);
+            // A year is the bucket of its first day and the one up to the next year
+            year = new Dimension("prodYear", yearStarts(), 1);
+            speed = new Dimension("speed", grid(101, 1, 100), 0);
+            crew = new Dimension("crewSize", grid(101, 100, 1), 1);
+            rating = new Dimension("rating", grid(81, 1, 1), 0);
+            dimensions = new Dimension[]{type, used, year, speed, crew, rating};
+        }
+
+        void add(int id, double[] values) {
+            all.add(id);
+            for (int i = 0; i < dimensions.length; i++) {
+                dimensions[i].buckets[dimensions[i].bucket(values[i])].add(id);
+            }
+        }
+
+        void remove(int id, double[] values) {
+            all.remove(id);
+            for (int i = 0; i < dimensions.length; i++) {
+                dimensions[i].buckets[dimensions[i].bucket(values[i])].remove(id);
+            }
+        }
+
+        void optimize() {
+            all.runOptimize();
+            for (Dimension dimension : dimensions) {
+                for (RoaringBitmap bucket : dimension.buckets) {
+                    bucket.runOptimize();
+                }
+            }
+        }
+    }
+
+    // Ship ids bucketed by one value. Each bound has a bucket for the value itself and one for the values up to
+    // the next bound, so a range from or to a bound, or next to one for integers, is a union of whole buckets.
+    // The last bucket holds the ships without a value, no range takes them
+    private static class Dimension {
+
+        private final String name;
+        private final double[] bounds;
+        // 1 for integer values, the gap between bounds a and b then holds a + 1 to b - 1 only
+        private final double step;
+        private final RoaringBitmap[] buckets;
+
+        Dimension(String name, double[] bounds, double step) {
+            this.name = name;
+            this.bounds = bounds;
+            this.step = step;
+            this.buckets = new RoaringBitmap[2 * bounds.length + 2];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new RoaringBitmap();
+            }
+        }
+
+        int bucket(double value) {
+            if (Double.isNaN(value)) {
+                return buckets.length - 1;
+            }
+            int i = Arrays.binarySearch(bounds, value);
+            return i >= 0 ? 2 * i + 1 : 2 * (-i - 1);
+        }
+
+        // The union of the buckets inside [min, max] and that of the buckets only partly inside
+        RoaringBitmap[] cover(double min, double max) {
+            List<RoaringBitmap> inside = new ArrayList<>();
+            List<RoaringBitmap> partial = new ArrayList<>();
+            for (int i = 0; i < buckets.length - 1; i++) {
+                if (buckets[i].isEmpty()) {
+                    continue;
+                }
+                if (i % 2 == 1) {
+                    double bound = bounds[i / 2];
+                    if (bound >= min && bound <= max) {
+                        inside.add(buckets[i]);
+                    }
+                    continue;
+                }
+                double low = i == 0 ? Double.NEGATIVE_INFINITY : bounds[i / 2 - 1];
+                double high = i == buckets.length - 2 ? Double.POSITIVE_INFINITY : bounds[i / 2];
+                if (min <= low + step && high - step <= max) {
+                    inside.add(buckets[i]);
+                } else if (min < high && max > low) {
+                    partial.add(buckets[i]);
+                }
+            }
+            return new RoaringBitmap[]{or(inside), or(partial)};
+        }
+
+        private static RoaringBitmap or(List<RoaringBitmap> bitmaps) {
+            return bitmaps.isEmpty() ? new RoaringBitmap() : FastAggregation.or(bitmaps.iterator());
+        }
+    }
+}
@@ -0,0 +1,823 @@
+package com.space.index;
+
+import com.space.controller.ShipOrder;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.service.ShipChangeListener;
+import com.space.service.ShipFilter;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// A copy of the ship table in one primitive array per column, rows in id order, answering list pages and counts
+// with a plain scan instead of a query. Names and planets are dictionary encoded, so a substring filter is tested
+// once per distinct value and the scan only looks up a flag. Nulls are kept as values no filter bound accepts:
+// NaN for doubles, NULL_INT for days and crew sizes, NULL_CODE for the encoded columns.
+// Filters are evaluated a batch of rows at a time, one column after the other, into a selection vector.
+// Large stores are split into partitions scanned by a fork/join pool, whose counts and first rows are merged
+@Component
+@DependsOn("flyway")
+public class ShipColumns implements ShipChangeListener, InitializingBean, DisposableBean {
+
+    private static final int NULL_INT = Integer.MIN_VALUE;
+    private static final byte NULL_CODE = -1;
+    // Type code of a deleted row, it stays in place until enough rows are deleted to compact the arrays
+    private static final byte DELETED = -2;
+    private static final byte ANY = -3;
+    // Rows per batch, small enough for the batch of every column and the mask to stay in the L1 cache
+    private static final int BATCH = 1024;
+
+    @Value("${columns.enabled:false}")
+    private boolean enabled;
+
+    // Threads of the partitioned scan, 0 for one per core
+    @Value("${columns.parallelism:0}")
+    private int parallelism;
+
+    // Stores with fewer rows are scanned by the request thread alone
+    @Value("${columns.parallelThreshold:200000}")
+    private int parallelThreshold;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Rebuilds run one at a time, each with the log of changes made while it reads
+    private final Object rebuilding = new Object();
+    private final RebuildLog<Columns> changes = new RebuildLog<>();
+    private Columns columns = new Columns(16);
+    private ForkJoinPool pool;
+
+    public ShipColumns() {
+    }
+
+    public ShipColumns(boolean enabled) {
+        this(enabled, 1, Integer.MAX_VALUE);
+    }
+
+    public ShipColumns(boolean enabled, int parallelism, int parallelThreshold) {
+        this.enabled = enabled;
+        this.parallelism = parallelism;
+        this.parallelThreshold = parallelThreshold;
+        startPool();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (enabled) {
+            startPool();
+            rebuild(new JdbcTemplate(dataSource));
+        }
+    }
+
+    public void rebuild(JdbcTemplate jdbcTemplate) {
+        synchronized (rebuilding) {
+            Columns rebuilt = new Columns(1024);
+            read(() -> {
+                jdbcTemplate.setFetchSize(1000);
+                jdbcTemplate.query("SELECT id, name, planet, shipType, prodDate, isUsed, speed, crewSize, rating FROM ship ORDER BY id", rs -> {
+                    String type = rs.getString(4);
+                    java.sql.Date prodDate = rs.getDate(5);
+                    boolean used = rs.getBoolean(6);
+                    Boolean isUsed = rs.wasNull() ? null : used;
+                    double speed = rs.getDouble(7);
+                    Double speedValue = rs.wasNull() ? null : speed;
+                    int crew = rs.getInt(8);
+                    Integer crewValue = rs.wasNull() ? null : crew;
+                    double rating = rs.getDouble(9);
+                    Double ratingValue = rs.wasNull() ? null : rating;
+                    rebuilt.append(rs.getLong(1), rs.getString(2), rs.getString(3), type == null ? null : ShipType.valueOf(type),
+                            prodDate == null ? NULL_INT : (int) prodDate.toLocalDate().toEpochDay(), isUsed, speedValue, crewValue, ratingValue);
+                });
+            });
+            lock.writeLock().lock();
+            try {
+                changes.replay(rebuilt);
+                columns = rebuilt;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Null when the filter can not be evaluated here, the caller then has to query the database
+    public Long count(ShipFilter filter) {
+        if (!enabled || !supported(filter)) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            if (!columns.decides(filter)) {
+                return null;
+            }
+            return evaluate(new Scan(columns, filter), null, 0).count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Rows offset to offset + limit of the filtered ships sorted by order and then id, or null like count
+    public List<Ship> find(ShipFilter filter, ShipOrder order, long offset, int limit) {
+        if (!enabled || order == null || !supported(filter) || offset + limit > Integer.MAX_VALUE) {
+            return null;
+        }
+        int wanted = (int) offset + limit;
+        lock.readLock().lock();
+        try {
+            if (!columns.decides(filter)) {
+                return null;
+            }
+            int[] rows = evaluate(new Scan(columns, filter), order, Math.min(wanted, columns.size)).rows;
+            List<Ship> ships = new ArrayList<>(Math.max(0, rows.length - (int) offset));
+            for (int i = (int) offset; i < rows.length; i++) {
+                ships.add(columns.ship(rows[i]));
+            }
+            return ships;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The workers only read the arrays, the read lock of the calling thread keeps writers out until they are done
+    private Partial evaluate(Scan scan, ShipOrder order, int wanted) {
+        if (pool == null || columns.size < parallelThreshold) {
+            return scan(columns, scan, order, wanted, 0, columns.size);
+        }
+        int grain = Math.max(BATCH, columns.size / (pool.getParallelism() * 4));
+        return pool.invoke(new Partition(columns, scan, order, wanted, 0, columns.size, grain));
+    }
+
+    private void startPool() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        if (pool == null && threads > 1) {
+            pool = new ForkJoinPool(threads);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return columns.size - columns.deleted;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void shipCreated(Ship ship) {
+        change(columns -> columns.insert(ship));
+    }
+
+    @Override
+    public void shipUpdated(Ship previous, Ship current) {
+        change(columns -> {
+            int row = columns.row(current.getId());
+            if (row >= 0) {
+                columns.set(row, current);
+            } else {
+                columns.insert(current);
+            }
+        });
+    }
+
+    @Override
+    public void shipDeleted(Ship ship) {
+        change(columns -> columns.delete(ship.getId()));
+    }
+
+    @Override
+    public void shipsReloaded() {
+        afterPropertiesSet();
+    }
+
+    // Every row a change sets is set whole, so replaying it is also right when the read already saw it
+    private void change(Consumer<Columns> change) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            change.accept(columns);
+            changes.record(change);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void read(Runnable read) {
+        lock.writeLock().lock();
+        try {
+            changes.start();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            read.run();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changes.discard();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+    }
+
+    // LIKE wildcards inside a substring term would need a pattern match
+    private static boolean supported(ShipFilter filter) {
+        return filter.hasLiteralTerms();
+    }
+
+    // A filter turned into primitive bounds. A dimension that is not filtered is skipped, a filtered one takes
+    // no null, as none of the bounds accepts the null values
+    private static class Scan {
+
+        private final byte[] types;
+        private final byte[] usedCodes;
+        private final int[] days;
+        private final double[] speeds;
+        private final int[] crews;
+        private final double[] ratings;
+        private final int[] nameCodes;
+        private final int[] planetCodes;
+        private final byte type;
+        private final byte used;
+        private final boolean byDay;
+        private final int fromDay;
+        private final int toDay;
+        private final boolean bySpeed;
+        private final double minSpeed;
+        private final double maxSpeed;
+        private final boolean byCrew;
+        private final int minCrew;
+        private final int maxCrew;
+        private final boolean byRating;
+        private final double minRating;
+        private final double maxRating;
+        private final byte[] names;
+        private final byte[] planets;
+
+        Scan(Columns columns, ShipFilter filter) {
+            types = columns.types;
+            usedCodes = columns.used;
+            days = columns.days;
+            speeds = columns.speeds;
+            crews = columns.crews;
+            ratings = columns.ratings;
+            nameCodes = columns.nameCodes;
+            planetCodes = columns.planetCodes;
+            type = filter.getShipType() == null ? ANY : (byte) filter.getShipType().ordinal();
+            used = filter.getUsed() == null ? ANY : (byte) (filter.getUsed() ? 1 : 0);
+            byDay = filter.getAfter() != null || filter.getBefore() != null;
+            fromDay = filter.getAfter() == null ? NULL_INT + 1 : ProdDays.firstDayFrom(filter.getAfter());
+            toDay = filter.getBefore() == null ? Integer.MAX_VALUE : ProdDays.epochDay(filter.getBefore());
+            bySpeed = filter.getMinSpeed() != null || filter.getMaxSpeed() != null;
+            minSpeed = filter.getMinSpeed() == null ? Double.NEGATIVE_INFINITY : filter.getMinSpeed();
+            maxSpeed = filter.getMaxSpeed() == null ? Double.POSITIVE_INFINITY : filter.getMaxSpeed();
+            byCrew = filter.getMinCrewSize() != null || filter.getMaxCrewSize() != null;
+            minCrew = filter.getMinCrewSize() == null ? NULL_INT + 1 : filter.getMinCrewSize();
+            maxCrew = filter.getMaxCrewSize() == null ? Integer.MAX_VALUE : filter.getMaxCrewSize();
+            byRating = filter.getMinRating() != null || filter.getMaxRating() != null;
+            minRating = filter.getMinRating() == null ? Double.NEGATIVE_INFINITY : filter.getMinRating();
+            maxRating = filter.getMaxRating() == null ? Double.POSITIVE_INFINITY : filter.getMaxRating();
+            names = filter.getName() == null ? null : columns.names.matching(filter.getName());
+            planets = filter.getPlanet() == null ? null : columns.planets.matching(filter.getPlanet());
+        }
+
+        // Writes the matching rows of from to to - 1 to selection and returns how many there are. Every
+        // predicate is a loop of its own that ANDs a 0 or 1 into the mask without branching, a form the JIT
+        // compiles to compare and select instructions, or SIMD where it can, instead of mispredicted jumps
+        int select(int from, int to, byte[] mask, int[] selection) {
+            int length = to - from;
+            if (type == ANY) {
+                for (int i = 0; i < length; i++) {
+                    mask[i] = (byte) (types[from + i] != DELETED ? 1 : 0);
+                }
+            } else {
+                for (int i = 0; i < length; i++) {
+                    mask[i] = (byte) (types[from + i] == type ? 1 : 0);
+                }
+            }
+            if (used != ANY) {
+                for (int i = 0; i < length; i++) {
+                    mask[i] &= (byte) (usedCodes[from + i] == used ? 1 : 0);
+                }
+            }
+            if (byDay) {
+                for (int i = 0; i < length; i++) {
+                    int day = days[from + i];
+                    mask[i] &= (byte) (day >= fromDay & day <= toDay ? 1 : 0);
+                }
+            }
+            if (bySpeed) {
+                for (int i = 0; i < length; i++) {
+                    double speed = speeds[from + i];
+                    mask[i] &= (byte) (speed >= minSpeed & speed <= maxSpeed ? 1 : 0);
+                }
+            }
+            if (byCrew) {
+                for (int i = 0; i < length; i++) {
+                    int crew = crews[from + i];
+                    mask[i] &= (byte) (crew >= minCrew & crew <= maxCrew ? 1 : 0);
+                }
+            }
+            if (byRating) {
+                for (int i = 0; i < length; i++) {
+                    double rating = ratings[from + i];
+                    mask[i] &= (byte) (rating >= minRating & rating <= maxRating ? 1 : 0);
+                }
+            }
+            // Flags are shifted by one, so that the null code reads the leading 0
+            if (names != null) {
+                for (int i = 0; i < length; i++) {
+                    mask[i] &= names[nameCodes[from + i] + 1];
+                }
+            }
+            if (planets != null) {
+                for (int i = 0; i < length; i++) {
+                    mask[i] &= planets[planetCodes[from + i] + 1];
+                }
+            }
+            // Every row is written, only the matching ones move the end of the selection on
+            int selected = 0;
+            for (int i = 0; i < length; i++) {
+                selection[selected] = from + i;
+                selected += mask[i];
+            }
+            return selected;
+        }
+    }
+
+    // Scans rows from to to - 1: counts the matches without an order, or keeps the first wanted of them in it
+    private static Partial scan(Columns columns, Scan scan, ShipOrder order, int wanted, int from, int to) {
+        byte[] mask = new byte[BATCH];
+        int[] selection = new int[BATCH];
+        if (order == null) {
+            long count = 0;
+            for (int start = from; start < to; start += BATCH) {
+                count += scan.select(start, Math.min(to, start + BATCH), mask, selection);
+            }
+            return new Partial(count, null);
+        }
+        if (order == ShipOrder.ID) {
+            // Rows are in id order already, the scan can stop at the batch with the last row wanted
+            int[] rows = new int[Math.min(wanted, to - from)];
+            int found = 0;
+            for (int start = from; start < to && found < rows.length; start += BATCH) {
+                int selected = scan.select(start, Math.min(to, start + BATCH), mask, selection);
+                int taken = Math.min(selected, rows.length - found);
+                System.arraycopy(selection, 0, rows, found, taken);
+                found += taken;
+            }
+            return new Partial(found, Arrays.copyOf(rows, found));
+        }
+        TopRows top = new TopRows(columns, order, Math.min(wanted, to - from));
+        for (int start = from; start < to; start += BATCH) {
+            int selected = scan.select(start, Math.min(to, start + BATCH), mask, selection);
+            for (int i = 0; i < selected; i++) {
+                top.offer(selection[i]);
+            }
+        }
+        int[] rows = top.sorted();
+        return new Partial(rows.length, rows);
+    }
+
+    // The count, or the first rows in order, of one partition. Only counts without an order are complete
+    private static class Partial {
+
+        private final long count;
+        private final int[] rows;
+
+        Partial(long count, int[] rows) {
+            this.count = count;
+            this.rows = rows;
+        }
+    }
+
+    // A range of rows, split in halves down to grain rows, whose results are merged on the way back up
+    private static class Partition extends RecursiveTask<Partial> {
+
+        private final Columns columns;
+        private final Scan scan;
+        private final ShipOrder order;
+        private final int wanted;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        Partition(Columns columns, Scan scan, ShipOrder order, int wanted, int from, int to, int grain) {
+            this.columns = columns;
+            this.scan = scan;
+            this.order = order;
+            this.wanted = wanted;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= grain) {
+                return scan(columns, scan, order, wanted, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            Partition lower = new Partition(columns, scan, order, wanted, from, middle, grain);
+            lower.fork();
+            Partial upper = new Partition(columns, scan, order, wanted, middle, to, grain).compute();
+            return merge(lower.join(), upper);
+        }
+
+        // The lower partition holds the smaller ids, so in id order its rows simply come first
+        private Partial merge(Partial lower, Partial upper) {
+            if (order == null) {
+                return new Partial(lower.count + upper.count, null);
+            }
+            int[] rows;
+            if (order == ShipOrder.ID) {
+                rows = Arrays.copyOf(lower.rows, Math.min(wanted, lower.rows.length + upper.rows.length));
+                System.arraycopy(upper.rows, 0, rows, lower.rows.length, rows.length - lower.rows.length);
+            } else {
+                TopRows top = new TopRows(columns, order, Math.min(wanted, lower.rows.length + upper.rows.length));
+                for (int row : lower.rows) {
+                    top.offer(row);
+                }
+                for (int row : upper.rows) {
+                    top.offer(row);
+                }
+                rows = top.sorted();
+            }
+            return new Partial(rows.length, rows);
+        }
+    }
+
+    // The limit smallest rows by (order key, id), in a max-heap whose root is the first row to drop
+    private static class TopRows {
+
+        private final Columns columns;
+        private final ShipOrder order;
+        private final int[] heap;
+        private int size;
+
+        TopRows(Columns columns, ShipOrder order, int limit) {
+            this.columns = columns;
+            this.order = order;
+            this.heap = new int[limit];
+        }
+
+        void offer(int row) {
+            if (heap.length == 0) {
+                return;
+            }
+            if (size < heap.length) {
+                heap[size] = row;
+                up(size++);
+            } else if (less(row, heap[0])) {
+                heap[0] = row;
+                down(0);
+            }
+        }
+
+        int[] sorted() {
+            int[] rows = new int[size];
+            for (int i = size - 1; i >= 0; i--) {
+                rows[i] = heap[0];
+                heap[0] = heap[--size];
+                down(0);
+            }
+            return rows;
+        }
+
+        private void up(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!less(heap[parent], heap[i])) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void down(int i) {
+            while (true) {
+                int largest = i;
+                int left = 2 * i + 1;
+                if (left < size && less(heap[largest], heap[left])) {
+                    largest = left;
+                }
+                if (left + 1 < size && less(heap[largest], heap[left + 1])) {
+                    largest = left + 1;
+                }
+                if (largest == i) {
+                    return;
+                }
+                swap(i, largest);
+                i = largest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            int row = heap[i];
+            heap[i] = heap[j];
+            heap[j] = row;
+        }
+
+        private boolean less(int a, int b) {
+            int byKey = Double.compare(key(a), key(b));
+            return byKey != 0 ? byKey < 0 : columns.ids[a] < columns.ids[b];
+        }
+
+        // Nulls sort first, as they do in the database
+        private double key(int row) {
+            double key;
+            switch (order) {
+                case SPEED:
+                    key = columns.speeds[row];
+                    break;
+                case RATING:
+                    key = columns.ratings[row];
+                    break;
+                case DATE:
+                    key = columns.days[row];
+                    break;
+                default:
+                    key = columns.ids[row];
+            }
+            return Double.isNaN(key) ? Double.NEGATIVE_INFINITY : key;
+        }
+    }
+
+    private static class Dictionary {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private String[] values = new String[16];
+        private String[] folded = new String[16];
+        // Rows using each code, a value no row uses keeps its code until the columns are compacted
+        private int[] uses = new int[16];
+        private int unused;
+        // Used values without a ShipFilter.fold, only the database can tell which terms they contain
+        private int unfolded;
+
+        int encode(String value) {
+            if (value == null) {
+                return NULL_CODE;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = codes.size();
+                if (code == values.length) {
+                    values = Arrays.copyOf(values, code * 2);
+                    folded = Arrays.copyOf(folded, code * 2);
+                    uses = Arrays.copyOf(uses, code * 2);
+                }
+                values[code] = value;
+                folded[code] = ShipFilter.fold(value);
+                codes.put(value, code);
+            } else if (uses[code] == 0) {
+                unused--;
+            }
+            if (uses[code]++ == 0 && folded[code] == null) {
+                unfolded++;
+            }
+            return code;
+        }
+
+        void release(int code) {
+            if (code >= 0 && --uses[code] == 0) {
+                unused++;
+                if (folded[code] == null) {
+                    unfolded--;
+                }
+            }
+        }
+
+        boolean sparse() {
+            return unused > 1024 && unused > codes.size() / 8;
+        }
+
+        String decode(int code) {
+            return code < 0 ? null : values[code];
+        }
+
+        boolean decides(String term) {
+            return term == null || (unfolded == 0 && ShipFilter.fold(term) != null);
+        }
+
+        // 1 at code + 1 for the values that contain the term, compared after ShipFilter.fold like the database
+        // collation compares them, for terms this dictionary decides. The null code reads the 0 in front
+        byte[] matching(String term) {
+            String part = ShipFilter.fold(term);
+            byte[] matching = new byte[codes.size() + 1];
+            for (int code = 0; code < codes.size(); code++) {
+                // An unused value may be one without a fold
+                matching[code + 1] = (byte) (uses[code] > 0 && folded[code].contains(part) ? 1 : 0);
+            }
+            return matching;
+        }
+    }
+
+    private static class Columns {
+
+        private long[] ids;
+        private int[] days;
+        private double[] speeds;
+        private double[] ratings;
+        private int[] crews;
+        private byte[] types;
+        private byte[] used;
+        private int[] nameCodes;
+        private int[] planetCodes;
+        private Dictionary names = new Dictionary();
+        private Dictionary planets = new Dictionary();
+        private int size;
+        private int deleted;
+
+        Columns(int capacity) {
+            ids = new long[capacity];
+            days = new int[capacity];
+            speeds = new double[capacity];
+            ratings = new double[capacity];
+            crews = new int[capacity];
+            types = new byte[capacity];
+            used = new byte[capacity];
+            nameCodes = new int[capacity];
+            planetCodes = new int[capacity];
+        }
+
+        // False when a name or planet term needs a comparison only the database can make
+        boolean decides(ShipFilter filter) {
+            return names.decides(filter.getName()) && planets.decides(filter.getPlanet());
+        }
+
+        void append(long id, String name, String planet, ShipType type, int day, Boolean isUsed, Double speed, Integer crew, Double rating) {
+            if (size == ids.length) {
+                resize(size * 2);
+            }
+            ids[size] = id;
+            nameCodes[size] = NULL_CODE;
+            planetCodes[size] = NULL_CODE;
+            set(size++, name, planet, type, day, isUsed, speed, crew, rating);
+        }
+
+        // New ships have the highest id so far, anything else is put in its place
+        void insert(Ship ship) {
+            if (ship.getId() == null) {
+                return;
+            }
+            long id = ship.getId();
+            if (size > 0 && ids[size - 1] >= id) {
+                int row = row(id);
+                if (row >= 0) {
+                    set(row, ship);
+                    if (names.sparse() || planets.sparse()) {
+                        compact();
+                    }
+                    return;
+                }
+                int position = -Arrays.binarySearch(ids, 0, size, id) - 1;
+                append(0, null, null, null, NULL_INT, null, null, null, null);
+                shift(position, position + 1, size - 1 - position);
+                ids[position] = id;
+                nameCodes[position] = NULL_CODE;
+                planetCodes[position] = NULL_CODE;
+                set(position, ship);
+                return;
+            }
+            append(id, null, null, null, NULL_INT, null, null, null, null);
+            set(size - 1, ship);
+        }
+
+        void set(int row, Ship ship) {
+            if (types[row] == DELETED) {
+                deleted--;
+            }
+            set(row, ship.getName(), ship.getPlanet(), ship.getShipType(),
+                    ship.getProdDate() == null ? NULL_INT : ProdDays.epochDay(ship.getProdDate().getTime()),
+                    ship.getUsed(), ship.getSpeed(), ship.getCrewSize(), ship.getRating());
+        }
+
+        private void set(int row, String name, String planet, ShipType type, int day, Boolean isUsed, Double speed, Integer crew, Double rating) {
+            names.release(nameCodes[row]);
+            planets.release(planetCodes[row]);
+            nameCodes[row] = names.encode(name);
+            planetCodes[row] = planets.encode(planet);
+            types[row] = type == null ? NULL_CODE : (byte) type.ordinal();
+            days[row] = day;
+            used[row] = isUsed == null ? NULL_CODE : (byte) (isUsed ? 1 : 0);
+            speeds[row] = speed == null ? Double.NaN : speed;
+            crews[row] = crew == null ? NULL_INT : crew;
+            ratings[row] = rating == null ? Double.NaN : rating;
+        }
+
+        void delete(long id) {
+            int row = row(id);
+            if (row < 0 || types[row] == DELETED) {
+                return;
+            }
+            types[row] = DELETED;
+            names.release(nameCodes[row]);
+            planets.release(planetCodes[row]);
+            nameCodes[row] = NULL_CODE;
+            planetCodes[row] = NULL_CODE;
+            deleted++;
+            if (deleted > 1024 && deleted > size / 8 || names.sparse() || planets.sparse()) {
+                compact();
+            }
+        }
+
+        int row(long id) {
+            int row = Arrays.binarySearch(ids, 0, size, id);
+            return row < 0 ? -1 : row;
+        }
+
+        Ship ship(int row) {
+            Ship ship = new Ship(names.decode(nameCodes[row]), planets.decode(planetCodes[row]),
+                    types[row] < 0 ? null : ShipType.values()[types[row]],
+                    days[row] == NULL_INT ? null : new Date(LocalDate.ofEpochDay(days[row]).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli()),
+                    used[row] < 0 ? null : used[row] == 1,
+                    Double.isNaN(speeds[row]) ? null : speeds[row],
+                    crews[row] == NULL_INT ? null : crews[row],
+                    Double.isNaN(ratings[row]) ? null : ratings[row]);
+            ship.setId(ids[row]);
+            return ship;
+        }
+
+        private void compact() {
+            int kept = 0;
+            for (int row = 0; row < size; row++) {
+                if (types[row] != DELETED) {
+                    if (kept != row) {
+                        shift(row, kept, 1);
+                    }
+                    kept++;
+                }
+            }
+            size = kept;
+            deleted = 0;
+            // Codes are given again in row order, the values no row uses are left out
+            Dictionary keptNames = new Dictionary();
+            Dictionary keptPlanets = new Dictionary();
+            for (int row = 0; row < size; row++) {
+                nameCodes[row] = keptNames.encode(names.decode(nameCodes[row]));
+                planetCodes[row] = keptPlanets.encode(planets.decode(planetCodes[row]));
+            }
+            names = keptNames;
+            planets = keptPlanets;
+        }
+
+        private void shift(int from, int to, int length) {
+            System.arraycopy(ids, from, ids, to, length);
+            System.arraycopy(days, from, days, to, length);
+            System.arraycopy(speeds, from, speeds, to, length);
+            System.arraycopy(ratings, from, ratings, to, length);
+            System.arraycopy(crews, from, crews, to, length);
+            System.arraycopy(types, from, types, to, length);
+            System.arraycopy(used, from, used, to, length);
+            System.arraycopy(nameCodes, from, nameCodes, to, length);
+            System.arraycopy(planetCodes, from, planetCodes, to, length);
+        }
+
+        private void resize(int capacity) {
+            ids = Arrays.copyOf(ids, capacity);
+            days = Arrays.copyOf(days, capacity);
+            speeds = Arrays.copyOf(speeds, capacity);
+            ratings = Arrays.copyOf(ratings, capacity);
+            crews = Arrays.copyOf(crews, capacity);
+            types = Arrays.copyOf(types, capacity);
+            used = Arrays.copyOf(used, capacity);
+            nameCodes = Arrays.copyOf(nameCodes, capacity);
+            planetCodes = Arrays.copyOf(planetCodes, capacity);
+        }
+    }
+}
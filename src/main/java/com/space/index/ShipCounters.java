@@ -0,0 +1,276 @@
+package com.space.index;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.service.ShipChangeListener;
+import com.space.service.ShipFilter;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Ship counts per (shipType, isUsed, production day), answering /count for filters on those dimensions only.
+// Each (shipType, isUsed) pair has a Fenwick tree over days, so any date range costs O(log days).
+@Component
+@DependsOn("flyway")
+public class ShipCounters implements ShipChangeListener, InitializingBean {
+
+    private static final long FIRST_DAY = LocalDate.of(2800, 1, 1).toEpochDay();
+    private static final long LAST_DAY = LocalDate.of(3199, 12, 31).toEpochDay();
+    private static final int DAYS = (int) (LAST_DAY - FIRST_DAY + 1);
+    private static final int TYPES = ShipType.values().length + 1;
+    private static final int USED = 3;
+    private static final int LOOKUP_BATCH = 500;
+
+    @Value("${count.counters.enabled:true}")
+    private boolean enabled;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Rebuilds run one at a time
+    private final Object rebuilding = new Object();
+    private Counts counts = new Counts(false);
+    // Ships changed while a rebuild reads, with their latest state or null once deleted, null while no rebuild
+    // reads. A count can not tell whether the read saw a change, so the rebuild looks up what it counted for
+    // these ids and swaps that for their latest state
+    private Map<Long, Ship> changed;
+
+    public ShipCounters() {
+    }
+
+    public ShipCounters(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (enabled) {
+            rebuild(new JdbcTemplate(dataSource), new TransactionTemplate(transactionManager));
+        }
+    }
+
+    // The lookups have to see the snapshot the counting query saw, hence one repeatable read transaction
+    public void rebuild(JdbcTemplate jdbcTemplate, TransactionTemplate transaction) {
+        synchronized (rebuilding) {
+            lock.writeLock().lock();
+            try {
+                changed = new HashMap<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            transaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+            transaction.setReadOnly(true);
+            try {
+                transaction.execute(status -> {
+                    Counts rebuilt = read(jdbcTemplate);
+                    Map<Long, Ship> seen = new HashMap<>();
+                    while (true) {
+                        List<Long> unseen = new ArrayList<>();
+                        lock.writeLock().lock();
+                        try {
+                            changed.keySet().stream().filter(id -> !seen.containsKey(id)).forEach(unseen::add);
+                            if (unseen.isEmpty()) {
+                                changed.forEach((id, ship) -> {
+                                    rebuilt.add(seen.get(id), -1);
+                                    rebuilt.add(ship, 1);
+                                });
+                                counts = rebuilt;
+                                return null;
+                            }
+                        } finally {
+                            lock.writeLock().unlock();
+                        }
+                        lookUp(jdbcTemplate, unseen, seen);
+                    }
+                });
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    changed = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    private static Counts read(JdbcTemplate jdbcTemplate) {
+        Counts rebuilt = new Counts(true);
+        jdbcTemplate.query("SELECT shipType, isUsed, prodDate, COUNT(*) FROM ship GROUP BY shipType, isUsed, prodDate", rs -> {
+            String type = rs.getString(1);
+            boolean used = rs.getBoolean(2);
+            Integer usedSlot = rs.wasNull() ? null : used ? 1 : 0;
+            Date prodDate = rs.getDate(3);
+            int day = prodDate == null ? -1 : day(prodDate.toLocalDate().toEpochDay());
+            rebuilt.add(slot(type == null ? null : ShipType.valueOf(type), usedSlot), day, rs.getInt(4));
+        });
+        return rebuilt;
+    }
+
+    // Rows the counting query saw for these ids, null for the ids it did not see
+    private static void lookUp(JdbcTemplate jdbcTemplate, List<Long> ids, Map<Long, Ship> seen) {
+        for (int from = 0; from < ids.size(); from += LOOKUP_BATCH) {
+            List<Long> batch = ids.subList(from, Math.min(ids.size(), from + LOOKUP_BATCH));
+            batch.forEach(id -> seen.put(id, null));
+            String in = String.join(",", Collections.nCopies(batch.size(), "?"));
+            jdbcTemplate.query("SELECT id, shipType, isUsed, prodDate FROM ship WHERE id IN (" + in + ")", rs -> {
+                Ship ship = new Ship();
+                String type = rs.getString(2);
+                ship.setShipType(type == null ? null : ShipType.valueOf(type));
+                boolean used = rs.getBoolean(3);
+                ship.setUsed(rs.wasNull() ? null : used);
+                ship.setProdDate(rs.getDate(4));
+                seen.put(rs.getLong(1), ship);
+            }, batch.toArray());
+        }
+    }
+
+    // Null when the filter uses other dimensions, the caller then has to count in the database
+    public Long count(ShipFilter filter) {
+        if (!enabled || filter.getName() != null || filter.getPlanet() != null
+                || filter.getMinSpeed() != null || filter.getMaxSpeed() != null
+                || filter.getMinCrewSize() != null || filter.getMaxCrewSize() != null
+                || filter.getMinRating() != null || filter.getMaxRating() != null) {
+            return null;
+        }
+        int from = filter.getAfter() == null ? 0 : (int) Math.max(0, Math.min(DAYS, ProdDays.firstDayFrom(filter.getAfter()) - FIRST_DAY));
+        int to = filter.getBefore() == null ? DAYS - 1 : (int) Math.min(DAYS - 1, Math.max(-1, ProdDays.epochDay(filter.getBefore()) - FIRST_DAY));
+        lock.readLock().lock();
+        try {
+            if (!counts.usable()) {
+                return null;
+            }
+            long count = 0;
+            if (from > to) {
+                return count;
+            }
+            for (int type = 0; type < TYPES; type++) {
+                if (filter.getShipType() != null && type != filter.getShipType().ordinal()) {
+                    continue;
+                }
+                for (int used = 0; used < USED; used++) {
+                    if (filter.getUsed() != null && used != (filter.getUsed() ? 1 : 0)) {
+                        continue;
+                    }
+                    int[] tree = counts.trees[type * USED + used];
+                    if (tree != null) {
+                        count += prefix(tree, to) - prefix(tree, from - 1);
+                    }
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void shipCreated(Ship ship) {
+        change(ship.getId(), null, ship);
+    }
+
+    @Override
+    public void shipUpdated(Ship previous, Ship current) {
+        change(current.getId(), previous, current);
+    }
+
+    @Override
+    public void shipDeleted(Ship ship) {
+        change(ship.getId(), ship, null);
+    }
+
+    @Override
+    public void shipsReloaded() {
+        afterPropertiesSet();
+    }
+
+    private void change(long id, Ship previous, Ship current) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            counts.add(previous, -1);
+            counts.add(current, 1);
+            if (changed != null) {
+                changed.put(id, current);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static int slot(ShipType type, Integer used) {
+        return (type == null ? TYPES - 1 : type.ordinal()) * USED + (used == null ? USED - 1 : used);
+    }
+
+    private static class Counts {
+        private final int[][] trees = new int[TYPES * USED][];
+        // False until the table was read
+        private final boolean built;
+        // Rows outside the day range or without a production date, they can not be counted here
+        private long uncounted;
+
+        Counts(boolean built) {
+            this.built = built;
+        }
+
+        boolean usable() {
+            return built && uncounted == 0;
+        }
+
+        void add(Ship ship, int delta) {
+            if (ship != null) {
+                int day = ship.getProdDate() == null ? -1 : day(ProdDays.epochDay(ship.getProdDate().getTime()));
+                add(slot(ship.getShipType(), ship.getUsed() == null ? null : ship.getUsed() ? 1 : 0), day, delta);
+            }
+        }
+
+        void add(int slot, int day, int delta) {
+            if (day < 0) {
+                uncounted += delta;
+                return;
+            }
+            if (trees[slot] == null) {
+                trees[slot] = new int[DAYS + 1];
+            }
+            int[] tree = trees[slot];
+            for (int i = day + 1; i <= DAYS; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+    }
+
+    private static long prefix(int[] tree, int day) {
+        long sum = 0;
+        for (int i = day + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private static int day(long epochDay) {
+        return epochDay < FIRST_DAY || epochDay > LAST_DAY ? -1 : (int) (epochDay - FIRST_DAY);
+    }
+}
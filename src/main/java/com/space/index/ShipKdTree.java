@@ -0,0 +1,784 @@
+package com.space.index;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.service.ShipChangeListener;
+import com.space.service.ShipFilter;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// A k-d tree over (speed, crewSize, rating, production day) for filters that bound several of them at once.
+// Every node knows the bounding box and number of its ships: subtrees outside the query box are skipped,
+// subtrees inside it are counted whole, and only leaves cut by the box are visited ship by ship.
+// Writes go to the leaf the point belongs to. A subtree whose halves drift apart in size, and the whole tree
+// after as many changes as it holds ships, is rebuilt around medians, which also shrinks the boxes again
+@Component
+@DependsOn("flyway")
+public class ShipKdTree implements ShipChangeListener, InitializingBean {
+
+    private static final int DIMENSIONS = 4;
+    private static final int SPEED = 0;
+    private static final int CREW = 1;
+    private static final int RATING = 2;
+    private static final int DAY = 3;
+    private static final int LEAF_SIZE = 32;
+    // Largest share of a subtree that one half may hold before the subtree is rebuilt
+    private static final double BALANCE = 0.75;
+    private static final int SAMPLE = 255;
+    private static final byte NULL_CODE = -1;
+    private static final byte ANY = -3;
+    // Where a ship of unknown coordinates is looked for, which is everywhere
+    private static final double[] UNKNOWN = {Double.NaN, Double.NaN, Double.NaN, Double.NaN};
+
+    @Value("${kdtree.enabled:true}")
+    private boolean enabled;
+
+    @Value("${kdtree.maxCandidates:1000}")
+    private int maxCandidates;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root = Node.leaf(new Points(LEAF_SIZE));
+    // Ships without one of the coordinates, outside the tree and visited by every query
+    private Points incomplete = new Points(16);
+    private long changes;
+    private long rebuilds;
+    // Rebuilds run one at a time
+    private final Object rebuilding = new Object();
+    // Ships changed while a rebuild reads or builds, with their latest state or null once deleted, null while no
+    // rebuild runs. The rebuild can not tell which state the read saw, so these go in with their latest one
+    private Map<Long, Ship> changed;
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder visits = new LongAdder();
+
+    public ShipKdTree() {
+    }
+
+    public ShipKdTree(boolean enabled, int maxCandidates) {
+        this.enabled = enabled;
+        this.maxCandidates = maxCandidates;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (enabled) {
+            rebuild(new JdbcTemplate(dataSource));
+        }
+    }
+
+    public void rebuild(JdbcTemplate jdbcTemplate) {
+        synchronized (rebuilding) {
+            lock.writeLock().lock();
+            try {
+                changed = new HashMap<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            Points all = new Points(1024);
+            Points withNulls = new Points(16);
+            try {
+                jdbcTemplate.setFetchSize(1000);
+                jdbcTemplate.query("SELECT id, shipType, prodDate, isUsed, speed, crewSize, rating FROM ship", rs -> {
+                    String type = rs.getString(2);
+                    java.sql.Date prodDate = rs.getDate(3);
+                    boolean used = rs.getBoolean(4);
+                    byte usedCode = rs.wasNull() ? NULL_CODE : (byte) (used ? 1 : 0);
+                    double[] point = new double[DIMENSIONS];
+                    point[SPEED] = rs.getDouble(5);
+                    if (rs.wasNull()) {
+                        point[SPEED] = Double.NaN;
+                    }
+                    point[CREW] = rs.getInt(6);
+                    if (rs.wasNull()) {
+                        point[CREW] = Double.NaN;
+                    }
+                    point[RATING] = rs.getDouble(7);
+                    if (rs.wasNull()) {
+                        point[RATING] = Double.NaN;
+                    }
+                    point[DAY] = prodDate == null ? Double.NaN : prodDate.toLocalDate().toEpochDay();
+                    byte typeCode = type == null ? NULL_CODE : (byte) ShipType.valueOf(type).ordinal();
+                    (complete(point) ? all : withNulls).add(rs.getLong(1), point, typeCode, usedCode);
+                });
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    changed = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+            // Changed during the read, replaced in the points before the build
+            Map<Long, Ship> read;
+            lock.writeLock().lock();
+            try {
+                read = changed;
+                changed = new HashMap<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            all.removeAll(read.keySet());
+            withNulls.removeAll(read.keySet());
+            for (Ship ship : read.values()) {
+                if (ship != null) {
+                    double[] point = point(ship);
+                    (complete(point) ? all : withNulls).add(ship.getId(), point, type(ship), used(ship));
+                }
+            }
+            Node built = build(all, null);
+            lock.writeLock().lock();
+            try {
+                root = built;
+                incomplete = withNulls;
+                changes = 0;
+                rebuilds++;
+                // Changed during the build, the tree holds them in whatever state the read saw, or not at all
+                changed.forEach((id, ship) -> {
+                    remove(id, ship == null ? UNKNOWN : point(ship));
+                    if (ship != null) {
+                        put(ship);
+                    }
+                });
+                changed = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Null unless the filter bounds one of the tree dimensions and has no substring term
+    public Long count(ShipFilter filter) {
+        if (!enabled || filter.getName() != null || filter.getPlanet() != null) {
+            return null;
+        }
+        Query query = query(filter);
+        if (query == null) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            long count = count(root, query);
+            for (int i = 0; i < incomplete.size; i++) {
+                query.visited++;
+                if (query.matches(incomplete, i)) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+            record(query);
+        }
+    }
+
+    // Sorted ids of the ships within the filter's ranges, type and usage, whatever their name and planet.
+    // Null when the filter bounds none of the tree dimensions or more than maxCandidates ships match
+    public long[] candidates(ShipFilter filter) {
+        if (!enabled) {
+            return null;
+        }
+        Query query = query(filter);
+        if (query == null) {
+            return null;
+        }
+        query.ids = new long[Math.min(maxCandidates, 64)];
+        lock.readLock().lock();
+        try {
+            if (!collect(root, query) || !collect(incomplete, query)) {
+                return null;
+            }
+        } finally {
+            lock.readLock().unlock();
+            record(query);
+        }
+        long[] ids = Arrays.copyOf(query.ids, query.found);
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return root.size + incomplete.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public KdTreeStatistics statistics() {
+        lock.readLock().lock();
+        try {
+            int[] shape = new int[3];
+            shape(root, 1, shape);
+            return new KdTreeStatistics(root.size + incomplete.size, shape[0], shape[1], shape[2],
+                    rebuilds, queries.sum(), visits.sum());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void shipCreated(Ship ship) {
+        change(null, ship);
+    }
+
+    @Override
+    public void shipUpdated(Ship previous, Ship current) {
+        change(previous, current);
+    }
+
+    @Override
+    public void shipDeleted(Ship ship) {
+        change(ship, null);
+    }
+
+    @Override
+    public void shipsReloaded() {
+        afterPropertiesSet();
+    }
+
+    private void change(Ship previous, Ship current) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (previous != null) {
+                remove(previous.getId(), point(previous));
+            }
+            if (current != null) {
+                put(current);
+            }
+            if (changed != null) {
+                changed.put(current != null ? current.getId() : previous.getId(), current);
+            }
+            if (++changes > Math.max(root.size, 4 * LEAF_SIZE)) {
+                root = build(points(root), null);
+                changes = 0;
+                rebuilds++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(Ship ship) {
+        double[] point = point(ship);
+        if (complete(point)) {
+            insert(ship.getId(), point, type(ship), used(ship));
+        } else {
+            incomplete.add(ship.getId(), point, type(ship), used(ship));
+        }
+    }
+
+    private void insert(long id, double[] point, byte type, byte used) {
+        Node node = root;
+        while (node.points == null) {
+            node.size++;
+            node.extend(point);
+            node = point[node.dimension] < node.split ? node.left : node.right;
+        }
+        node.size++;
+        node.extend(point);
+        node.points.add(id, point, type, used);
+        if (node.points.size > 2 * LEAF_SIZE) {
+            node.replaceWith(build(node.points, root));
+        }
+        rebalance(point);
+    }
+
+    // The previous ship can lag behind the tree, e.g. a rating the job wrote before its event arrived here.
+    // A ship that is not where those coordinates lead is then looked up by id, so it is never left behind
+    private void remove(long id, double[] point) {
+        boolean removed = complete(point) ? removeOnPath(id, point) : incomplete.remove(id);
+        if (!removed && !incomplete.remove(id) && !removeMoved(root, id, point)) {
+            removeById(root, id);
+        }
+    }
+
+    private boolean removeOnPath(long id, double[] point) {
+        Node node = root;
+        while (node.points == null) {
+            node = point[node.dimension] < node.split ? node.left : node.right;
+        }
+        if (!node.points.remove(id)) {
+            return false;
+        }
+        node = root;
+        while (node.points == null) {
+            node.size--;
+            node = point[node.dimension] < node.split ? node.left : node.right;
+        }
+        node.size--;
+        rebalance(point);
+        return true;
+    }
+
+    private static boolean removeById(Node node, long id) {
+        if (node.size == 0) {
+            return false;
+        }
+        boolean removed = node.points != null
+                ? node.points.remove(id)
+                : removeById(node.left, id) || removeById(node.right, id);
+        if (removed) {
+            node.size--;
+        }
+        return removed;
+    }
+
+    // Follows the other coordinates, and both halves where the split is on the unknown previous rating
+    private boolean removeMoved(Node node, long id, double[] point) {
+        if (node.size == 0) {
+            return false;
+        }
+        for (int d = 0; d < DIMENSIONS; d++) {
+            if (d != RATING && (point[d] < node.min[d] || point[d] > node.max[d])) {
+                return false;
+            }
+        }
+        boolean removed;
+        if (node.points != null) {
+            removed = node.points.remove(id);
+        } else if (node.dimension != RATING) {
+            removed = removeMoved(point[node.dimension] < node.split ? node.left : node.right, id, point);
+        } else {
+            removed = removeMoved(node.left, id, point) || removeMoved(node.right, id, point);
+        }
+        if (removed) {
+            node.size--;
+        }
+        return removed;
+    }
+
+    // Rebuilds the topmost subtree on the point's path that is out of balance
+    private void rebalance(double[] point) {
+        Node node = root;
+        while (node.points == null) {
+            if (node.size > 4 * LEAF_SIZE && Math.max(node.left.size, node.right.size) > BALANCE * node.size) {
+                node.replaceWith(build(points(node), root));
+                rebuilds++;
+                return;
+            }
+            node = point[node.dimension] < node.split ? node.left : node.right;
+        }
+    }
+
+    private long count(Node node, Query query) {
+        if (node.size == 0 || query.outside(node)) {
+            return 0;
+        }
+        if (query.type == ANY && query.used == ANY && query.inside(node)) {
+            return node.size;
+        }
+        if (node.points == null) {
+            return count(node.left, query) + count(node.right, query);
+        }
+        long count = 0;
+        Points points = node.points;
+        for (int i = 0; i < points.size; i++) {
+            if (query.matches(points, i)) {
+                count++;
+            }
+        }
+        query.visited += points.size;
+        return count;
+    }
+
+    // False once more than maxCandidates ships match
+    private boolean collect(Node node, Query query) {
+        if (node.size == 0 || query.outside(node)) {
+            return true;
+        }
+        if (node.points == null) {
+            return collect(node.left, query) && collect(node.right, query);
+        }
+        return collect(node.points, query);
+    }
+
+    private boolean collect(Points points, Query query) {
+        query.visited += points.size;
+        for (int i = 0; i < points.size; i++) {
+            if (query.matches(points, i)) {
+                if (query.found == maxCandidates) {
+                    return false;
+                }
+                if (query.found == query.ids.length) {
+                    query.ids = Arrays.copyOf(query.ids, Math.min(maxCandidates, 2 * query.found));
+                }
+                query.ids[query.found++] = points.ids[i];
+            }
+        }
+        return true;
+    }
+
+    private void record(Query query) {
+        queries.increment();
+        visits.add(query.visited);
+    }
+
+    private static void shape(Node node, int depth, int[] shape) {
+        shape[0]++;
+        shape[2] = Math.max(shape[2], depth);
+        if (node.points != null) {
+            shape[1]++;
+        } else {
+            shape(node.left, depth + 1, shape);
+            shape(node.right, depth + 1, shape);
+        }
+    }
+
+    private static Query query(ShipFilter filter) {
+        Query query = new Query(filter.getShipType() == null ? ANY : (byte) filter.getShipType().ordinal(),
+                filter.getUsed() == null ? ANY : (byte) (filter.getUsed() ? 1 : 0));
+        boolean bounded = query.bound(SPEED, filter.getMinSpeed(), filter.getMaxSpeed());
+        bounded |= query.bound(CREW, filter.getMinCrewSize(), filter.getMaxCrewSize());
+        bounded |= query.bound(RATING, filter.getMinRating(), filter.getMaxRating());
+        bounded |= query.bound(DAY, filter.getAfter() == null ? null : ProdDays.firstDayFrom(filter.getAfter()),
+                filter.getBefore() == null ? null : ProdDays.epochDay(filter.getBefore()));
+        return bounded ? query : null;
+    }
+
+    private static double[] point(Ship ship) {
+        double[] point = new double[DIMENSIONS];
+        point[SPEED] = ship.getSpeed() == null ? Double.NaN : ship.getSpeed();
+        point[CREW] = ship.getCrewSize() == null ? Double.NaN : ship.getCrewSize();
+        point[RATING] = ship.getRating() == null ? Double.NaN : ship.getRating();
+        point[DAY] = ship.getProdDate() == null ? Double.NaN : ProdDays.epochDay(ship.getProdDate().getTime());
+        return point;
+    }
+
+    private static byte type(Ship ship) {
+        return ship.getShipType() == null ? NULL_CODE : (byte) ship.getShipType().ordinal();
+    }
+
+    private static byte used(Ship ship) {
+        return ship.getUsed() == null ? NULL_CODE : (byte) (ship.getUsed() ? 1 : 0);
+    }
+
+    private static boolean complete(double[] point) {
+        for (double value : point) {
+            if (Double.isNaN(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Points points(Node node) {
+        Points points = new Points(Math.max(16, node.size));
+        gather(node, points);
+        return points;
+    }
+
+    private static void gather(Node node, Points into) {
+        if (node.points != null) {
+            for (int i = 0; i < node.points.size; i++) {
+                into.add(node.points, i);
+            }
+        } else {
+            gather(node.left, into);
+            gather(node.right, into);
+        }
+    }
+
+    // Spreads are compared relative to those of the whole tree, or of the points when they are the whole tree
+    private static Node build(Points points, Node tree) {
+        int[] order = new int[points.size];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        if (tree == null) {
+            tree = new Node();
+            for (int i = 0; i < points.size; i++) {
+                tree.extend(points, i);
+            }
+        }
+        double[] scale = new double[DIMENSIONS];
+        for (int d = 0; d < DIMENSIONS; d++) {
+            double spread = tree.max[d] - tree.min[d];
+            scale[d] = spread > 0 ? 1 / spread : 1;
+        }
+        return build(points, order, 0, order.length, scale);
+    }
+
+    // Splits the relatively widest dimension of the box at the median of a sample, which keeps the build O(n log n)
+    private static Node build(Points points, int[] order, int from, int to, double[] scale) {
+        Node node = new Node();
+        for (int i = from; i < to; i++) {
+            node.extend(points, order[i]);
+        }
+        node.size = to - from;
+        if (to - from > LEAF_SIZE) {
+            int dimension = 0;
+            for (int d = 1; d < DIMENSIONS; d++) {
+                if ((node.max[d] - node.min[d]) * scale[d] > (node.max[dimension] - node.min[dimension]) * scale[dimension]) {
+                    dimension = d;
+                }
+            }
+            if (node.max[dimension] > node.min[dimension]) {
+                double split = median(points.coordinates[dimension], order, from, to);
+                if (split == node.min[dimension]) {
+                    // Every value below the median equals the minimum, split just above it instead
+                    split = Double.POSITIVE_INFINITY;
+                    for (int i = from; i < to; i++) {
+                        double value = points.coordinates[dimension][order[i]];
+                        if (value > node.min[dimension] && value < split) {
+                            split = value;
+                        }
+                    }
+                }
+                int middle = partition(points.coordinates[dimension], order, from, to, split);
+                node.dimension = dimension;
+                node.split = split;
+                node.left = build(points, order, from, middle, scale);
+                node.right = build(points, order, middle, to, scale);
+                return node;
+            }
+        }
+        node.points = new Points(Math.max(LEAF_SIZE, to - from));
+        for (int i = from; i < to; i++) {
+            node.points.add(points, order[i]);
+        }
+        return node;
+    }
+
+    private static double median(double[] values, int[] order, int from, int to) {
+        int count = Math.min(SAMPLE, to - from);
+        double[] sample = new double[count];
+        long step = (to - from) / count;
+        for (int i = 0; i < count; i++) {
+            sample[i] = values[order[from + (int) (i * step)]];
+        }
+        Arrays.sort(sample);
+        return sample[count / 2];
+    }
+
+    // Moves the entries below split to the front and returns where the others start
+    private static int partition(double[] values, int[] order, int from, int to, double split) {
+        int middle = from;
+        for (int i = from; i < to; i++) {
+            if (values[order[i]] < split) {
+                int entry = order[i];
+                order[i] = order[middle];
+                order[middle++] = entry;
+            }
+        }
+        return middle;
+    }
+
+    // Points below split in its dimension are on the left. Leaves hold their points, inner nodes do not
+    private static class Node {
+
+        private final double[] min = new double[DIMENSIONS];
+        private final double[] max = new double[DIMENSIONS];
+        private int size;
+        private int dimension;
+        private double split;
+        private Node left;
+        private Node right;
+        private Points points;
+
+        Node() {
+            Arrays.fill(min, Double.POSITIVE_INFINITY);
+            Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        }
+
+        static Node leaf(Points points) {
+            Node node = new Node();
+            node.points = points;
+            return node;
+        }
+
+        void extend(double[] point) {
+            for (int d = 0; d < DIMENSIONS; d++) {
+                min[d] = Math.min(min[d], point[d]);
+                max[d] = Math.max(max[d], point[d]);
+            }
+        }
+
+        void extend(Points points, int i) {
+            for (int d = 0; d < DIMENSIONS; d++) {
+                min[d] = Math.min(min[d], points.coordinates[d][i]);
+                max[d] = Math.max(max[d], points.coordinates[d][i]);
+            }
+        }
+
+        // In place, so that the parent keeps pointing at it
+        void replaceWith(Node other) {
+            System.arraycopy(other.min, 0, min, 0, DIMENSIONS);
+            System.arraycopy(other.max, 0, max, 0, DIMENSIONS);
+            size = other.size;
+            dimension = other.dimension;
+            split = other.split;
+            left = other.left;
+            right = other.right;
+            points = other.points;
+        }
+    }
+
+    // Ships as parallel arrays, one per coordinate
+    private static class Points {
+
+        private long[] ids;
+        private final double[][] coordinates = new double[DIMENSIONS][];
+        private byte[] types;
+        private byte[] used;
+        private int size;
+
+        Points(int capacity) {
+            ids = new long[capacity];
+            for (int d = 0; d < DIMENSIONS; d++) {
+                coordinates[d] = new double[capacity];
+            }
+            types = new byte[capacity];
+            used = new byte[capacity];
+        }
+
+        void add(long id, double[] point, byte type, byte usedCode) {
+            grow();
+            ids[size] = id;
+            for (int d = 0; d < DIMENSIONS; d++) {
+                coordinates[d][size] = point[d];
+            }
+            types[size] = type;
+            used[size] = usedCode;
+            size++;
+        }
+
+        void add(Points from, int i) {
+            grow();
+            ids[size] = from.ids[i];
+            for (int d = 0; d < DIMENSIONS; d++) {
+                coordinates[d][size] = from.coordinates[d][i];
+            }
+            types[size] = from.types[i];
+            used[size] = from.used[i];
+            size++;
+        }
+
+        // The others keep their order
+        void removeAll(Set<Long> removed) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (!removed.contains(ids[i])) {
+                    move(i, kept++);
+                }
+            }
+            size = kept;
+        }
+
+        // The last point takes the place of the removed one
+        boolean remove(long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    move(--size, i);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void move(int from, int to) {
+            ids[to] = ids[from];
+            for (int d = 0; d < DIMENSIONS; d++) {
+                coordinates[d][to] = coordinates[d][from];
+            }
+            types[to] = types[from];
+            used[to] = used[from];
+        }
+
+        private void grow() {
+            if (size == ids.length) {
+                int capacity = Math.max(16, size * 2);
+                ids = Arrays.copyOf(ids, capacity);
+                for (int d = 0; d < DIMENSIONS; d++) {
+                    coordinates[d] = Arrays.copyOf(coordinates[d], capacity);
+                }
+                types = Arrays.copyOf(types, capacity);
+                used = Arrays.copyOf(used, capacity);
+            }
+        }
+    }
+
+    // The query box. Unbounded dimensions accept anything, bounded ones reject NaN as the database rejects null
+    private static class Query {
+
+        private final double[] min = new double[DIMENSIONS];
+        private final double[] max = new double[DIMENSIONS];
+        private final boolean[] bounded = new boolean[DIMENSIONS];
+        private final byte type;
+        private final byte used;
+        private long visited;
+        private long[] ids;
+        private int found;
+
+        Query(byte type, byte used) {
+            this.type = type;
+            this.used = used;
+            Arrays.fill(min, Double.NEGATIVE_INFINITY);
+            Arrays.fill(max, Double.POSITIVE_INFINITY);
+        }
+
+        boolean bound(int dimension, Number low, Number high) {
+            if (low == null && high == null) {
+                return false;
+            }
+            bounded[dimension] = true;
+            if (low != null) {
+                min[dimension] = low.doubleValue();
+            }
+            if (high != null) {
+                max[dimension] = high.doubleValue();
+            }
+            return true;
+        }
+
+        boolean outside(Node node) {
+            for (int d = 0; d < DIMENSIONS; d++) {
+                if (bounded[d] && (node.max[d] < min[d] || node.min[d] > max[d])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean inside(Node node) {
+            for (int d = 0; d < DIMENSIONS; d++) {
+                if (bounded[d] && (node.min[d] < min[d] || node.max[d] > max[d])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean matches(Points points, int i) {
+            if ((type != ANY && points.types[i] != type) || (used != ANY && points.used[i] != used)) {
+                return false;
+            }
+            for (int d = 0; d < DIMENSIONS; d++) {
+                double value = points.coordinates[d][i];
+                if (bounded[d] && !(value >= min[d] && value <= max[d])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
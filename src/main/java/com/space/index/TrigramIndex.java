@@ -0,0 +1,317 @@
+package com.space.index;
+
+import com.space.model.Ship;
+import com.space.service.ShipChangeListener;
+import com.space.service.ShipFilter;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+@Component
+@DependsOn("flyway")
+public class TrigramIndex implements ShipChangeListener, InitializingBean {
+
+    private static final int GRAM = 3;
+    // Intersections are only attempted when the rarest trigram is at most this many times over the limit
+    private static final int INTERSECTION_FACTOR = 100;
+    // Key of the ids whose value ShipFilter.fold can not fold, trigrams are never negative
+    private static final long UNFOLDED = -1;
+    private static final PostingList EMPTY = new PostingList();
+
+    @Value("${search.trigram.enabled:true}")
+    private boolean enabled;
+
+    @Value("${search.trigram.maxCandidates:1000}")
+    private int maxCandidates;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Rebuilds run one at a time, each with the log of changes made while it reads
+    private final Object rebuilding = new Object();
+    private final RebuildLog<Postings> changes = new RebuildLog<>();
+    private Postings postings = new Postings();
+
+    public TrigramIndex() {
+    }
+
+    public TrigramIndex(int maxCandidates) {
+        this.enabled = true;
+        this.maxCandidates = maxCandidates;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (enabled) {
+            rebuild(new JdbcTemplate(dataSource));
+        }
+    }
+
+    public void rebuild(JdbcTemplate jdbcTemplate) {
+        synchronized (rebuilding) {
+            lock.writeLock().lock();
+            try {
+                changes.start();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            Postings rebuilt = new Postings();
+            try {
+                jdbcTemplate.setFetchSize(1000);
+                jdbcTemplate.query("SELECT id, name, planet FROM ship ORDER BY id", rs -> {
+                    rebuilt.add(rs.getLong(1), rs.getString(2), rs.getString(3));
+                });
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    changes.discard();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+            lock.writeLock().lock();
+            try {
+                changes.replay(rebuilt);
+                postings = rebuilt;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Ids of ships whose name may contain the term, or null when the index can not narrow the search
+    public long[] nameCandidates(String term) {
+        return candidates(term, true);
+    }
+
+    public long[] planetCandidates(String term) {
+        return candidates(term, false);
+    }
+
+    public void add(long id, String name, String planet) {
+        change(index -> index.add(id, name, planet));
+    }
+
+    @Override
+    public void shipCreated(Ship ship) {
+        if (enabled) {
+            add(ship.getId(), ship.getName(), ship.getPlanet());
+        }
+    }
+
+    // Removing the previous trigrams first keeps the replay right when the rebuilt maps already hold the current ones
+    @Override
+    public void shipUpdated(Ship previous, Ship current) {
+        if (!enabled) {
+            return;
+        }
+        change(index -> {
+            if (!Objects.equals(previous.getName(), current.getName())) {
+                remove(index.names, previous.getId(), previous.getName());
+                add(index.names, current.getId(), current.getName());
+            }
+            if (!Objects.equals(previous.getPlanet(), current.getPlanet())) {
+                remove(index.planets, previous.getId(), previous.getPlanet());
+                add(index.planets, current.getId(), current.getPlanet());
+            }
+        });
+    }
+
+    @Override
+    public void shipDeleted(Ship ship) {
+        if (!enabled) {
+            return;
+        }
+        change(index -> {
+            remove(index.names, ship.getId(), ship.getName());
+            remove(index.planets, ship.getId(), ship.getPlanet());
+        });
+    }
+
+    // Applied to the live maps, and recorded for the maps a running rebuild will swap in
+    private void change(Consumer<Postings> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(postings);
+            changes.record(change);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void shipsReloaded() {
+        afterPropertiesSet();
+    }
+
+    private long[] candidates(String term, boolean name) {
+        // LIKE wildcards inside the term can not be expressed with trigrams
+        if (!enabled || term == null || term.indexOf('%') >= 0 || term.indexOf('_') >= 0 || term.indexOf('\\') >= 0) {
+            return null;
+        }
+        String folded = ShipFilter.fold(term);
+        if (folded == null) {
+            return null;
+        }
+        long[] grams = trigrams(folded);
+        if (grams.length == 0) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            Map<Long, PostingList> index = name ? postings.names : postings.planets;
+            PostingList unfolded = index.getOrDefault(UNFOLDED, EMPTY);
+            PostingList[] lists = new PostingList[grams.length];
+            for (int i = 0; i < grams.length; i++) {
+                lists[i] = index.getOrDefault(grams[i], EMPTY);
+            }
+            Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+            if (lists[0].size > (long) maxCandidates * INTERSECTION_FACTOR || unfolded.size > maxCandidates) {
+                return null;
+            }
+            long[] result = Arrays.copyOf(lists[0].ids, lists[0].size);
+            int size = result.length;
+            for (int i = 1; i < lists.length && size > 0; i++) {
+                int kept = 0;
+                for (int j = 0; j < size; j++) {
+                    if (lists[i].contains(result[j])) {
+                        result[kept++] = result[j];
+                    }
+                }
+                size = kept;
+            }
+            // Values without a fold may match any term in the database
+            result = union(result, size, unfolded);
+            return result.length > maxCandidates ? null : result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long[] union(long[] sorted, int size, PostingList list) {
+        long[] result = new long[size + list.size];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < size || j < list.size) {
+            if (j == list.size || (i < size && sorted[i] < list.ids[j])) {
+                result[n++] = sorted[i++];
+            } else if (i == size || list.ids[j] < sorted[i]) {
+                result[n++] = list.ids[j++];
+            } else {
+                result[n++] = sorted[i++];
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    private static void add(Map<Long, PostingList> index, long id, String value) {
+        for (long gram : grams(value)) {
+            index.computeIfAbsent(gram, key -> new PostingList()).add(id);
+        }
+    }
+
+    private static void remove(Map<Long, PostingList> index, long id, String value) {
+        for (long gram : grams(value)) {
+            PostingList list = index.get(gram);
+            if (list != null && list.remove(id) && list.size == 0) {
+                index.remove(gram);
+            }
+        }
+    }
+
+    // A value without a fold is kept under UNFOLDED instead of its trigrams
+    private static long[] grams(String value) {
+        if (value == null) {
+            return new long[0];
+        }
+        String folded = ShipFilter.fold(value);
+        return folded == null ? new long[]{UNFOLDED} : trigrams(folded);
+    }
+
+    // Distinct trigrams of a value folded by ShipFilter.fold, so that they narrow the collation's LIKE
+    static long[] trigrams(String folded) {
+        if (folded.length() < GRAM) {
+            return new long[0];
+        }
+        long[] grams = new long[folded.length() - GRAM + 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) folded.charAt(i) << 32) | ((long) folded.charAt(i + 1) << 16) | folded.charAt(i + 2);
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    private static final class Postings {
+        private final Map<Long, PostingList> names = new HashMap<>();
+        private final Map<Long, PostingList> planets = new HashMap<>();
+
+        void add(long id, String name, String planet) {
+            TrigramIndex.add(names, id, name);
+            TrigramIndex.add(planets, id, planet);
+        }
+    }
+
+    // Sorted ids, appends are cheap because new ships get increasing ids
+    private static class PostingList {
+        private long[] ids = new long[4];
+        private int size;
+
+        void add(long id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                int position = Arrays.binarySearch(ids, 0, size, id);
+                if (position >= 0) {
+                    return;
+                }
+                insert(-position - 1, id);
+                return;
+            }
+            insert(size, id);
+        }
+
+        boolean remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        private void insert(int position, long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.space.io;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+// RFC 4180 with a header row naming the columns in any order, as written by CsvShipWriter.
+// id and rating columns are ignored, prodDate is yyyy-MM-dd or milliseconds since the epoch
+public class CsvShipReader implements ShipReader {
+
+    private static final List<String> REQUIRED = Arrays.asList("name", "planet", "shipType", "prodDate", "speed", "crewSize");
+
+    private final BufferedReader reader;
+    private final int maxRecordLength;
+    private final int name;
+    private final int planet;
+    private final int shipType;
+    private final int prodDate;
+    private final int isUsed;
+    private final int speed;
+    private final int crewSize;
+    private final int minFields;
+    private long lineNumber;
+    private long nextLineNumber = 1;
+
+    public CsvShipReader(InputStream in, int maxRecordLength) throws IOException {
+        reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.maxRecordLength = maxRecordLength;
+        String header = nextRecord();
+        List<String> columns = header == null ? new ArrayList<>() : split(header.startsWith("\uFEFF") ? header.substring(1) : header);
+        for (String column : REQUIRED) {
+            if (!columns.contains(column)) {
+                throw new IllegalArgumentException("CSV header has no " + column + " column");
+            }
+        }
+        name = columns.indexOf("name");
+        planet = columns.indexOf("planet");
+        shipType = columns.indexOf("shipType");
+        prodDate = columns.indexOf("prodDate");
+        isUsed = columns.indexOf("isUsed");
+        speed = columns.indexOf("speed");
+        crewSize = columns.indexOf("crewSize");
+        minFields = REQUIRED.stream().mapToInt(columns::indexOf).max().getAsInt() + 1;
+    }
+
+    // A quoted field may contain line breaks, so a record continues until its quotes are balanced. A stray quote
+    // would otherwise pull the rest of the input into one record, so it ends as a malformed record at the limit
+    @Override
+    public String nextRecord() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            lineNumber = nextLineNumber++;
+        } while (line != null && line.isEmpty());
+        if (line == null) {
+            return null;
+        }
+        StringBuilder record = new StringBuilder(line);
+        boolean open = quotes(line) % 2 != 0;
+        while (record.length() <= maxRecordLength && open) {
+            String continuation = reader.readLine();
+            if (continuation == null) {
+                break;
+            }
+            nextLineNumber++;
+            record.append('\n').append(continuation);
+            open ^= quotes(continuation) % 2 != 0;
+        }
+        if (record.length() > maxRecordLength) {
+            throw new IllegalArgumentException("Record is longer than " + maxRecordLength + " characters");
+        }
+        return record.toString();
+    }
+
+    @Override
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public Ship parse(String record) {
+        List<String> fields = split(record);
+        if (fields.size() < minFields) {
+            throw new IllegalArgumentException("Expected at least " + minFields + " fields, found " + fields.size());
+        }
+        Ship ship = new Ship();
+        ship.setName(fields.get(name).isEmpty() ? null : fields.get(name));
+        ship.setPlanet(fields.get(planet).isEmpty() ? null : fields.get(planet));
+        ship.setShipType(fields.get(shipType).isEmpty() ? null : ShipType.valueOf(fields.get(shipType)));
+        ship.setProdDate(date(fields.get(prodDate)));
+        ship.setUsed(isUsed < 0 || isUsed >= fields.size() || fields.get(isUsed).isEmpty() ? null : Boolean.valueOf(fields.get(isUsed)));
+        ship.setSpeed(fields.get(speed).isEmpty() ? null : Double.valueOf(fields.get(speed)));
+        ship.setCrewSize(fields.get(crewSize).isEmpty() ? null : Integer.valueOf(fields.get(crewSize)));
+        return ship;
+    }
+
+    private static Date date(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        if (value.matches("-?\\d+")) {
+            return new Date(Long.parseLong(value));
+        }
+        try {
+            return Date.from(LocalDate.parse(value).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Malformed prodDate " + value);
+        }
+    }
+
+    private static int quotes(CharSequence text) {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '"') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static List<String> split(String record) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,69 @@
+package com.space.io;
+
+import com.space.model.Ship;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+
+// RFC 4180 with a header row, prodDate as yyyy-MM-dd
+public class CsvShipWriter implements ShipWriter {
+
+    public static final String HEADER = "id,name,planet,shipType,prodDate,isUsed,speed,crewSize,rating";
+
+    private final Writer writer;
+
+    public CsvShipWriter(OutputStream out) throws IOException {
+        writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(HEADER);
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void write(Ship ship) throws IOException {
+        writer.write(value(ship.getId()));
+        writer.write(',');
+        writer.write(quote(ship.getName()));
+        writer.write(',');
+        writer.write(quote(ship.getPlanet()));
+        writer.write(',');
+        writer.write(value(ship.getShipType()));
+        writer.write(',');
+        writer.write(ship.getProdDate() == null ? ""
+                : Instant.ofEpochMilli(ship.getProdDate().getTime()).atZone(ZoneId.systemDefault()).toLocalDate().toString());
+        writer.write(',');
+        writer.write(value(ship.getUsed()));
+        writer.write(',');
+        writer.write(value(ship.getSpeed()));
+        writer.write(',');
+        writer.write(value(ship.getCrewSize()));
+        writer.write(',');
+        writer.write(value(ship.getResolvedRating()));
+        writer.write("\r\n");
+    }
+
+    private static String value(Object value) {
+        return value == null ? "" : value.toString();
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    // The response stream belongs to the container, it is flushed but not closed
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+}
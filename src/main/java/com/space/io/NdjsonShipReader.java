@@ -0,0 +1,71 @@
+package com.space.io;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.space.model.Ship;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+// One JSON object per line with the REST field names, blank lines are skipped
+public class NdjsonShipReader implements ShipReader {
+
+    private static final ObjectReader SHIP_READER = new ObjectMapper()
+            .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+            .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .readerFor(Ship.class);
+
+    private final BufferedReader reader;
+    private final int maxRecordLength;
+    private long lineNumber;
+
+    public NdjsonShipReader(InputStream in, int maxRecordLength) {
+        reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    @Override
+    public String nextRecord() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            lineNumber++;
+        } while (line != null && line.trim().isEmpty());
+        if (line != null && line.length() > maxRecordLength) {
+            throw new IllegalArgumentException("Record is longer than " + maxRecordLength + " characters");
+        }
+        return line;
+    }
+
+    @Override
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public Ship parse(String record) {
+        try {
+            Ship ship = SHIP_READER.readValue(record);
+            if (ship == null) {
+                throw new IllegalArgumentException("Expected a JSON object");
+            }
+            ship.setId(null);
+            return ship;
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,40 @@
+package com.space.io;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.space.model.Ship;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Same field names and values as the REST JSON, written by ShipSerializer without an ObjectMapper
+public class NdjsonShipWriter implements ShipWriter {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private final JsonGenerator generator;
+    private boolean written;
+
+    public NdjsonShipWriter(OutputStream out) throws IOException {
+        generator = FACTORY.createGenerator(out, JsonEncoding.UTF8);
+        generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    @Override
+    public void write(Ship ship) throws IOException {
+        ShipSerializer.write(ship, generator);
+        written = true;
+    }
+
+    // Terminates the last line, the response stream itself is left open
+    @Override
+    public void close() throws IOException {
+        if (written) {
+            generator.writeRaw('\n');
+        }
+        generator.close();
+    }
+}
@@ -0,0 +1,53 @@
+package com.space.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+// Line-oriented formats for bulk transfer, one ship per line
+public enum ShipFormat {
+    NDJSON("application/x-ndjson", "ndjson") {
+        @Override
+        public ShipWriter writer(OutputStream out) throws IOException {
+            return new NdjsonShipWriter(out);
+        }
+
+        @Override
+        public ShipReader reader(InputStream in, int maxRecordLength) {
+            return new NdjsonShipReader(in, maxRecordLength);
+        }
+    },
+    CSV("text/csv", "csv") {
+        @Override
+        public ShipWriter writer(OutputStream out) throws IOException {
+            return new CsvShipWriter(out);
+        }
+
+        @Override
+        public ShipReader reader(InputStream in, int maxRecordLength) throws IOException {
+            return new CsvShipReader(in, maxRecordLength);
+        }
+    };
+
+    private final String mediaType;
+    private final String extension;
+
+    ShipFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public abstract ShipWriter writer(OutputStream out) throws IOException;
+
+    // Throws IllegalArgumentException when the input does not start like this format. Records longer than
+    // maxRecordLength characters are rejected instead of buffered
+    public abstract ShipReader reader(InputStream in, int maxRecordLength) throws IOException;
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -0,0 +1,20 @@
+package com.space.io;
+
+import com.space.model.Ship;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+// Splitting the input into records is cheap and sequential, parsing them can run on several threads
+public interface ShipReader extends Closeable {
+
+    // Next raw record, null at the end of the input. Throws IllegalArgumentException for a record longer than the
+    // reader's limit, reading goes on after it
+    String nextRecord() throws IOException;
+
+    // Line of the input where the record returned last starts
+    long getLineNumber();
+
+    // Thread-safe, throws IllegalArgumentException for a malformed record
+    Ship parse(String record);
+}
@@ -0,0 +1,78 @@
+package com.space.io;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.space.model.Ship;
+
+import java.io.IOException;
+
+// Writes a Ship field by field with pre-encoded names instead of through reflective field access.
+// The output is the same as the field-visibility mapping: declaration order, nulls included, dates as millis
+public class ShipSerializer extends StdSerializer<Ship> {
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString NAME = new SerializedString("name");
+    private static final SerializableString PLANET = new SerializedString("planet");
+    private static final SerializableString SHIP_TYPE = new SerializedString("shipType");
+    private static final SerializableString PROD_DATE = new SerializedString("prodDate");
+    private static final SerializableString IS_USED = new SerializedString("isUsed");
+    private static final SerializableString SPEED = new SerializedString("speed");
+    private static final SerializableString CREW_SIZE = new SerializedString("crewSize");
+    private static final SerializableString RATING = new SerializedString("rating");
+
+    public ShipSerializer() {
+        super(Ship.class);
+    }
+
+    public static SimpleModule module() {
+        return new SimpleModule("ShipSerializer").addSerializer(Ship.class, new ShipSerializer());
+    }
+
+    @Override
+    public void serialize(Ship ship, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        write(ship, gen);
+    }
+
+    public static void write(Ship ship, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeFieldName(ID);
+        writeNumber(gen, ship.getId());
+        gen.writeFieldName(NAME);
+        gen.writeString(ship.getName());
+        gen.writeFieldName(PLANET);
+        gen.writeString(ship.getPlanet());
+        gen.writeFieldName(SHIP_TYPE);
+        gen.writeString(ship.getShipType() == null ? null : ship.getShipType().name());
+        gen.writeFieldName(PROD_DATE);
+        writeNumber(gen, ship.getProdDate() == null ? null : ship.getProdDate().getTime());
+        gen.writeFieldName(IS_USED);
+        if (ship.getUsed() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeBoolean(ship.getUsed());
+        }
+        gen.writeFieldName(SPEED);
+        writeNumber(gen, ship.getSpeed());
+        gen.writeFieldName(CREW_SIZE);
+        writeNumber(gen, ship.getCrewSize());
+        gen.writeFieldName(RATING);
+        writeNumber(gen, ship.getResolvedRating());
+        gen.writeEndObject();
+    }
+
+    private static void writeNumber(JsonGenerator gen, Number value) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+        } else if (value instanceof Double) {
+            gen.writeNumber(value.doubleValue());
+        } else if (value instanceof Integer) {
+            gen.writeNumber(value.intValue());
+        } else {
+            gen.writeNumber(value.longValue());
+        }
+    }
+}
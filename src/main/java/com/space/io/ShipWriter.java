@@ -0,0 +1,11 @@
+package com.space.io;
+
+import com.space.model.Ship;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+public interface ShipWriter extends Closeable {
+
+    void write(Ship ship) throws IOException;
+}
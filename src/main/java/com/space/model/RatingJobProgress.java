@@ -0,0 +1,70 @@
+package com.space.model;
+
+import java.util.Date;
+
+public class RatingJobProgress {
+
+    // Year the stored ratings were computed for, the target year while a pass is unfinished
+    private int referenceYear;
+    private Integer targetYear;
+    // IDLE, RUNNING, PAUSED (unfinished, no worker) or FAILED
+    private String state;
+    private long lastId;
+    private long updated;
+    private long remaining;
+    private Date started;
+    private Date finished;
+    private String failure;
+
+    public RatingJobProgress(int referenceYear, Integer targetYear, String state, long lastId, long updated, long remaining,
+                             Date started, Date finished, String failure) {
+        this.referenceYear = referenceYear;
+        this.targetYear = targetYear;
+        this.state = state;
+        this.lastId = lastId;
+        this.updated = updated;
+        this.remaining = remaining;
+        this.started = started;
+        this.finished = finished;
+        this.failure = failure;
+    }
+
+    public RatingJobProgress() {
+    }
+
+    public int getReferenceYear() {
+        return referenceYear;
+    }
+
+    public Integer getTargetYear() {
+        return targetYear;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public long getLastId() {
+        return lastId;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public long getRemaining() {
+        return remaining;
+    }
+
+    public Date getStarted() {
+        return started;
+    }
+
+    public Date getFinished() {
+        return finished;
+    }
+
+    public String getFailure() {
+        return failure;
+    }
+}
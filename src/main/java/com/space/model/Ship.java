@@ -1,4 +1,9 @@
 package com.space.model;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.Formula;
 import org.springframework.beans.factory.annotation.Value;
 
 import javax.persistence.*;
@@ -7,6 +12,9 @@ import java.util.Objects;
 
 @Entity
 @Table(name = "ship")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "ship")
+@DynamicUpdate
 public class Ship {
 
     @Id
@@ -39,6 +47,19 @@ public class Ship {
     @Column(name = "rating")
     private Double rating;
 
+    // The rating of rating_job's year: while the job copies ratings, one computed for the ship's current version
+    // that was not copied yet. Read-only, searches only filter and sort by it during the copy
+    @Formula("COALESCE((SELECT n.rating FROM ship_rating_next n JOIN rating_job j ON j.id = 1 AND j.copying "
+            + "WHERE n.id = id AND n.version = version), rating)")
+    @JsonIgnore
+    private Double resolvedRating;
+
+    // Sent to clients as the ETag, not as part of the body
+    @Version
+    @Column(name = "version")
+    @JsonIgnore
+    private Long version;
+
 
     public Ship(String name,
                 String planet,
@@ -61,6 +82,28 @@ public class Ship {
     public Ship() {
     }
 
+    public Ship(Ship other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.planet = other.planet;
+        this.shipType = other.shipType;
+        this.prodDate = other.prodDate;
+        this.isUsed = other.isUsed;
+        this.speed = other.speed;
+        this.crewSize = other.crewSize;
+        this.rating = other.rating;
+        this.resolvedRating = other.resolvedRating;
+        this.version = other.version;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public String getName() {
         return name;
     }
@@ -123,6 +166,25 @@ public class Ship {
 
     public void setRating(Double rating) {
         this.rating = rating;
+        this.resolvedRating = null;
+    }
+
+    // The rating clients are shown, getRating is the stored column the indexes are built from
+    public Double getResolvedRating() {
+        return resolvedRating != null ? resolvedRating : rating;
+    }
+
+    // True while the shown rating is not the stored one yet, the version alone does not tell them apart
+    public boolean hasNextRating() {
+        return resolvedRating != null && !resolvedRating.equals(rating);
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
     }
 
 }
@@ -0,0 +1,23 @@
+package com.space.model;
+
+public class ShipBatchError {
+
+    private int index;
+    private String message;
+
+    public ShipBatchError(int index, String message) {
+        this.index = index;
+        this.message = message;
+    }
+
+    public ShipBatchError() {
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
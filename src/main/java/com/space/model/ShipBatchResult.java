@@ -0,0 +1,26 @@
+package com.space.model;
+
+import java.util.List;
+
+public class ShipBatchResult {
+
+    // Ids in request order, empty when any ship was rejected
+    private List<Long> ids;
+    private List<ShipBatchError> errors;
+
+    public ShipBatchResult(List<Long> ids, List<ShipBatchError> errors) {
+        this.ids = ids;
+        this.errors = errors;
+    }
+
+    public ShipBatchResult() {
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public List<ShipBatchError> getErrors() {
+        return errors;
+    }
+}
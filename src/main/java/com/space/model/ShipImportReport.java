@@ -0,0 +1,82 @@
+package com.space.model;
+
+import java.util.List;
+
+public class ShipImportReport {
+
+    private long id;
+    private String format;
+    // RUNNING, DONE or FAILED
+    private String state;
+    private long records;
+    private long accepted;
+    private long inserted;
+    private long rejected;
+    // The first rejected records, index is the line in the input
+    private List<ShipBatchError> errors;
+    private String failure;
+    private long elapsedMillis;
+    private long shipsPerSecond;
+
+    public ShipImportReport(long id, String format, String state, long records, long accepted, long inserted, long rejected,
+                            List<ShipBatchError> errors, String failure, long elapsedMillis) {
+        this.id = id;
+        this.format = format;
+        this.state = state;
+        this.records = records;
+        this.accepted = accepted;
+        this.inserted = inserted;
+        this.rejected = rejected;
+        this.errors = errors;
+        this.failure = failure;
+        this.elapsedMillis = elapsedMillis;
+        this.shipsPerSecond = elapsedMillis == 0 ? 0 : inserted * 1000 / elapsedMillis;
+    }
+
+    public ShipImportReport() {
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public List<ShipBatchError> getErrors() {
+        return errors;
+    }
+
+    public String getFailure() {
+        return failure;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public long getShipsPerSecond() {
+        return shipsPerSecond;
+    }
+}
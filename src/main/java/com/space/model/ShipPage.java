@@ -0,0 +1,37 @@
+package com.space.model;
+
+import java.util.List;
+
+public class ShipPage<T> {
+
+    private List<T> items;
+    private long total;
+    private int pageNumber;
+    private int pageSize;
+
+    public ShipPage(List<T> items, long total, int pageNumber, int pageSize) {
+        this.items = items;
+        this.total = total;
+        this.pageNumber = pageNumber;
+        this.pageSize = pageSize;
+    }
+
+    public ShipPage() {
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public int getPageNumber() {
+        return pageNumber;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+}
@@ -0,0 +1,42 @@
+package com.space.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// A ship reduced to some of its fields, read by a projection query instead of as an entity. Written as a JSON
+// object with the same names and value formats as a serialized Ship, in the requested order
+public class ShipRow implements JsonSerializable {
+
+    public static final List<String> FIELDS = Collections.unmodifiableList(Arrays.asList(
+            "id", "name", "planet", "shipType", "prodDate", "isUsed", "speed", "crewSize", "rating"));
+
+    // Shared by all rows of one result, values may hold more columns than are written
+    private final String[] fields;
+    private final Object[] values;
+
+    public ShipRow(String[] fields, Object[] values) {
+        this.fields = fields;
+        this.values = values;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject();
+        for (int i = 0; i < fields.length; i++) {
+            provider.defaultSerializeField(fields[i], values[i], gen);
+        }
+        gen.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider provider, TypeSerializer typeSer) throws IOException {
+        serialize(gen, provider);
+    }
+}
@@ -0,0 +1,25 @@
+package com.space.model;
+
+import java.util.List;
+
+public class ShipSlice<T> {
+
+    private List<T> items;
+    private String nextCursor;
+
+    public ShipSlice(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public ShipSlice() {
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
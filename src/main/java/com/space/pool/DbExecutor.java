@@ -0,0 +1,80 @@
+package com.space.pool;
+
+import com.space.exception.ServiceUnavailableException;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Runs database-bound request handlers so that container threads are released while a query runs.
+// More threads than pooled connections would only wait for a connection, and once queueCapacity tasks are
+// waiting new requests fail with 503 right away instead of piling up. A request still waiting after
+// timeoutMs also gets a 503 (AsyncRequestTimeoutException), and its task is skipped if it has not started yet.
+public class DbExecutor {
+
+    private final boolean enabled;
+    private final long timeoutMs;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder rejected = new LongAdder();
+
+    public DbExecutor(boolean enabled, int threads, int queueCapacity, long timeoutMs) {
+        this.enabled = enabled;
+        this.timeoutMs = timeoutMs;
+        AtomicInteger count = new AtomicInteger();
+        BlockingQueue<Runnable> queue = queueCapacity == 0 ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(queueCapacity);
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, queue, runnable -> {
+            Thread thread = new Thread(runnable, "db-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // With async handling disabled the task runs on the calling thread and the result is already set
+    public <T> DeferredResult<T> submit(Supplier<T> task) {
+        DeferredResult<T> result = new DeferredResult<>(timeoutMs);
+        if (!enabled) {
+            result.setResult(task.get());
+            return result;
+        }
+        try {
+            executor.execute(() -> {
+                if (result.isSetOrExpired()) {
+                    return;
+                }
+                // An Error too, otherwise the request would wait for the timeout
+                try {
+                    result.setResult(task.get());
+                } catch (Throwable e) {
+                    result.setErrorResult(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceUnavailableException("Too many requests are waiting for the database");
+        }
+        return result;
+    }
+
+    public int getActive() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueued() {
+        return executor.getQueue().size();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
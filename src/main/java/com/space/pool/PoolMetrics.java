@@ -0,0 +1,107 @@
+package com.space.pool;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public class PoolMetrics implements MetricsTrackerFactory, IMetricsTracker {
+
+    // Upper bounds (exclusive) of the acquire-time buckets, the last bucket is open-ended
+    private static final long[] BUCKET_BOUNDS_MILLIS = {1, 5, 10, 50, 100, 500, 1000};
+
+    private final LongAdder[] acquireBuckets = new LongAdder[BUCKET_BOUNDS_MILLIS.length + 1];
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder acquireNanos = new LongAdder();
+    private final LongAccumulator maxAcquireNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private volatile PoolStats poolStats;
+
+    public PoolMetrics() {
+        for (int i = 0; i < acquireBuckets.length; i++) {
+            acquireBuckets[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolStats = poolStats;
+        return this;
+    }
+
+    @Override
+    public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(elapsedAcquiredNanos);
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS_MILLIS.length && millis >= BUCKET_BOUNDS_MILLIS[bucket]) {
+            bucket++;
+        }
+        acquireBuckets[bucket].increment();
+        acquireCount.increment();
+        acquireNanos.add(elapsedAcquiredNanos);
+        maxAcquireNanos.accumulate(elapsedAcquiredNanos);
+    }
+
+    @Override
+    public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+        created.increment();
+    }
+
+    @Override
+    public void recordConnectionTimeout() {
+        timeouts.increment();
+    }
+
+    public PoolStatistics snapshot() {
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        long[] counts = new long[acquireBuckets.length];
+        for (int i = 0; i < acquireBuckets.length; i++) {
+            String label = i < BUCKET_BOUNDS_MILLIS.length
+                    ? "<" + BUCKET_BOUNDS_MILLIS[i] + "ms"
+                    : ">=" + BUCKET_BOUNDS_MILLIS[BUCKET_BOUNDS_MILLIS.length - 1] + "ms";
+            counts[i] = acquireBuckets[i].sum();
+            histogram.put(label, counts[i]);
+        }
+        long count = acquireCount.sum();
+        double meanAcquireMillis = count == 0 ? 0 : acquireNanos.sum() / (double) count / 1_000_000;
+        long maxMillis = TimeUnit.NANOSECONDS.toMillis(maxAcquireNanos.get());
+        long p50 = percentileMillis(counts, 0.50, maxMillis);
+        long p95 = percentileMillis(counts, 0.95, maxMillis);
+        long p99 = percentileMillis(counts, 0.99, maxMillis);
+
+        PoolStats stats = poolStats;
+        if (stats == null) {
+            return new PoolStatistics(0, 0, 0, 0, 0, 0, count, meanAcquireMillis, p50, p95, p99,
+                    timeouts.sum(), created.sum(), histogram);
+        }
+        return new PoolStatistics(stats.getActiveConnections(), stats.getIdleConnections(), stats.getPendingThreads(),
+                stats.getTotalConnections(), stats.getMinConnections(), stats.getMaxConnections(),
+                count, meanAcquireMillis, p50, p95, p99, timeouts.sum(), created.sum(), histogram);
+    }
+
+    // Upper bound of the bucket holding the percentile, the slowest acquire seen for the open-ended bucket
+    static long percentileMillis(long[] counts, double fraction, long maxMillis) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(fraction * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return BUCKET_BOUNDS_MILLIS[i];
+            }
+        }
+        return maxMillis;
+    }
+}
@@ -0,0 +1,107 @@
+package com.space.pool;
+
+import java.util.Map;
+
+public class PoolStatistics {
+
+    private int active;
+    private int idle;
+    private int waiting;
+    private int total;
+    private int minIdle;
+    private int maxSize;
+    private long acquireCount;
+    private double meanAcquireMillis;
+    private long p50AcquireMillis;
+    private long p95AcquireMillis;
+    private long p99AcquireMillis;
+    private long timeouts;
+    private long connectionsCreated;
+    private Map<String, Long> acquireHistogram;
+
+    public PoolStatistics(int active,
+                          int idle,
+                          int waiting,
+                          int total,
+                          int minIdle,
+                          int maxSize,
+                          long acquireCount,
+                          double meanAcquireMillis,
+                          long p50AcquireMillis,
+                          long p95AcquireMillis,
+                          long p99AcquireMillis,
+                          long timeouts,
+                          long connectionsCreated,
+                          Map<String, Long> acquireHistogram) {
+        this.active = active;
+        this.idle = idle;
+        this.waiting = waiting;
+        this.total = total;
+        this.minIdle = minIdle;
+        this.maxSize = maxSize;
+        this.acquireCount = acquireCount;
+        this.meanAcquireMillis = meanAcquireMillis;
+        this.p50AcquireMillis = p50AcquireMillis;
+        this.p95AcquireMillis = p95AcquireMillis;
+        this.p99AcquireMillis = p99AcquireMillis;
+        this.timeouts = timeouts;
+        this.connectionsCreated = connectionsCreated;
+        this.acquireHistogram = acquireHistogram;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public int getWaiting() {
+        return waiting;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getAcquireCount() {
+        return acquireCount;
+    }
+
+    public double getMeanAcquireMillis() {
+        return meanAcquireMillis;
+    }
+
+    public long getP50AcquireMillis() {
+        return p50AcquireMillis;
+    }
+
+    public long getP95AcquireMillis() {
+        return p95AcquireMillis;
+    }
+
+    public long getP99AcquireMillis() {
+        return p99AcquireMillis;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    public long getConnectionsCreated() {
+        return connectionsCreated;
+    }
+
+    public Map<String, Long> getAcquireHistogram() {
+        return acquireHistogram;
+    }
+}
@@ -3,6 +3,15 @@ package com.space.repository;
 import com.space.model.Ship;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface ShipRepository extends JpaRepository<Ship, Long>, JpaSpecificationExecutor<Ship> {
+import java.util.List;
+
+public interface ShipRepository extends JpaRepository<Ship, Long>, JpaSpecificationExecutor<Ship>, ShipRepositoryCustom {
+
+    @Modifying
+    @Query("DELETE FROM Ship s WHERE s.id IN :ids")
+    int deleteByIds(@Param("ids") List<Long> ids);
 }
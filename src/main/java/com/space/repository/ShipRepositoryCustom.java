@@ -0,0 +1,58 @@
+package com.space.repository;
+
+import com.space.model.Ship;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+public interface ShipRepositoryCustom {
+
+    List<Ship> findContent(Specification<Ship> specification, Pageable pageable);
+
+    // Past the second-level cache, without putting the ship there
+    Optional<Ship> findUncached(Long id);
+
+    // Only the given attributes of each matching ship, as scalars that are never tracked by the persistence context
+    List<Object[]> findFields(Specification<Ship> specification, Pageable pageable, List<String> attributes);
+
+    // Forward-only cursor over all matching ships, each one is detached once the consumer returns
+    void scroll(Specification<Ship> specification, Sort sort, int fetchSize, Consumer<Ship> consumer);
+
+    // Sets the generated id on every ship
+    void insertAll(List<Ship> ships);
+
+    // Rows of the given ships in id order, as they are in the table within the caller's transaction
+    List<Ship> findRows(List<Long> ids);
+
+    // Ids of matching ships after afterId in id order, locked until the surrounding transaction ends
+    List<Long> lockChunk(Specification<Ship> specification, long afterId, int limit);
+
+    // Sets the non-null fields of changes on the given ships, recomputing rating when speed, isUsed or prodDate change
+    int updateByIds(List<Long> ids, Ship changes, ToDoubleFunction<Ship> rating);
+
+    // Sets the non-null fields of changes on the ship, with its rating when changes touch speed, isUsed or prodDate,
+    // if the ship is still at version, which is then bumped. Returns the number of rows updated
+    int updateIfVersion(Ship ship, Ship changes, long version);
+
+    // Computes the rating of the next limit ships after afterId in id order into ship_rating_next, the ratings
+    // searches read stay as they are. Returns the last id and the number of ratings written, null when no ship is left
+    long[] rerateChunk(long afterId, int limit, ToDoubleFunction<Ship> rating);
+
+    // Rates the next limit ships after afterId in id order into ship_rating_next again when their rating there is
+    // missing or was computed from another version. Returns the last id and the number of ratings written, null when
+    // no ship is left
+    long[] rerateStale(long afterId, int limit, ToDoubleFunction<Ship> rating);
+
+    // The same for the given ships. Returns the number of ratings written
+    int rerateStale(List<Long> ids, ToDoubleFunction<Ship> rating);
+
+    // Replaces the stored ratings of the given ships, which the caller has locked, in id order after afterId: ships
+    // that changed since their rating was computed, or were never reached, are rated again, all others take theirs
+    // from ship_rating_next, which is emptied up to the last id. Returns the number of ratings written
+    int copyRatings(long afterId, List<Long> ids, ToDoubleFunction<Ship> rating);
+}
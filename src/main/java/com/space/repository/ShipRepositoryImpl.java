@@ -0,0 +1,414 @@
+package com.space.repository;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.CacheRetrieveMode;
+import javax.persistence.CacheStoreMode;
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+public class ShipRepositoryImpl implements ShipRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${batch.jdbcBatchSize:500}")
+    private int jdbcBatchSize;
+
+    // Page content only, without the count query that findAll(Specification, Pageable) always adds
+    @Override
+    public List<Ship> findContent(Specification<Ship> specification, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Ship> query = cb.createQuery(Ship.class);
+        Root<Ship> root = query.from(Ship.class);
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(root).orderBy(toOrders(pageable.getSort(), root, cb));
+
+        TypedQuery<Ship> typedQuery = entityManager.createQuery(query);
+        typedQuery.setFirstResult((int) pageable.getOffset());
+        typedQuery.setMaxResults(pageable.getPageSize());
+        return typedQuery.getResultList();
+    }
+
+    // Loaded into the entity cache before the copying flag was committed, a ship still has the old resolved rating
+    @Override
+    public Optional<Ship> findUncached(Long id) {
+        Map<String, Object> hints = new HashMap<>();
+        hints.put("javax.persistence.cache.retrieveMode", CacheRetrieveMode.BYPASS);
+        hints.put("javax.persistence.cache.storeMode", CacheStoreMode.BYPASS);
+        return Optional.ofNullable(entityManager.find(Ship.class, id, hints));
+    }
+
+    @Override
+    public List<Object[]> findFields(Specification<Ship> specification, Pageable pageable, List<String> attributes) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Ship> root = query.from(Ship.class);
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        List<Selection<?>> selections = new ArrayList<>();
+        attributes.forEach(attribute -> selections.add(root.get(attribute)));
+        query.multiselect(selections).orderBy(toOrders(pageable.getSort(), root, cb));
+        List<?> rows = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+        List<Object[]> result = new ArrayList<>(rows.size());
+        // A single selection comes back as the bare value
+        rows.forEach(row -> result.add(row instanceof Object[] ? (Object[]) row : new Object[]{row}));
+        return result;
+    }
+
+    // Read-only entities skip dirty checking, CacheMode.IGNORE keeps a full scan out of the second-level cache.
+    // MySQL only honours the fetch size with useCursorFetch=true in db.url, otherwise it buffers the whole result
+    @Override
+    @Transactional(readOnly = true)
+    public void scroll(Specification<Ship> specification, Sort sort, int fetchSize, Consumer<Ship> consumer) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Ship> query = cb.createQuery(Ship.class);
+        Root<Ship> root = query.from(Ship.class);
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(root).orderBy(toOrders(sort, root, cb));
+
+        try (ScrollableResults results = entityManager.createQuery(query)
+                .unwrap(org.hibernate.query.Query.class)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .setCacheMode(CacheMode.IGNORE)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                Ship ship = (Ship) results.get(0);
+                consumer.accept(ship);
+                entityManager.detach(ship);
+            }
+        }
+    }
+
+    // Plain JDBC batches, IDENTITY ids keep Hibernate from batching inserts. On MySQL the driver
+    // rewrites each batch into one multi-row INSERT (rewriteBatchedStatements in db.url)
+    @Override
+    @Transactional
+    public void insertAll(List<Ship> ships) {
+        new JdbcTemplate(dataSource).execute((Connection connection) -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO ship(name, planet, shipType, prodDate, isUsed, speed, crewSize, rating) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                    Statement.RETURN_GENERATED_KEYS)) {
+                int from = 0;
+                for (int i = 0; i < ships.size(); i++) {
+                    Ship ship = ships.get(i);
+                    statement.setString(1, ship.getName());
+                    statement.setString(2, ship.getPlanet());
+                    statement.setString(3, ship.getShipType() == null ? null : ship.getShipType().name());
+                    statement.setDate(4, new Date(ship.getProdDate().getTime()));
+                    statement.setBoolean(5, ship.getUsed());
+                    statement.setDouble(6, ship.getSpeed());
+                    statement.setInt(7, ship.getCrewSize());
+                    statement.setDouble(8, ship.getRating());
+                    statement.addBatch();
+                    if (i - from + 1 == jdbcBatchSize || i == ships.size() - 1) {
+                        statement.executeBatch();
+                        try (ResultSet keys = statement.getGeneratedKeys()) {
+                            while (keys.next()) {
+                                ships.get(from++).setId(keys.getLong(1));
+                            }
+                        }
+                        from = i + 1;
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public List<Long> lockChunk(Specification<Ship> specification, long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Ship> root = query.from(Ship.class);
+        Predicate after = cb.greaterThan(root.get("id"), afterId);
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        query.select(root.get("id"))
+                .where(predicate == null ? after : cb.and(predicate, after))
+                .orderBy(cb.asc(root.get("id")));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+    }
+
+    // Native and unmapped, so neither the persistence context nor the second-level cache answer with an older state
+    @Override
+    public List<Ship> findRows(List<Long> ids) {
+        List<?> rows = entityManager.createNativeQuery("SELECT id, name, planet, shipType, prodDate, isUsed, speed, crewSize, rating, version "
+                + "FROM ship WHERE id IN (:ids) ORDER BY id")
+                .setParameter("ids", ids)
+                .getResultList();
+        List<Ship> ships = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            Ship ship = new Ship((String) columns[1], (String) columns[2],
+                    columns[3] == null ? null : ShipType.valueOf((String) columns[3]),
+                    columns[4] == null ? null : new java.util.Date(((java.util.Date) columns[4]).getTime()),
+                    (Boolean) columns[5],
+                    columns[6] == null ? null : ((Number) columns[6]).doubleValue(),
+                    columns[7] == null ? null : ((Number) columns[7]).intValue(),
+                    columns[8] == null ? null : ((Number) columns[8]).doubleValue());
+            ship.setId(((Number) columns[0]).longValue());
+            ship.setVersion(columns[9] == null ? null : ((Number) columns[9]).longValue());
+            ships.add(ship);
+        }
+        return ships;
+    }
+
+    // Assignments never read a column that is assigned in the same statement: MySQL evaluates them left to
+    // right with the new values, H2 with the old ones. The ratings are written afterwards from the updated rows
+    @Override
+    public int updateByIds(List<Long> ids, Ship changes, ToDoubleFunction<Ship> rating) {
+        Map<String, Object> values = new HashMap<>();
+        List<String> assignments = assignments(changes, values);
+        boolean rerate = changes.getSpeed() != null || changes.getUsed() != null || changes.getProdDate() != null;
+        // Otherwise writing the ratings bumps it
+        if (!rerate) {
+            assignments.add("version = version + 1");
+        }
+        Query query = entityManager.createNativeQuery("UPDATE ship SET " + String.join(", ", assignments) + " WHERE id IN (:ids)")
+                .setParameter("ids", ids);
+        values.forEach(query::setParameter);
+        int updated = query.executeUpdate();
+        if (rerate) {
+            List<?> rows = entityManager.createNativeQuery("SELECT id, speed, isUsed, prodDate FROM ship WHERE id IN (:ids)")
+                    .setParameter("ids", ids)
+                    .getResultList();
+            writeRatings(rows, rating);
+        }
+        return updated;
+    }
+
+    // Plain JDBC, a native query through the session would invalidate the whole entity cache region
+    @Override
+    public int updateIfVersion(Ship ship, Ship changes, long version) {
+        Map<String, Object> values = new HashMap<>();
+        List<String> assignments = assignments(changes, values);
+        if (changes.getSpeed() != null || changes.getUsed() != null || changes.getProdDate() != null) {
+            assignments.add("rating = :rating");
+            values.put("rating", ship.getRating());
+        }
+        assignments.add("version = version + 1");
+        values.put("id", ship.getId());
+        values.put("version", version);
+        int updated = new NamedParameterJdbcTemplate(dataSource).update(
+                "UPDATE ship SET " + String.join(", ", assignments) + " WHERE id = :id AND version = :version", values);
+        entityManager.getEntityManagerFactory().getCache().evict(Ship.class, ship.getId());
+        return updated;
+    }
+
+    // One assignment per non-null field of changes, its value under the column name
+    private static List<String> assignments(Ship changes, Map<String, Object> values) {
+        List<String> assignments = new ArrayList<>();
+        if (changes.getName() != null) {
+            assignments.add("name = :name");
+            values.put("name", changes.getName());
+        }
+        if (changes.getPlanet() != null) {
+            assignments.add("planet = :planet");
+            values.put("planet", changes.getPlanet());
+        }
+        if (changes.getShipType() != null) {
+            assignments.add("shipType = :shipType");
+            values.put("shipType", changes.getShipType().name());
+        }
+        if (changes.getProdDate() != null) {
+            assignments.add("prodDate = :prodDate");
+            values.put("prodDate", new Date(changes.getProdDate().getTime()));
+        }
+        if (changes.getUsed() != null) {
+            assignments.add("isUsed = :isUsed");
+            values.put("isUsed", changes.getUsed());
+        }
+        if (changes.getSpeed() != null) {
+            assignments.add("speed = :speed");
+            values.put("speed", changes.getSpeed());
+        }
+        if (changes.getCrewSize() != null) {
+            assignments.add("crewSize = :crewSize");
+            values.put("crewSize", changes.getCrewSize());
+        }
+        return assignments;
+    }
+
+    // Computed by the caller, like for single writes: the database would multiply the literals as exact
+    // DECIMALs instead of doubles and round some ties, e.g. 80 * 0.06 / 192, the other way
+    private int writeRatings(List<?> rows, ToDoubleFunction<Ship> rating) {
+        List<Ship> ships = ratedShips(rows);
+        new JdbcTemplate(dataSource).batchUpdate("UPDATE ship SET rating = ?, version = version + 1 WHERE id = ?",
+                ships, jdbcBatchSize, (statement, ship) -> {
+                    statement.setDouble(1, rating.applyAsDouble(ship));
+                    statement.setLong(2, ship.getId());
+                });
+        return ships.size();
+    }
+
+    // Rows of id, speed, isUsed, prodDate and optionally version, ships missing a rating input are skipped
+    private static List<Ship> ratedShips(List<?> rows) {
+        List<Ship> ships = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            if (columns[1] == null || columns[2] == null || columns[3] == null) {
+                continue;
+            }
+            Ship ship = new Ship();
+            ship.setId(((Number) columns[0]).longValue());
+            ship.setSpeed(((Number) columns[1]).doubleValue());
+            ship.setUsed((Boolean) columns[2]);
+            ship.setProdDate((java.util.Date) columns[3]);
+            if (columns.length > 4) {
+                ship.setVersion(((Number) columns[4]).longValue());
+            }
+            ships.add(ship);
+        }
+        return ships;
+    }
+
+    // Chunk bounds come from the id index, so each chunk reads and writes at most limit rows. Ships are not
+    // locked, a ship changed after its chunk no longer matches the version stored next to its rating
+    @Override
+    public long[] rerateChunk(long afterId, int limit, ToDoubleFunction<Ship> rating) {
+        List<?> rows = entityManager.createNativeQuery(
+                "SELECT id, speed, isUsed, prodDate, version FROM ship WHERE id > :afterId ORDER BY id LIMIT :limit")
+                .setParameter("afterId", afterId)
+                .setParameter("limit", limit)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return null;
+        }
+        List<Object[]> ratings = new ArrayList<>(rows.size());
+        for (Ship ship : ratedShips(rows)) {
+            ratings.add(new Object[]{ship.getId(), rating.applyAsDouble(ship), ship.getVersion()});
+        }
+        new JdbcTemplate(dataSource).batchUpdate("INSERT INTO ship_rating_next (id, rating, version) VALUES (?, ?, ?)", ratings);
+        long lastId = ((Number) ((Object[]) rows.get(rows.size() - 1))[0]).longValue();
+        return new long[]{lastId, ratings.size()};
+    }
+
+    @Override
+    public long[] rerateStale(long afterId, int limit, ToDoubleFunction<Ship> rating) {
+        List<?> rows = entityManager.createNativeQuery("SELECT s.id, s.speed, s.isUsed, s.prodDate, s.version, n.version AS next_version "
+                + "FROM ship s LEFT JOIN ship_rating_next n ON n.id = s.id WHERE s.id > :afterId ORDER BY s.id LIMIT :limit")
+                .setParameter("afterId", afterId)
+                .setParameter("limit", limit)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return null;
+        }
+        long lastId = ((Number) ((Object[]) rows.get(rows.size() - 1))[0]).longValue();
+        return new long[]{lastId, writeNextRatings(rows, rating)};
+    }
+
+    @Override
+    public int rerateStale(List<Long> ids, ToDoubleFunction<Ship> rating) {
+        List<?> rows = entityManager.createNativeQuery("SELECT s.id, s.speed, s.isUsed, s.prodDate, s.version, n.version AS next_version "
+                + "FROM ship s LEFT JOIN ship_rating_next n ON n.id = s.id WHERE s.id IN (:ids)")
+                .setParameter("ids", ids)
+                .getResultList();
+        return writeNextRatings(rows, rating);
+    }
+
+    // Rows of id, speed, isUsed, prodDate, version and the version in ship_rating_next, only ships whose rating
+    // there is missing or stale are written. The job is the only writer of ship_rating_next
+    private int writeNextRatings(List<?> rows, ToDoubleFunction<Ship> rating) {
+        List<Object[]> stale = new ArrayList<>();
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            if (columns[5] == null || ((Number) columns[5]).longValue() != ((Number) columns[4]).longValue()) {
+                stale.add(Arrays.copyOf(columns, 5));
+            }
+        }
+        if (stale.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = new ArrayList<>(stale.size());
+        List<Object[]> ratings = new ArrayList<>(stale.size());
+        for (Ship ship : ratedShips(stale)) {
+            ids.add(ship.getId());
+            ratings.add(new Object[]{ship.getId(), rating.applyAsDouble(ship), ship.getVersion()});
+        }
+        NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        if (!ids.isEmpty()) {
+            jdbcTemplate.update("DELETE FROM ship_rating_next WHERE id IN (:ids)", Collections.singletonMap("ids", ids));
+        }
+        jdbcTemplate.getJdbcTemplate().batchUpdate("INSERT INTO ship_rating_next (id, rating, version) VALUES (?, ?, ?)", ratings);
+        return ratings.size();
+    }
+
+    // The caller has locked the ships, so no write can slip in between the stale check and the copy
+    @Override
+    public int copyRatings(long afterId, List<Long> ids, ToDoubleFunction<Ship> rating) {
+        List<?> rows = entityManager.createNativeQuery("SELECT id, speed, isUsed, prodDate, version FROM ship WHERE id IN (:ids)")
+                .setParameter("ids", ids)
+                .getResultList();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        Map<Long, Object[]> next = new HashMap<>();
+        jdbcTemplate.query("SELECT id, rating, version FROM ship_rating_next WHERE id > ? AND id <= ?", rs -> {
+            next.put(rs.getLong(1), new Object[]{rs.getDouble(2), rs.getLong(3)});
+        }, afterId, ids.get(ids.size() - 1));
+        List<Ship> ships = ratedShips(rows);
+        jdbcTemplate.batchUpdate("UPDATE ship SET rating = ?, version = version + 1 WHERE id = ?",
+                ships, jdbcBatchSize, (statement, ship) -> {
+                    Object[] computed = next.get(ship.getId());
+                    boolean current = computed != null && computed[1].equals(ship.getVersion());
+                    statement.setDouble(1, current ? (Double) computed[0] : rating.applyAsDouble(ship));
+                    statement.setLong(2, ship.getId());
+                });
+        // Also the ratings of ships deleted since their chunk
+        jdbcTemplate.update("DELETE FROM ship_rating_next WHERE id > ? AND id <= ?", afterId, ids.get(ids.size() - 1));
+        return ships.size();
+    }
+}
@@ -0,0 +1,40 @@
+package com.space.service;
+
+import com.space.model.Ship;
+
+import java.util.List;
+
+// Implemented by in-memory structures derived from the ship table, notified after each successful write
+public interface ShipChangeListener {
+
+    void shipCreated(Ship ship);
+
+    void shipUpdated(Ship previous, Ship current);
+
+    void shipDeleted(Ship ship);
+
+    // Ships inserted together, one event for the whole batch
+    default void shipsCreated(List<Ship> ships) {
+        ships.forEach(this::shipCreated);
+    }
+
+    // Ships changed by one chunk of a bulk update, previous and current in the same order
+    default void shipsUpdated(List<Ship> previous, List<Ship> current) {
+        for (int i = 0; i < previous.size(); i++) {
+            shipUpdated(previous.get(i), current.get(i));
+        }
+    }
+
+    // Ships removed by one chunk of a bulk delete
+    default void shipsDeleted(List<Ship> ships) {
+        ships.forEach(this::shipDeleted);
+    }
+
+    // The table was changed outside of ShipService (bulk SQL, fixtures), derived data must be rebuilt
+    void shipsReloaded();
+
+    // The re-rating job committed its copying flag: searches now see the new year's ratings, while the stored
+    // ones and the versions are unchanged until each ship is copied. Only data derived from search results is concerned
+    default void ratingsChanged() {
+    }
+}
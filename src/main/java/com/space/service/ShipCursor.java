@@ -0,0 +1,97 @@
+package com.space.service;
+
+import com.space.controller.ShipOrder;
+import com.space.exception.BadRequestException;
+import com.space.model.Ship;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+public class ShipCursor {
+
+    private static final String SEPARATOR = ":";
+    // A null order value, e.g. a ship without speed, Double and epoch millis never print as an empty string
+    private static final String NULL = "";
+
+    private final ShipOrder order;
+    private final String value;
+    private final long id;
+
+    private ShipCursor(ShipOrder order, String value, long id) {
+        this.order = order;
+        this.value = value;
+        this.id = id;
+    }
+
+    public static ShipCursor after(Ship last, ShipOrder order) {
+        Object value;
+        switch (order) {
+            case SPEED:
+                value = last.getSpeed();
+                break;
+            case DATE:
+                value = last.getProdDate();
+                break;
+            case RATING:
+                value = last.getResolvedRating();
+                break;
+            default:
+                value = last.getId();
+        }
+        return after(value, last.getId(), order);
+    }
+
+    // value is the last row's order attribute, for rows read by a projection instead of as a Ship
+    public static ShipCursor after(Object value, long id, ShipOrder order) {
+        if (value == null) {
+            return new ShipCursor(order, NULL, id);
+        }
+        return new ShipCursor(order, String.valueOf(value instanceof Date ? ((Date) value).getTime() : value), id);
+    }
+
+    public static ShipCursor decode(String token, ShipOrder order) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(SEPARATOR, 3);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Cursor is malformed");
+        }
+        if (parts.length != 3 || !order.name().equals(parts[0])) {
+            throw new BadRequestException("Cursor does not match order " + order);
+        }
+        try {
+            ShipCursor cursor = new ShipCursor(order, parts[1], Long.parseLong(parts[2]));
+            if (order == ShipOrder.DATE) {
+                cursor.getDateValue();
+            } else {
+                cursor.getNumberValue();
+            }
+            return cursor;
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Cursor is malformed");
+        }
+    }
+
+    public String encode() {
+        String raw = order.name() + SEPARATOR + value + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public ShipOrder getOrder() {
+        return order;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    // Null when the last row had no value for the order attribute
+    public Double getNumberValue() {
+        return value.equals(NULL) ? null : Double.valueOf(value);
+    }
+
+    public Date getDateValue() {
+        return value.equals(NULL) ? null : new Date(Long.parseLong(value));
+    }
+}
@@ -0,0 +1,231 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+
+import java.text.Normalizer;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Objects;
+
+public class ShipFilter {
+
+    private final String name;
+    private final String planet;
+    private final ShipType shipType;
+    private final Long after;
+    private final Long before;
+    private final Boolean isUsed;
+    private final Double minSpeed;
+    private final Double maxSpeed;
+    private final Integer minCrewSize;
+    private final Integer maxCrewSize;
+    private final Double minRating;
+    private final Double maxRating;
+
+    public ShipFilter(String name,
+                      String planet,
+                      ShipType shipType,
+                      Long after,
+                      Long before,
+                      Boolean isUsed,
+                      Double minSpeed,
+                      Double maxSpeed,
+                      Integer minCrewSize,
+                      Integer maxCrewSize,
+                      Double minRating,
+                      Double maxRating) {
+        this.name = name;
+        this.planet = planet;
+        this.shipType = shipType;
+        this.after = after;
+        this.before = before;
+        this.isUsed = isUsed;
+        this.minSpeed = minSpeed;
+        this.maxSpeed = maxSpeed;
+        this.minCrewSize = minCrewSize;
+        this.maxCrewSize = maxCrewSize;
+        this.minRating = minRating;
+        this.maxRating = maxRating;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPlanet() {
+        return planet;
+    }
+
+    public ShipType getShipType() {
+        return shipType;
+    }
+
+    public Long getAfter() {
+        return after;
+    }
+
+    public Long getBefore() {
+        return before;
+    }
+
+    public Boolean getUsed() {
+        return isUsed;
+    }
+
+    public Double getMinSpeed() {
+        return minSpeed;
+    }
+
+    public Double getMaxSpeed() {
+        return maxSpeed;
+    }
+
+    public Integer getMinCrewSize() {
+        return minCrewSize;
+    }
+
+    public Integer getMaxCrewSize() {
+        return maxCrewSize;
+    }
+
+    public Double getMinRating() {
+        return minRating;
+    }
+
+    public Double getMaxRating() {
+        return maxRating;
+    }
+
+    public boolean isEmpty() {
+        return name == null && planet == null && shipType == null && after == null && before == null && isUsed == null
+                && minSpeed == null && maxSpeed == null && minCrewSize == null && maxCrewSize == null
+                && minRating == null && maxRating == null;
+    }
+
+    // The same filter in a canonical form: empty terms match every ship, as no term does, since ships are only
+    // stored with a name and a planet, and prodDate bounds move to the midnights the DATE comparison uses
+    public ShipFilter normalized() {
+        return new ShipFilter(name == null || name.isEmpty() ? null : name,
+                planet == null || planet.isEmpty() ? null : planet,
+                shipType, after == null ? null : nextMidnight(after), before == null ? null : startOfDay(new Date(before)),
+                isUsed, minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+    }
+
+    // LIKE reads %, _ and \ in a substring term as pattern characters, matches() would take them literally
+    public boolean hasLiteralTerms() {
+        return literal(name) && literal(planet);
+    }
+
+    // Same semantics as the filterBy* Specifications for literal terms, substrings compared after fold() like
+    // the database collation. A name or planet that fold() can not compare counts as matching, so the answer
+    // may be a false positive but never a false negative
+    public boolean matches(Ship ship) {
+        return contains(ship.getName(), name)
+                && contains(ship.getPlanet(), planet)
+                && (shipType == null || shipType == ship.getShipType())
+                && (after == null || (ship.getProdDate() != null && startOfDay(ship.getProdDate()) >= after))
+                && (before == null || (ship.getProdDate() != null && startOfDay(ship.getProdDate()) <= before))
+                && (isUsed == null || isUsed.equals(ship.getUsed()))
+                && inRange(ship.getSpeed(), minSpeed, maxSpeed)
+                && inRange(ship.getCrewSize(), minCrewSize, maxCrewSize)
+                && inRange(ship.getRating(), minRating, maxRating);
+    }
+
+    // A name, planet or term as the database's case- and accent-insensitive collation compares it in LIKE, one
+    // character at a time: accents are dropped and letters lower-cased, one character for one. Null when a
+    // character folds to anything outside ASCII, e.g. ß, æ or Cyrillic, whose weight differs between
+    // utf8_general_ci and the *_ai_ci collations; then only the database can tell whether it matches
+    public static String fold(String value) {
+        char[] folded = new char[value.length()];
+        for (int i = 0; i < folded.length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+                c = decomposed.charAt(0);
+                if (c >= 0x80) {
+                    return null;
+                }
+                for (int j = 1; j < decomposed.length(); j++) {
+                    if (Character.getType(decomposed.charAt(j)) != Character.NON_SPACING_MARK) {
+                        return null;
+                    }
+                }
+            }
+            folded[i] = Character.toLowerCase(c);
+        }
+        return new String(folded);
+    }
+
+    private static boolean literal(String term) {
+        return term == null || (term.indexOf('%') < 0 && term.indexOf('_') < 0 && term.indexOf('\\') < 0);
+    }
+
+    private static boolean contains(String value, String part) {
+        if (part == null) {
+            return true;
+        }
+        if (value == null) {
+            return false;
+        }
+        String foldedValue = fold(value);
+        String foldedPart = fold(part);
+        return foldedValue == null || foldedPart == null || foldedValue.contains(foldedPart);
+    }
+
+    private static <T extends Comparable<T>> boolean inRange(T value, T min, T max) {
+        if (min == null && max == null) {
+            return true;
+        }
+        return value != null
+                && (min == null || value.compareTo(min) >= 0)
+                && (max == null || value.compareTo(max) <= 0);
+    }
+
+    // prodDate is a DATE column, the database compares it as midnight of that day
+    private static long startOfDay(Date date) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(date);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+
+    private static long nextMidnight(long millis) {
+        long midnight = startOfDay(new Date(millis));
+        if (midnight == millis) {
+            return millis;
+        }
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(midnight);
+        calendar.add(Calendar.DAY_OF_MONTH, 1);
+        return calendar.getTimeInMillis();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ShipFilter that = (ShipFilter) o;
+        return Objects.equals(name, that.name) &&
+                Objects.equals(planet, that.planet) &&
+                shipType == that.shipType &&
+                Objects.equals(after, that.after) &&
+                Objects.equals(before, that.before) &&
+                Objects.equals(isUsed, that.isUsed) &&
+                Objects.equals(minSpeed, that.minSpeed) &&
+                Objects.equals(maxSpeed, that.maxSpeed) &&
+                Objects.equals(minCrewSize, that.minCrewSize) &&
+                Objects.equals(maxCrewSize, that.maxCrewSize) &&
+                Objects.equals(minRating, that.minRating) &&
+                Objects.equals(maxRating, that.maxRating);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+    }
+}
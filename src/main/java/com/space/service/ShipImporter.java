@@ -0,0 +1,363 @@
+package com.space.service;
+
+import com.space.exception.BadRequestException;
+import com.space.exception.ServiceUnavailableException;
+import com.space.io.ShipFormat;
+import com.space.io.ShipReader;
+import com.space.model.Ship;
+import com.space.model.ShipBatchError;
+import com.space.model.ShipImportReport;
+import com.space.repository.ShipRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+// Streaming import: the calling thread only splits the input into records, a pool of workers parses,
+// validates and rates them, and writer threads insert the valid ships in JDBC batches. The writers drain a
+// bounded queue and the workers may only hold a few chunks, so a slow database stops the reading of the input
+// instead of filling the heap. The worker and writer threads are shared by all imports, and at most
+// import.concurrency imports run at once, each with its own writers always running.
+@Service
+public class ShipImporter {
+
+    private static final List<Ship> END = new ArrayList<>();
+
+    @Autowired
+    ShipService shipService;
+    @Autowired
+    ShipRepository shipRepository;
+    @Autowired
+    ShipRerater shipRerater;
+    @Autowired(required = false)
+    List<ShipChangeListener> listeners = Collections.emptyList();
+    // 0 uses one worker per processor
+    @Value("${import.workers:0}")
+    int workers;
+    @Value("${import.writers:2}")
+    int writers;
+    @Value("${import.batchSize:500}")
+    int batchSize;
+    @Value("${import.queueCapacity:8}")
+    int queueCapacity;
+    @Value("${import.maxErrors:100}")
+    int maxErrors;
+    @Value("${import.history:20}")
+    int history;
+    @Value("${import.concurrency:2}")
+    int concurrency;
+    @Value("${import.maxRecordLength:65536}")
+    int maxRecordLength;
+    // Server-side files can only be imported from below this directory, empty disables file imports
+    @Value("${import.directory:}")
+    String directory;
+
+    private final AtomicLong ids = new AtomicLong();
+    private final Deque<Progress> imports = new ConcurrentLinkedDeque<>();
+    private Semaphore running;
+    private ExecutorService validation;
+    private ExecutorService writing;
+
+    public List<ShipImportReport> imports() {
+        return imports.stream().map(Progress::report).collect(Collectors.toList());
+    }
+
+    public ShipImportReport importFile(String path, ShipFormat format) {
+        if (directory.isEmpty()) {
+            throw new BadRequestException("File import is disabled");
+        }
+        Path root = Paths.get(directory).toAbsolutePath().normalize();
+        Path file = root.resolve(path).normalize();
+        if (!file.startsWith(root) || !Files.isRegularFile(file)) {
+            throw new BadRequestException("No such file in the import directory");
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            return importShips(in, format);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public ShipImportReport importShips(InputStream in, ShipFormat format) {
+        Semaphore running = pools();
+        if (!running.tryAcquire()) {
+            throw new ServiceUnavailableException("Too many imports are running");
+        }
+        try {
+            return importShips(in, format, workerCount());
+        } finally {
+            running.release();
+        }
+    }
+
+    private int workerCount() {
+        return workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+    }
+
+    // Every running import gets writers threads, so its workers never wait on a queue nobody drains
+    private synchronized Semaphore pools() {
+        if (running == null) {
+            running = new Semaphore(concurrency);
+            validation = pool("import-", workerCount() * concurrency);
+            writing = pool("import-writer-", writers * concurrency);
+        }
+        return running;
+    }
+
+    private static ExecutorService pool(String prefix, int threads) {
+        AtomicInteger count = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private ShipImportReport importShips(InputStream in, ShipFormat format, int workerCount) {
+        ShipReader reader;
+        try {
+            reader = format.reader(in, maxRecordLength);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Progress progress = new Progress(ids.incrementAndGet(), format, shipRerater.ratingYear());
+        imports.addFirst(progress);
+        while (imports.size() > history) {
+            imports.pollLast();
+        }
+
+        BlockingQueue<List<Ship>> queue = new ArrayBlockingQueue<>(queueCapacity);
+        int permits = workerCount * 2;
+        Semaphore chunks = new Semaphore(permits);
+        CountDownLatch written = new CountDownLatch(writers);
+        for (int i = 0; i < writers; i++) {
+            writing.execute(() -> write(queue, progress, written));
+        }
+        try (ShipReader records = reader) {
+            Chunk chunk = new Chunk(batchSize);
+            while (progress.failure == null) {
+                String record;
+                try {
+                    record = records.nextRecord();
+                } catch (IllegalArgumentException e) {
+                    // An oversized record is rejected on its own, the next one starts behind it
+                    progress.records.increment();
+                    progress.reject(records.getLineNumber(), e.getMessage());
+                    continue;
+                }
+                if (record == null) {
+                    break;
+                }
+                progress.records.increment();
+                chunk.add(records.getLineNumber(), record);
+                if (chunk.size == batchSize) {
+                    submit(validation, chunks, chunk, records, queue, progress);
+                    chunk = new Chunk(batchSize);
+                }
+            }
+            if (chunk.size > 0) {
+                submit(validation, chunks, chunk, records, queue, progress);
+            }
+        } catch (IOException e) {
+            progress.fail("Reading the input failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            progress.fail("Import was interrupted");
+        } finally {
+            // The pools outlive the import, so its chunks and writers are waited for even after a failure
+            chunks.acquireUninterruptibly(permits);
+            for (int i = 0; i < writers; i++) {
+                putUninterruptibly(queue, END);
+            }
+            awaitUninterruptibly(written);
+            progress.finish();
+        }
+        return progress.report();
+    }
+
+    private void submit(ExecutorService validation, Semaphore chunks, Chunk chunk, ShipReader reader,
+                        BlockingQueue<List<Ship>> queue, Progress progress) throws InterruptedException {
+        chunks.acquire();
+        validation.execute(() -> {
+            if (progress.failure != null) {
+                chunks.release();
+                return;
+            }
+            try {
+                List<Ship> valid = new ArrayList<>(chunk.size);
+                for (int i = 0; i < chunk.size; i++) {
+                    try {
+                        Ship ship = reader.parse(chunk.records[i]);
+                        shipService.prepareNewShip(ship);
+                        valid.add(ship);
+                    } catch (RuntimeException e) {
+                        progress.reject(chunk.lines[i], e.getMessage());
+                    }
+                }
+                progress.accepted.add(valid.size());
+                if (!valid.isEmpty()) {
+                    queue.put(valid);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                chunks.release();
+            }
+        });
+    }
+
+    // After a failed insert, even one failing with an Error, the writers keep draining the queue, so that no
+    // worker stays blocked on it
+    private void write(BlockingQueue<List<Ship>> queue, Progress progress, CountDownLatch written) {
+        try {
+            List<Ship> batch;
+            while ((batch = queue.take()) != END) {
+                if (progress.failure != null) {
+                    continue;
+                }
+                try {
+                    List<Ship> inserted = batch;
+                    shipRerater.write(() -> {
+                        // The workers may have rated it for the year before the re-rating job switched
+                        if (shipRerater.ratingYear() != progress.ratingYear) {
+                            inserted.forEach(shipService::prepareNewShip);
+                        }
+                        shipRepository.insertAll(inserted);
+                        progress.inserted.add(inserted.size());
+                        // Committed, listeners hear of every batch as they would of a batch create
+                        listeners.forEach(listener -> listener.shipsCreated(inserted));
+                        return null;
+                    });
+                } catch (Throwable e) {
+                    progress.fail("Writing to the database failed: " + e.getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            written.countDown();
+        }
+    }
+
+    private static <T> void putUninterruptibly(BlockingQueue<T> queue, T element) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(element);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Chunk {
+        private final long[] lines;
+        private final String[] records;
+        private int size;
+
+        private Chunk(int capacity) {
+            lines = new long[capacity];
+            records = new String[capacity];
+        }
+
+        private void add(long line, String record) {
+            lines[size] = line;
+            records[size++] = record;
+        }
+    }
+
+    private final class Progress {
+        private final long id;
+        private final ShipFormat format;
+        private final long started = System.nanoTime();
+        private final LongAdder records = new LongAdder();
+        private final LongAdder accepted = new LongAdder();
+        private final LongAdder inserted = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final List<ShipBatchError> errors = new ArrayList<>();
+        private volatile String failure;
+        private volatile long finished;
+        // The rating year when the import started
+        private final int ratingYear;
+
+        private Progress(long id, ShipFormat format, int ratingYear) {
+            this.id = id;
+            this.format = format;
+            this.ratingYear = ratingYear;
+        }
+
+        private void reject(long line, String message) {
+            rejected.increment();
+            synchronized (errors) {
+                if (errors.size() < maxErrors) {
+                    errors.add(new ShipBatchError((int) line, message));
+                }
+            }
+        }
+
+        private synchronized void fail(String message) {
+            if (failure == null) {
+                failure = message;
+            }
+        }
+
+        private void finish() {
+            finished = System.nanoTime();
+        }
+
+        private ShipImportReport report() {
+            long end = finished == 0 ? System.nanoTime() : finished;
+            String state = finished == 0 ? "RUNNING" : failure == null ? "DONE" : "FAILED";
+            List<ShipBatchError> errorsCopy;
+            synchronized (errors) {
+                errorsCopy = new ArrayList<>(errors);
+            }
+            return new ShipImportReport(id, format.name(), state, records.sum(), accepted.sum(), inserted.sum(),
+                    rejected.sum(), errorsCopy, failure, TimeUnit.NANOSECONDS.toMillis(end - started));
+        }
+    }
+}
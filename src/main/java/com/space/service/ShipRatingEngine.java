@@ -0,0 +1,71 @@
+package com.space.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+// Year extraction and two-decimal rounding for validation and rating, without allocating per call.
+// Results are identical to Calendar.get(YEAR) in the zone given here and to
+// BigDecimal.valueOf(x).setScale(2, HALF_UP).doubleValue(); inputs outside the fast paths fall back to those
+public class ShipRatingEngine {
+
+    private static final long AVERAGE_YEAR_MILLIS = 31_556_952_000L;
+    // Below this a double is less than 0.001 wide, so at most one three-decimal number, the tie, rounds to it
+    private static final double MAX_FAST_ROUND = 1e12;
+
+    private final TimeZone timeZone;
+    private final int firstYear;
+    // yearStarts[i] is the first millisecond of firstYear + i in the zone, the last entry ends the table
+    private final long[] yearStarts;
+
+    public ShipRatingEngine(ZoneId zone, int firstYear, int lastYear) {
+        this.timeZone = TimeZone.getTimeZone(zone);
+        this.firstYear = firstYear;
+        this.yearStarts = new long[lastYear - firstYear + 2];
+        for (int i = 0; i < yearStarts.length; i++) {
+            yearStarts[i] = LocalDate.of(firstYear + i, 1, 1).atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+    }
+
+    public int year(long millis) {
+        if (millis < yearStarts[0] || millis >= yearStarts[yearStarts.length - 1]) {
+            Calendar calendar = Calendar.getInstance(timeZone);
+            calendar.setTimeInMillis(millis);
+            return calendar.get(Calendar.YEAR);
+        }
+        // The average year length puts the guess at most one year off
+        int i = (int) Math.min(yearStarts.length - 2, (millis - yearStarts[0]) / AVERAGE_YEAR_MILLIS);
+        while (millis < yearStarts[i]) {
+            i--;
+        }
+        while (millis >= yearStarts[i + 1]) {
+            i++;
+        }
+        return firstYear + i;
+    }
+
+    public double rating(double speed, boolean used, int prodYear, int currentYear) {
+        return round2(80 * speed * (used ? 0.5 : 1) / (currentYear - prodYear + 1));
+    }
+
+    // BigDecimal.valueOf rounds the decimal printed by Double.toString. That decimal lies on the same side of
+    // a tie (n + 0.5) / 100 as the double itself, unless the tie is the nearest double to it, then it is the tie
+    public static double round2(double value) {
+        double magnitude = Math.abs(value);
+        if (!(magnitude < MAX_FAST_ROUND)) {
+            return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP).doubleValue();
+        }
+        long n = (long) (magnitude * 100);
+        if (magnitude >= (2 * n + 1) / 200.0) {
+            n++;
+        }
+        if (n == 0) {
+            return 0.0;
+        }
+        double rounded = n / 100.0;
+        return value < 0 ? -rounded : rounded;
+    }
+}
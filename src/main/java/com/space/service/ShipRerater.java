@@ -0,0 +1,403 @@
+package com.space.service;
+
+import com.space.model.RatingJobProgress;
+import com.space.model.Ship;
+import com.space.repository.ShipRepository;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Moves every stored rating to rating.currentYear in id ranges, one short transaction per chunk that writes the
+// new ratings into ship_rating_next and also commits the position in rating_job. After a crash or shutdown the next
+// start continues behind the last committed chunk. Searches keep reading the previous year's ratings until every
+// new one is computed. Then ships written since their chunk are rated again, the copying flag is committed while
+// no write is running, writes are rated for the new year from there on, and the ratings are copied into ship chunk
+// by chunk. From the flag on, reads take each rating through rating_job (Ship.resolvedRating): the new one from
+// ship_rating_next until the ship is copied or written, so searches see one year at any time. Reads that use the
+// stored ratings, or the indexes built from them, are waited for before the flag is committed
+@Service
+@DependsOn("flyway")
+public class ShipRerater implements InitializingBean, DisposableBean, ShipChangeListener {
+
+    @Autowired
+    ShipRepository shipRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    DataSource dataSource;
+    @Autowired(required = false)
+    List<ShipChangeListener> listeners = Collections.emptyList();
+    @Value("${rating.currentYear:3019}")
+    int currentYear;
+    @Value("${rating.rerate.chunkSize:1000}")
+    int chunkSize;
+    // 0 runs the chunks back to back
+    @Value("${rating.rerate.rowsPerSecond:5000}")
+    int rowsPerSecond;
+    // Resume an unfinished pass, or start one when the reference year was changed, on startup
+    @Value("${rating.rerate.autoStart:true}")
+    boolean autoStart;
+
+    private final ShipRatingEngine ratingEngine = new ShipRatingEngine(ZoneId.systemDefault(),
+            ShipServiceImpl.MIN_YEAR - 200, ShipServiceImpl.MIN_YEAR + 1000);
+    private JdbcTemplate jdbcTemplate;
+    private volatile Thread worker;
+    private volatile String failure;
+    // The reference year of the stored ratings, ships written by ShipService are rated for it
+    private volatile int ratingYear;
+    // The year the running pass rates for
+    private volatile int targetYear;
+    // Set from just before the copying flag is committed until the end of the copy
+    private volatile boolean resolving;
+    // Reads that started before resolving was set, they may still run on the stored ratings
+    private final AtomicInteger plainReads = new AtomicInteger();
+    // Whether the read running on this thread resolves the ratings, null outside of read
+    private final ThreadLocal<Boolean> resolves = new ThreadLocal<>();
+    // Guards writes and switching, writes wait while the copying flag is committed
+    private final Object gate = new Object();
+    private int writes;
+    private boolean switching;
+    // Ships written while a pass computes its ratings, the one in ship_rating_next may be for an older version
+    private final Set<Long> written = ConcurrentHashMap.newKeySet();
+    private volatile boolean recording;
+
+    @Override
+    public void afterPropertiesSet() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        shipsReloaded();
+        if (autoStart) {
+            start(false);
+        }
+    }
+
+    // Without restart an unfinished pass is resumed, and a new one only starts when the year has changed. A pass
+    // that is copying is always finished first, part of the stored ratings are already for its year
+    public synchronized RatingJobProgress start(boolean restart) {
+        if (worker != null && worker.isAlive()) {
+            return progress();
+        }
+        Integer target = jdbcTemplate.queryForObject("SELECT target_year FROM rating_job WHERE id = 1", Integer.class);
+        int reference = jdbcTemplate.queryForObject("SELECT reference_year FROM rating_job WHERE id = 1", Integer.class);
+        boolean copying = jdbcTemplate.queryForObject("SELECT copying FROM rating_job WHERE id = 1", Boolean.class);
+        if (!copying && (restart || (target == null ? reference != currentYear : target != currentYear))) {
+            jdbcTemplate.update("UPDATE rating_job SET target_year = ?, last_id = 0, updated = 0, started = ?, finished = NULL WHERE id = 1",
+                    currentYear, new Timestamp(System.currentTimeMillis()));
+            jdbcTemplate.update("DELETE FROM ship_rating_next");
+            target = currentYear;
+        } else if (target == null) {
+            return progress();
+        }
+        targetYear = target;
+        failure = null;
+        worker = new Thread(this::run, "rating-job");
+        worker.setDaemon(true);
+        worker.start();
+        return progress();
+    }
+
+    // Writes are validated against it too, so every ship can be rated for both years of a pass
+    public int validYear() {
+        return Math.min(ratingYear, currentYear);
+    }
+
+    public int ratingYear() {
+        return ratingYear;
+    }
+
+    // Runs a read, resolves() tells it whether ratings must be taken through rating_job. A nested read keeps the
+    // decision of the outer one, so a page and its count are for the same year
+    public <T> T read(Supplier<T> read) {
+        if (resolves.get() != null) {
+            return read.get();
+        }
+        plainReads.incrementAndGet();
+        boolean resolve = resolving;
+        if (resolve) {
+            plainReads.decrementAndGet();
+        }
+        resolves.set(resolve);
+        try {
+            return read.get();
+        } finally {
+            resolves.remove();
+            if (!resolve) {
+                plainReads.decrementAndGet();
+            }
+        }
+    }
+
+    // True within a read while the stored ratings may mix two years: filters and sorts use Ship.resolvedRating,
+    // the indexes and caches built from the stored column are not used
+    public boolean resolves() {
+        return Boolean.TRUE.equals(resolves.get());
+    }
+
+    // Runs a write that rates ships for ratingYear(), from the rating to the listeners, so that it is not
+    // stored next to ratings of the other year. Only waits while the copying flag is committed
+    public <T> T write(Supplier<T> write) {
+        synchronized (gate) {
+            boolean interrupted = false;
+            while (switching) {
+                try {
+                    gate.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            writes++;
+        }
+        try {
+            return write.get();
+        } finally {
+            synchronized (gate) {
+                if (--writes == 0) {
+                    gate.notifyAll();
+                }
+            }
+        }
+    }
+
+    public synchronized RatingJobProgress progress() {
+        return jdbcTemplate.queryForObject("SELECT reference_year, target_year, last_id, updated, started, finished, "
+                + "(SELECT COUNT(*) FROM ship WHERE id > last_id) FROM rating_job WHERE id = 1", (rs, row) -> {
+            Integer target = (Integer) rs.getObject(2);
+            String state = worker != null && worker.isAlive() ? "RUNNING" : failure != null ? "FAILED" : target != null ? "PAUSED" : "IDLE";
+            return new RatingJobProgress(rs.getInt(1), target, state, rs.getLong(3), rs.getLong(4),
+                    target == null ? 0 : rs.getLong(7), rs.getTimestamp(5), rs.getTimestamp(6), failure);
+        });
+    }
+
+    private void run() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        boolean copying = false;
+        try {
+            copying = jdbcTemplate.queryForObject("SELECT copying FROM rating_job WHERE id = 1", Boolean.class);
+            if (!copying) {
+                recording = true;
+                if (!compute(transaction) || !refresh(transaction)) {
+                    return;
+                }
+                resolving = true;
+                while (plainReads.get() > 0) {
+                    TimeUnit.MILLISECONDS.sleep(10);
+                }
+                switchYear(transaction);
+                copying = true;
+                listeners.forEach(ShipChangeListener::ratingsChanged);
+            }
+            if (!copy(transaction)) {
+                return;
+            }
+            transaction.execute(status -> {
+                jdbcTemplate.update("DELETE FROM ship_rating_next");
+                return jdbcTemplate.update("UPDATE rating_job SET reference_year = target_year, target_year = NULL, copying = FALSE, "
+                        + "finished = ? WHERE id = 1", new Timestamp(System.currentTimeMillis()));
+            });
+            resolving = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            failure = e.getMessage();
+        } finally {
+            recording = false;
+            written.clear();
+            // Unless the flag was committed, the stored ratings are still all of one year
+            if (!copying) {
+                resolving = false;
+            }
+        }
+    }
+
+    // Ships written after their chunk are rated again, once for the whole table, which also covers writes from
+    // before a restart, and then for the ships written during that scan. Returns false when interrupted
+    private boolean refresh(TransactionTemplate transaction) throws InterruptedException {
+        written.clear();
+        long lastId = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            long start = System.nanoTime();
+            long after = lastId;
+            long[] chunk = transaction.execute(status -> shipRepository.rerateStale(after, chunkSize, this::rating));
+            if (chunk == null) {
+                return true;
+            }
+            lastId = chunk[0];
+            throttle(chunk[1], start);
+        }
+        return false;
+    }
+
+    // No write runs while the rest of the written ships are rated again and the flag is committed, so none
+    // can rate a ship for the old year after it or leave it without a rating in ship_rating_next before it
+    private void switchYear(TransactionTemplate transaction) throws InterruptedException {
+        synchronized (gate) {
+            switching = true;
+        }
+        try {
+            synchronized (gate) {
+                while (writes > 0) {
+                    gate.wait();
+                }
+            }
+            List<Long> ids = new ArrayList<>(written);
+            for (int from = 0; from < ids.size(); from += chunkSize) {
+                List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+                transaction.execute(status -> shipRepository.rerateStale(chunk, this::rating));
+            }
+            transaction.execute(status -> jdbcTemplate.update("UPDATE rating_job SET copying = TRUE, last_id = 0 WHERE id = 1"));
+            ratingYear = targetYear;
+            recording = false;
+        } finally {
+            synchronized (gate) {
+                switching = false;
+                gate.notifyAll();
+            }
+        }
+    }
+
+    // Returns false when interrupted before every rating was computed
+    private boolean compute(TransactionTemplate transaction) throws InterruptedException {
+        while (!Thread.currentThread().isInterrupted()) {
+            long start = System.nanoTime();
+            // New position and ratings written
+            long[] chunk = transaction.execute(status -> {
+                // The row lock also keeps a second instance from working on the same pass
+                long lastId = jdbcTemplate.queryForObject("SELECT last_id FROM rating_job WHERE id = 1 FOR UPDATE", Long.class);
+                long[] result = shipRepository.rerateChunk(lastId, chunkSize, this::rating);
+                if (result != null) {
+                    jdbcTemplate.update("UPDATE rating_job SET last_id = ?, updated = updated + ? WHERE id = 1", result[0], result[1]);
+                }
+                return result;
+            });
+            if (chunk == null) {
+                return true;
+            }
+            throttle(chunk[1], start);
+        }
+        return false;
+    }
+
+    // Returns false when interrupted before every rating was copied
+    private boolean copy(TransactionTemplate transaction) throws InterruptedException {
+        while (!Thread.currentThread().isInterrupted()) {
+            long start = System.nanoTime();
+            CopiedChunk chunk = transaction.execute(status -> {
+                long lastId = jdbcTemplate.queryForObject("SELECT last_id FROM rating_job WHERE id = 1 FOR UPDATE", Long.class);
+                List<Long> ids = shipRepository.lockChunk((root, query, cb) -> null, lastId, chunkSize);
+                if (ids.isEmpty()) {
+                    return null;
+                }
+                List<Ship> previous = shipRepository.findRows(ids);
+                shipRepository.copyRatings(lastId, ids, this::rating);
+                jdbcTemplate.update("UPDATE rating_job SET last_id = ? WHERE id = 1", ids.get(ids.size() - 1));
+                return new CopiedChunk(previous, shipRepository.findRows(ids));
+            });
+            if (chunk == null) {
+                return true;
+            }
+            listeners.forEach(listener -> listener.shipsUpdated(chunk.previous, chunk.current));
+            throttle(chunk.current.size(), start);
+        }
+        return false;
+    }
+
+    private static class CopiedChunk {
+
+        private final List<Ship> previous;
+        private final List<Ship> current;
+
+        CopiedChunk(List<Ship> previous, List<Ship> current) {
+            this.previous = previous;
+            this.current = current;
+        }
+    }
+
+    // Same engine and rounding as ShipServiceImpl, not the database's DECIMAL arithmetic
+    private double rating(Ship ship) {
+        return ratingEngine.rating(ship.getSpeed(), ship.getUsed(), ratingEngine.year(ship.getProdDate().getTime()), targetYear);
+    }
+
+    private void throttle(long rows, long start) throws InterruptedException {
+        if (rowsPerSecond <= 0) {
+            return;
+        }
+        long pause = TimeUnit.SECONDS.toNanos(rows) / rowsPerSecond - (System.nanoTime() - start);
+        if (pause > 0) {
+            TimeUnit.NANOSECONDS.sleep(pause);
+        }
+    }
+
+    // Only the reference year and the copying flag are derived from the tables, fixtures may have replaced them.
+    // A running pass keeps its own state
+    @Override
+    public synchronized void shipsReloaded() {
+        if (worker != null && worker.isAlive()) {
+            return;
+        }
+        boolean copying = jdbcTemplate.queryForObject("SELECT copying FROM rating_job WHERE id = 1", Boolean.class);
+        ratingYear = jdbcTemplate.queryForObject("SELECT CASE WHEN copying THEN target_year ELSE reference_year END "
+                + "FROM rating_job WHERE id = 1", Integer.class);
+        resolving = copying;
+    }
+
+    @Override
+    public void shipCreated(Ship ship) {
+        if (recording) {
+            written.add(ship.getId());
+        }
+    }
+
+    @Override
+    public void shipsCreated(List<Ship> ships) {
+        if (recording) {
+            ships.forEach(ship -> written.add(ship.getId()));
+        }
+    }
+
+    @Override
+    public void shipUpdated(Ship previous, Ship current) {
+        if (recording) {
+            written.add(current.getId());
+        }
+    }
+
+    @Override
+    public void shipsUpdated(List<Ship> previous, List<Ship> current) {
+        if (recording) {
+            current.forEach(ship -> written.add(ship.getId()));
+        }
+    }
+
+    @Override
+    public void shipDeleted(Ship ship) {
+    }
+
+    // The position of the last committed chunk is kept, the next start resumes from there
+    @Override
+    public synchronized void destroy() throws InterruptedException {
+        if (worker != null) {
+            worker.interrupt();
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+}
@@ -1,20 +1,45 @@
 package com.space.service;
 
+import com.space.controller.ShipOrder;
 import com.space.model.Ship;
+import com.space.model.ShipBatchResult;
+import com.space.model.ShipPage;
+import com.space.model.ShipRow;
+import com.space.model.ShipSlice;
 import com.space.model.ShipType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.util.List;
+import java.util.function.Consumer;
+
 
 public interface ShipService {
 
-    Page<Ship> getAllShips(Specification<Ship> specification, Pageable pageable);
-    Long shipCount(Specification<Ship> specification);
+    Page<Ship> getAllShips(ShipFilter filter, Pageable pageable);
+    Long shipCount(ShipFilter filter);
+    ShipPage<Ship> search(ShipFilter filter, Pageable pageable);
+    ShipSlice<Ship> getShipsAfter(Specification<Ship> specification, ShipOrder order, ShipCursor cursor, int pageSize);
+    // Only the named fields (ShipRow.FIELDS) of each ship, read without loading entities
+    List<ShipRow> getShipRows(ShipFilter filter, Pageable pageable, List<String> fields);
+    ShipPage<ShipRow> searchRows(ShipFilter filter, Pageable pageable, List<String> fields);
+    ShipSlice<ShipRow> getShipRowsAfter(Specification<Ship> specification, ShipOrder order, ShipCursor cursor, int pageSize,
+                                        List<String> fields);
+    void exportShips(ShipFilter filter, ShipOrder order, Consumer<Ship> consumer);
     Ship getById(Long id);
     void createShip(Ship ship);
+    // Validates a ship that is about to be created and sets its rating, throws BadRequestException
+    void prepareNewShip(Ship ship);
+    ShipBatchResult createShips(List<Ship> ships);
     void deleteShip(Long id);
-    Ship updateShip(Long id, Ship ship);
+    // Throws ConflictException if the ship is not at expectedVersion or changed concurrently
+    Ship updateShip(Long id, Ship ship, Long expectedVersion);
+    // Applies the non-null fields in one UPDATE, throws ConflictException if the ship is not at expectedVersion
+    Ship patchShip(Long id, Ship changes, Long expectedVersion);
+    long deleteShips(ShipFilter filter);
+    long updateShips(ShipFilter filter, Ship changes);
+    void reindex();
     Specification<Ship> filterByName(String name);
     Specification<Ship> filterByPlanet(String planet);
     Specification<Ship> filterByDate(Long after, Long before);
@@ -23,6 +48,8 @@ public interface ShipService {
     Specification<Ship> filterByCrew(Integer minCrew, Integer maxCrew);
     Specification<Ship> filterByRating(Double minRating, Double maxRating);
     Specification<Ship> filterBySpeed(Double min, Double max);
+    Specification<Ship> filterByCursor(ShipCursor cursor);
+    Specification<Ship> filter(ShipFilter filter);
 
 
 }
@@ -1,42 +1,270 @@
 package com.space.service;
 
+import com.space.controller.ShipOrder;
+import com.space.cache.ShipSearchCache;
 import com.space.exception.BadRequestException;
+import com.space.exception.ConflictException;
 import com.space.exception.NotFoundIdException;
+import com.space.index.ShipBitmaps;
+import com.space.index.ShipColumns;
+import com.space.index.ShipCounters;
+import com.space.index.ShipKdTree;
+import com.space.index.TrigramIndex;
 import com.space.model.Ship;
+import com.space.model.ShipBatchError;
+import com.space.model.ShipBatchResult;
+import com.space.model.ShipPage;
+import com.space.model.ShipRow;
+import com.space.model.ShipSlice;
 import com.space.model.ShipType;
 import com.space.repository.ShipRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.repository.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
-
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.util.Calendar;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
 
 
 @Service
 public class ShipServiceImpl implements ShipService {
 
-    private static final int CURRENT_YEAR = 3019;
-    private static final int MIN_YEAR = 2800;
+    static final int MIN_YEAR = 2800;
+    private static final String RESOLVED_RATING = "resolvedRating";
     private static final double MIN_SPEED = 0.01;
     private static final double MAX_SPEED = 0.99;
     private static final int MIN_CREW_SIZE = 1;
     private static final int MAX_CREW_SIZE = 9999;
+    // Years outside the table still work, they just take the slower Calendar path
+    private final ShipRatingEngine ratingEngine = new ShipRatingEngine(ZoneId.systemDefault(), MIN_YEAR - 200, MIN_YEAR + 1000);
     @Autowired
     ShipRepository shipRepository;
+    @Autowired
+    TrigramIndex trigramIndex;
+    @Autowired
+    ShipSearchCache searchCache;
+    @Autowired
+    ShipCounters shipCounters;
+    @Autowired
+    ShipColumns shipColumns;
+    @Autowired
+    ShipBitmaps shipBitmaps;
+    @Autowired
+    ShipKdTree shipKdTree;
+    @Autowired(required = false)
+    List<ShipChangeListener> listeners = Collections.emptyList();
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    // Ratings are computed for its rating year, production years are valid up to its valid year
+    @Autowired
+    ShipRerater shipRerater;
+    @Value("${batch.maxShips:10000}")
+    int maxBatchShips;
+    @Value("${bulk.chunkSize:1000}")
+    int bulkChunkSize;
+    @Value("${export.fetchSize:1000}")
+    int exportFetchSize;
+
+    // The total comes from the cached count, so paging through one filter counts only once.
+    // The column store, when enabled, answers faster than the cache would be filled and bypasses it.
+    // Otherwise a filter the bitmaps or the k-d tree narrow to a few candidates is queried by their ids.
+    // While the re-rating job copies ratings they all hold stored ratings of two years, only the table is queried
+    @Override
+    public Page<Ship> getAllShips(ShipFilter filter, Pageable pageable) {
+        return shipRerater.read(() -> {
+            if (shipRerater.resolves()) {
+                List<Ship> items = shipRepository.findContent(filter(filter), resolve(pageable));
+                return PageableExecutionUtils.getPage(items, pageable, () -> shipCount(filter));
+            }
+            return findAllShips(filter, pageable);
+        });
+    }
+
+    private Page<Ship> findAllShips(ShipFilter filter, Pageable pageable) {
+        List<Ship> scanned = shipColumns.find(filter, order(pageable.getSort()), pageable.getOffset(), pageable.getPageSize());
+        if (scanned != null) {
+            return PageableExecutionUtils.getPage(scanned, pageable, () -> shipCount(filter));
+        }
+        return searchCache.page(filter, pageable, () -> {
+            List<Ship> items = shipRepository.findContent(filter(filter).and(filterByIds(candidates(filter))), pageable);
+            return PageableExecutionUtils.getPage(items, pageable, () -> shipCount(filter));
+        });
+    }
+
+    @Override
+    public Long shipCount(ShipFilter filter) {
+        return shipRerater.read(() -> countShips(filter));
+    }
 
+    // The counters never answer a rating filter, so they can also be used while the job copies ratings
+    private Long countShips(ShipFilter filter) {
+        Long counted = shipCounters.count(filter);
+        if (counted != null) {
+            return counted;
+        }
+        if (shipRerater.resolves()) {
+            return shipRepository.count(filter(filter));
+        }
+        counted = shipBitmaps.count(filter, ids -> shipRepository.count(filter(filter).and(filterByIds(ids))));
+        if (counted != null) {
+            return counted;
+        }
+        counted = shipKdTree.count(filter);
+        if (counted != null) {
+            return counted;
+        }
+        counted = shipColumns.count(filter);
+        if (counted != null) {
+            return counted;
+        }
+        return searchCache.count(filter, () -> shipRepository.count(filter(filter)));
+    }
+
+    private long[] candidates(ShipFilter filter) {
+        long[] candidates = shipBitmaps.candidates(filter);
+        return candidates != null ? candidates : shipKdTree.candidates(filter);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ShipPage<Ship> search(ShipFilter filter, Pageable pageable) {
+        return shipRerater.read(() -> {
+            Page<Ship> page = getAllShips(filter, pageable);
+            return new ShipPage<>(page.getContent(), page.getTotalElements(), pageable.getPageNumber(), pageable.getPageSize());
+        });
+    }
 
+    // Projections read the requested columns straight into rows, past the entity and page caches
     @Override
-    public Page<Ship> getAllShips(Specification<Ship> specification, Pageable pageable) {
-        return shipRepository.findAll(specification, pageable);
+    public List<ShipRow> getShipRows(ShipFilter filter, Pageable pageable, List<String> fields) {
+        return shipRerater.read(() -> rows(shipRepository.findFields(filter(filter), resolve(pageable), resolve(fields)), fields));
     }
+
     @Override
-    public Long shipCount(Specification<Ship> specification) {
-        return shipRepository.count(specification);
+    public ShipPage<ShipRow> searchRows(ShipFilter filter, Pageable pageable, List<String> fields) {
+        return shipRerater.read(() -> new ShipPage<>(getShipRows(filter, pageable, fields), shipCount(filter),
+                pageable.getPageNumber(), pageable.getPageSize()));
+    }
+
+    // The cursor needs the id and the order attribute, they are selected behind the requested fields when missing
+    @Override
+    public ShipSlice<ShipRow> getShipRowsAfter(Specification<Ship> specification, ShipOrder order, ShipCursor cursor, int pageSize,
+                                               List<String> fields) {
+        return shipRerater.read(() -> findShipRowsAfter(specification, order, cursor, pageSize, fields));
+    }
+
+    private ShipSlice<ShipRow> findShipRowsAfter(Specification<Ship> specification, ShipOrder order, ShipCursor cursor, int pageSize,
+                                                 List<String> fields) {
+        List<String> attributes = new ArrayList<>(fields);
+        for (String attribute : new String[]{ShipOrder.ID.getFieldName(), order.getFieldName()}) {
+            if (!attributes.contains(attribute)) {
+                attributes.add(attribute);
+            }
+        }
+        List<Object[]> values = shipRepository.findFields(
+                specification.and(filterByCursor(cursor)), PageRequest.of(0, pageSize + 1, sort(order)), resolve(attributes));
+        if (values.size() <= pageSize) {
+            return new ShipSlice<>(rows(values, fields), null);
+        }
+        values = values.subList(0, pageSize);
+        Object[] last = values.get(pageSize - 1);
+        long id = ((Number) last[attributes.indexOf(ShipOrder.ID.getFieldName())]).longValue();
+        ShipCursor next = ShipCursor.after(last[attributes.indexOf(order.getFieldName())], id, order);
+        return new ShipSlice<>(rows(values, fields), next.encode());
+    }
+
+    private static List<ShipRow> rows(List<Object[]> values, List<String> fields) {
+        String[] names = fields.toArray(new String[0]);
+        List<ShipRow> rows = new ArrayList<>(values.size());
+        values.forEach(row -> rows.add(new ShipRow(names, row)));
+        return rows;
+    }
+
+    @Override
+    public ShipSlice<Ship> getShipsAfter(Specification<Ship> specification, ShipOrder order, ShipCursor cursor, int pageSize) {
+        // One extra row tells whether there is a next page without a count query
+        List<Ship> items = shipRerater.read(() -> shipRepository.findContent(
+                specification.and(filterByCursor(cursor)), PageRequest.of(0, pageSize + 1, sort(order))));
+        if (items.size() <= pageSize) {
+            return new ShipSlice<>(items, null);
+        }
+        items = items.subList(0, pageSize);
+        return new ShipSlice<>(items, ShipCursor.after(items.get(pageSize - 1), order).encode());
+    }
+
+    // Null for sorts that no ShipOrder describes
+    private static ShipOrder order(Sort sort) {
+        if (sort.isUnsorted()) {
+            return ShipOrder.ID;
+        }
+        Sort.Order first = sort.iterator().next();
+        for (ShipOrder order : ShipOrder.values()) {
+            if (first.isAscending() && order.getFieldName().equals(first.getProperty())) {
+                return order;
+            }
+        }
+        return null;
+    }
+
+    // Ties are broken by id so that the order is total
+    private Sort sort(ShipOrder order) {
+        Sort sort = Sort.by(Sort.Direction.ASC, resolve(order.getFieldName()));
+        if (order != ShipOrder.ID) {
+            sort = sort.and(Sort.by(Sort.Direction.ASC, ShipOrder.ID.getFieldName()));
+        }
+        return sort;
+    }
+
+    // Within a read that resolves ratings, the rating attribute is the one taken through rating_job
+    private String resolve(String attribute) {
+        return shipRerater.resolves() && attribute.equals(ShipOrder.RATING.getFieldName()) ? RESOLVED_RATING : attribute;
+    }
+
+    private List<String> resolve(List<String> attributes) {
+        if (!shipRerater.resolves()) {
+            return attributes;
+        }
+        List<String> resolved = new ArrayList<>(attributes.size());
+        attributes.forEach(attribute -> resolved.add(resolve(attribute)));
+        return resolved;
+    }
+
+    private Pageable resolve(Pageable pageable) {
+        if (!shipRerater.resolves() || pageable.getSort().getOrderFor(ShipOrder.RATING.getFieldName()) == null) {
+            return pageable;
+        }
+        List<Sort.Order> orders = new ArrayList<>();
+        pageable.getSort().forEach(order -> orders.add(order.withProperty(resolve(order.getProperty()))));
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by(orders));
+    }
+
+    @Override
+    public void exportShips(ShipFilter filter, ShipOrder order, Consumer<Ship> consumer) {
+        shipRerater.read(() -> {
+            shipRepository.scroll(filter(filter), sort(order), exportFetchSize, consumer);
+            return null;
+        });
     }
 
     @Override
@@ -44,11 +272,58 @@ public class ShipServiceImpl implements ShipService {
         if (id <= 0) {
             throw new BadRequestException("ID bellow zero");
         }
-        return shipRepository.findById(id).orElseThrow(() -> new NotFoundIdException("Ship with current id not found"));
+        return shipRerater.read(() -> shipRerater.resolves() ? shipRepository.findUncached(id) : shipRepository.findById(id))
+                .orElseThrow(() -> new NotFoundIdException("Ship with current id not found"));
     }
 
     @Override
     public void createShip(Ship ship) {
+        shipRerater.write(() -> {
+            prepareNewShip(ship);
+            shipRepository.saveAndFlush(ship);
+            listeners.forEach(listener -> listener.shipCreated(ship));
+            return null;
+        });
+    }
+
+    // All ships are validated before anything is written, one invalid ship rejects the whole batch
+    @Override
+    public ShipBatchResult createShips(List<Ship> ships) {
+        if (ships == null || ships.isEmpty()) {
+            throw new BadRequestException("Batch is empty");
+        }
+        if (ships.size() > maxBatchShips) {
+            throw new BadRequestException("Batch is larger than " + maxBatchShips + " ships");
+        }
+        return shipRerater.write(() -> insertShips(ships));
+    }
+
+    private ShipBatchResult insertShips(List<Ship> ships) {
+        List<ShipBatchError> errors = new ArrayList<>();
+        for (int i = 0; i < ships.size(); i++) {
+            try {
+                if (ships.get(i) == null) {
+                    throw new BadRequestException("Ship is null");
+                }
+                prepareNewShip(ships.get(i));
+            } catch (BadRequestException e) {
+                errors.add(new ShipBatchError(i, e.getMessage()));
+            }
+        }
+        if (!errors.isEmpty()) {
+            return new ShipBatchResult(Collections.emptyList(), errors);
+        }
+        shipRepository.insertAll(ships);
+        listeners.forEach(listener -> listener.shipsCreated(ships));
+        List<Long> ids = new ArrayList<>(ships.size());
+        for (Ship ship : ships) {
+            ids.add(ship.getId());
+        }
+        return new ShipBatchResult(ids, errors);
+    }
+
+    @Override
+    public void prepareNewShip(Ship ship) {
         checkLengthNameAndPlanet(ship.getName());
         checkLengthNameAndPlanet(ship.getPlanet());
         checkCrewSize(ship.getCrewSize());
@@ -58,19 +333,71 @@ public class ShipServiceImpl implements ShipService {
             ship.setUsed(false);
         }
         ship.setRating(calculateRating(ship.getSpeed(), ship.getUsed(), ship.getProdDate()));
-        shipRepository.saveAndFlush(ship);
     }
 
     @Override
     public void deleteShip(Long id) {
         Ship ship = getById(id);
         shipRepository.delete(ship);
+        listeners.forEach(listener -> listener.shipDeleted(ship));
     }
 
+    // The merge checks the version the ship was read with, a change committed in between fails it
     @Override
-    public Ship updateShip(Long id, Ship newShip) {
+    public Ship updateShip(Long id, Ship newShip, Long expectedVersion) {
+        return shipRerater.write(() -> saveShip(id, newShip, expectedVersion));
+    }
+
+    private Ship saveShip(Long id, Ship newShip, Long expectedVersion) {
         Ship baseShip = getById(id);
+        if (expectedVersion != null && !expectedVersion.equals(baseShip.getVersion())) {
+            throw new ConflictException();
+        }
+        Ship previous = new Ship(baseShip);
+        applyChanges(baseShip, newShip);
+        Ship result;
+        try {
+            result = shipRepository.saveAndFlush(baseShip);
+        } catch (OptimisticLockingFailureException e) {
+            throw new ConflictException();
+        }
+        listeners.forEach(listener -> listener.shipUpdated(previous, result));
+        return result;
+    }
+
+    // A single UPDATE of the supplied columns that only matches the version the ship was read with, so nothing
+    // is locked between the read and the write. The read normally comes from the entity cache: the response, the
+    // listeners and a rating with only some of its inputs supplied need the rest of the row, which MySQL can not
+    // return from the UPDATE. A ship changed since it was cached is read again once when no version was given
+    @Override
+    public Ship patchShip(Long id, Ship changes, Long expectedVersion) {
+        return shipRerater.write(() -> patch(id, changes, expectedVersion));
+    }
+
+    private Ship patch(Long id, Ship changes, Long expectedVersion) {
+        for (int attempt = 0; ; attempt++) {
+            Ship previous = getById(id);
+            if (expectedVersion != null && !expectedVersion.equals(previous.getVersion())) {
+                throw new ConflictException();
+            }
+            Ship current = new Ship(previous);
+            applyChanges(current, changes);
+            if (shipRepository.updateIfVersion(current, changes, previous.getVersion()) == 1) {
+                current.setVersion(previous.getVersion() + 1);
+                listeners.forEach(listener -> listener.shipUpdated(previous, current));
+                return current;
+            }
+            if (expectedVersion != null || attempt > 0) {
+                if (!shipRepository.existsById(id)) {
+                    throw new NotFoundIdException("Ship with current id not found");
+                }
+                throw new ConflictException();
+            }
+        }
+    }
 
+    // Validates and copies the non-null fields of changes, then recomputes the rating
+    private void applyChanges(Ship baseShip, Ship newShip) {
         if (newShip.getName() != null) {
             checkLengthNameAndPlanet(newShip.getName());
             baseShip.setName(newShip.getName());
@@ -104,25 +431,112 @@ public class ShipServiceImpl implements ShipService {
             baseShip.setCrewSize(newShip.getCrewSize());
         }
         baseShip.setRating(calculateRating(baseShip.getSpeed(), baseShip.getUsed(), baseShip.getProdDate()));
-        return shipRepository.saveAndFlush(baseShip);
     }
 
-    private Double calculateRating(Double speed, Boolean isUsed, Date prodDate) {
-        double result = 80 * speed * (Boolean.TRUE.equals(isUsed) ? 0.5 : 1) / (CURRENT_YEAR - convertCalendarToInt(prodDate) + 1);
-        return  BigDecimal.valueOf(result).setScale(2, RoundingMode.HALF_UP).doubleValue();
+    @Override
+    public long deleteShips(ShipFilter filter) {
+        return bulk(filter, shipRepository::deleteByIds, true);
+    }
+
+    @Override
+    public long updateShips(ShipFilter filter, Ship changes) {
+        if (changes.getName() == null && changes.getPlanet() == null && changes.getShipType() == null
+                && changes.getProdDate() == null && changes.getUsed() == null
+                && changes.getSpeed() == null && changes.getCrewSize() == null) {
+            throw new BadRequestException("Nothing to update");
+        }
+        if (changes.getName() != null) {
+            checkLengthNameAndPlanet(changes.getName());
+        }
+        if (changes.getPlanet() != null) {
+            checkLengthNameAndPlanet(changes.getPlanet());
+        }
+        if (changes.getProdDate() != null) {
+            checkProdDate(changes.getProdDate());
+        }
+        if (changes.getSpeed() != null) {
+            checkSpeed(changes.getSpeed());
+        }
+        if (changes.getCrewSize() != null) {
+            checkCrewSize(changes.getCrewSize());
+        }
+        return bulk(filter, ids -> shipRepository.updateByIds(ids, changes,
+                ship -> calculateRating(ship.getSpeed(), ship.getUsed(), ship.getProdDate())), false);
     }
 
-    private int convertCalendarToInt(Date prodDate) {
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTimeInMillis(prodDate.getTime());
-        return calendar.get(Calendar.YEAR);
+    // One short transaction per chunk of ids, so a large bulk operation never holds many row locks at once.
+    // Listeners hear of each chunk once it has committed, also when a later chunk fails
+    private long bulk(ShipFilter filter, ToIntFunction<List<Long>> statement, boolean deletes) {
+        if (filter.isEmpty()) {
+            throw new BadRequestException("Bulk operations need at least one filter");
+        }
+        Specification<Ship> specification = filter(filter);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        long affected = 0;
+        long lastId = 0;
+        while (true) {
+            long after = lastId;
+            // Each chunk on its own, a long bulk update does not hold up the re-rating job
+            BulkChunk chunk = shipRerater.write(() -> {
+                BulkChunk written = transaction.execute(status -> {
+                    List<Long> ids = shipRepository.lockChunk(specification, after, bulkChunkSize);
+                    if (ids.isEmpty()) {
+                        return null;
+                    }
+                    BulkChunk locked = new BulkChunk(ids, shipRepository.findRows(ids));
+                    locked.affected = statement.applyAsInt(ids);
+                    locked.current = deletes ? null : shipRepository.findRows(ids);
+                    return locked;
+                });
+                if (written == null) {
+                    return null;
+                }
+                if (deletes) {
+                    listeners.forEach(listener -> listener.shipsDeleted(written.previous));
+                } else {
+                    listeners.forEach(listener -> listener.shipsUpdated(written.previous, written.current));
+                }
+                return written;
+            });
+            if (chunk == null) {
+                return affected;
+            }
+            affected += chunk.affected;
+            lastId = chunk.ids.get(chunk.ids.size() - 1);
+            if (chunk.ids.size() < bulkChunkSize) {
+                return affected;
+            }
+        }
+    }
+
+    private static class BulkChunk {
+
+        private final List<Long> ids;
+        private final List<Ship> previous;
+        private List<Ship> current;
+        private int affected;
+
+        BulkChunk(List<Long> ids, List<Ship> previous) {
+            this.ids = ids;
+            this.previous = previous;
+        }
+    }
+
+    @Override
+    public void reindex() {
+        listeners.forEach(ShipChangeListener::shipsReloaded);
+    }
+
+    private Double calculateRating(Double speed, Boolean isUsed, Date prodDate) {
+        return ratingEngine.rating(speed, Boolean.TRUE.equals(isUsed), ratingEngine.year(prodDate.getTime()), shipRerater.ratingYear());
     }
 
     private void checkProdDate(Date prodDate) {
         if (prodDate == null) {
             throw new BadRequestException("Production date is null");
         }
-        if (convertCalendarToInt(prodDate) < MIN_YEAR || convertCalendarToInt(prodDate) > CURRENT_YEAR) {
+        int year = ratingEngine.year(prodDate.getTime());
+        if (year < MIN_YEAR || year > shipRerater.validYear()) {
             throw new BadRequestException("Production date out of range");
         }
     }
@@ -131,7 +545,7 @@ public class ShipServiceImpl implements ShipService {
         if (speed == null) {
             throw new BadRequestException("Speed should not been NULL");
         }
-        double speedScale = BigDecimal.valueOf(speed).setScale(2, RoundingMode.HALF_UP).doubleValue();
+        double speedScale = ShipRatingEngine.round2(speed);
         if (speedScale < MIN_SPEED || speedScale > MAX_SPEED) {
             throw new BadRequestException("Speed has incorrect value (expected: 0,01...0,99)");
         }
@@ -151,12 +565,36 @@ public class ShipServiceImpl implements ShipService {
 
     @Override
     public Specification<Ship> filterByName(String name) {
-        return (root, query, cb) -> name == null ? null : cb.like(root.get("name"), "%" + name + "%");
+        return (root, query, cb) -> name == null ? null : substring(root, cb, "name", name, trigramIndex.nameCandidates(name));
     }
 
     @Override
     public Specification<Ship> filterByPlanet(String planet) {
-        return (root, query, cb) -> planet == null ? null : cb.like(root.get("planet"), "%" + planet + "%");
+        return (root, query, cb) -> planet == null ? null : substring(root, cb, "planet", planet, trigramIndex.planetCandidates(planet));
+    }
+
+    // The trigram candidates narrow the scan to a few ids, LIKE still decides the exact match
+    private Predicate substring(Root<Ship> root, CriteriaBuilder cb, String field, String value, long[] candidates) {
+        Predicate like = cb.like(root.get(field), "%" + value + "%");
+        if (candidates == null) {
+            return like;
+        }
+        if (candidates.length == 0) {
+            return cb.disjunction();
+        }
+        return cb.and(root.get("id").in(Arrays.stream(candidates).boxed().toArray()), like);
+    }
+
+    private static Specification<Ship> filterByIds(long[] ids) {
+        return (root, query, cb) -> {
+            if (ids == null) {
+                return null;
+            }
+            if (ids.length == 0) {
+                return cb.disjunction();
+            }
+            return root.get("id").in(Arrays.stream(ids).boxed().toArray());
+        };
     }
 
     @Override
@@ -216,12 +654,12 @@ public class ShipServiceImpl implements ShipService {
                 return null;
             }
             if (minRating == null) {
-                return cb.lessThanOrEqualTo(root.get("rating"), maxRating);
+                return cb.lessThanOrEqualTo(root.get(resolve("rating")), maxRating);
             }
             if (maxRating == null) {
-                return cb.greaterThanOrEqualTo(root.get("rating"), minRating);
+                return cb.greaterThanOrEqualTo(root.get(resolve("rating")), minRating);
             }
-            return cb.between(root.get("rating"), minRating, maxRating);
+            return cb.between(root.get(resolve("rating")), minRating, maxRating);
         };
     }
 
@@ -244,5 +682,50 @@ public class ShipServiceImpl implements ShipService {
         };
     }
 
+    @Override
+    public Specification<Ship> filterByCursor(ShipCursor cursor) {
+        return (root, query, cb) -> {
+            if (cursor == null) {
+                return null;
+            }
+            switch (cursor.getOrder()) {
+                case SPEED:
+                    return seek(root, cb, "speed", cursor.getNumberValue(), cursor.getId());
+                case DATE:
+                    return seek(root, cb, "prodDate", cursor.getDateValue(), cursor.getId());
+                case RATING:
+                    return seek(root, cb, resolve("rating"), cursor.getNumberValue(), cursor.getId());
+                default:
+                    return cb.greaterThan(root.get("id"), cursor.getId());
+            }
+        };
+    }
+
+    // MySQL and H2 sort NULL before every value in ascending order, so rows without a value come first
+    private <T extends Comparable<? super T>> Predicate seek(Root<Ship> root, CriteriaBuilder cb, String field, T value, long id) {
+        Expression<T> path = root.get(field);
+        if (value == null) {
+            return cb.or(
+                    cb.isNotNull(path),
+                    cb.and(cb.isNull(path), cb.greaterThan(root.get("id"), id)));
+        }
+        return cb.or(
+                cb.greaterThan(path, value),
+                cb.and(cb.equal(path, value), cb.greaterThan(root.get("id"), id)));
+    }
+
+    @Override
+    public Specification<Ship> filter(ShipFilter filter) {
+        return Specification
+                .where(filterByName(filter.getName()))
+                .and(filterByPlanet(filter.getPlanet()))
+                .and(filterByShipType(filter.getShipType()))
+                .and(filterByDate(filter.getAfter(), filter.getBefore()))
+                .and(filterByIsUsed(filter.getUsed()))
+                .and(filterByRating(filter.getMinRating(), filter.getMaxRating()))
+                .and(filterByCrew(filter.getMinCrewSize(), filter.getMaxCrewSize()))
+                .and(filterBySpeed(filter.getMinSpeed(), filter.getMaxSpeed()));
+    }
+
 
 }
@@ -0,0 +1,12 @@
+-- Equality filters (shipType, isUsed) first, then the production date range.
+-- Also serves count queries filtered by type and/or usage.
+CREATE INDEX ix_ship_type_used_date ON ship (shipType, isUsed, prodDate);
+
+-- One index per ShipOrder sort column, each also serving the range filter on that column.
+-- InnoDB appends the primary key to secondary indexes, so these are effectively
+-- (column, id) and match the keyset pagination sort as well.
+CREATE INDEX ix_ship_prod_date ON ship (prodDate);
+CREATE INDEX ix_ship_speed ON ship (speed);
+CREATE INDEX ix_ship_rating ON ship (rating);
+
+CREATE INDEX ix_ship_crew_size ON ship (crewSize);
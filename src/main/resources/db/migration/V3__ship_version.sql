@@ -0,0 +1,2 @@
+-- Row version for optimistic locking and entity ETags, bumped by every update.
+ALTER TABLE ship ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,15 @@
+-- Single row tracking which reference year the stored ratings were computed for, and the progress of
+-- the re-rating job while it moves them to target_year. Progress is committed with every chunk.
+CREATE TABLE rating_job
+(
+    id             INT       NOT NULL,
+    reference_year INT       NOT NULL,
+    target_year    INT       NULL,
+    last_id        BIGINT    NOT NULL DEFAULT 0,
+    updated        BIGINT    NOT NULL DEFAULT 0,
+    started        TIMESTAMP NULL,
+    finished       TIMESTAMP NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO rating_job (id, reference_year) VALUES (1, 3019);
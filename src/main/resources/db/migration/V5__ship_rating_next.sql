@@ -0,0 +1,10 @@
+-- Ratings the re-rating job computed for its target year, with the ship version they were computed from.
+-- Searches ignore them until rating_job.copying (V6) is set. From then on a rating here is read in place of
+-- the stored one while its version matches the ship, and the job copies them into ship one chunk at a time.
+CREATE TABLE ship_rating_next
+(
+    id      BIGINT NOT NULL,
+    rating  DOUBLE NOT NULL,
+    version BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
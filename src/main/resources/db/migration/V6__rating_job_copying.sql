@@ -0,0 +1,3 @@
+-- Set once every rating of the target year is in ship_rating_next. From then on writes are rated for
+-- target_year and the job copies the ratings into ship from last_id on, one chunk per transaction.
+ALTER TABLE rating_job ADD COLUMN copying BOOLEAN NOT NULL DEFAULT FALSE;
@@ -0,0 +1,93 @@
+package com.space.benchmark;
+
+import com.space.index.ShipBitmaps;
+import com.space.index.ShipColumns;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.service.ShipFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// /count answered by ShipBitmaps and by a ShipColumns scan over the same generated catalog: type, isUsed and a
+// range of years, and three ranges on bucket bounds. The refined count has bounds inside buckets and counts
+// its candidates with a no-op, so it measures the bitmap side of a count that goes on to the database
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class BitmapCountBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int ships;
+
+    private final ShipBitmaps bitmaps = new ShipBitmaps(true, Integer.MAX_VALUE);
+    private final ShipColumns columns = new ShipColumns(true);
+    private final ShipFilter typeAndYears = new ShipFilter(null, null, ShipType.MILITARY, millis(2900), millis(3000) - 1, true,
+            null, null, null, null, null, null);
+    private final ShipFilter ranges = new ShipFilter(null, null, null, null, null, null,
+            0.3, 0.6, 100, 4000, null, 5.0);
+    private final ShipFilter refined = new ShipFilter(null, null, null, null, null, null,
+            0.305, 0.6, 150, 4000, null, 5.5);
+
+    private static long millis(int year) {
+        return LocalDate.of(year, 1, 1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        ShipType[] types = ShipType.values();
+        for (int i = 0; i < ships; i++) {
+            Ship ship = new Ship("Ship " + random.nextInt(100_000), "Planet " + random.nextInt(50), types[random.nextInt(types.length)],
+                    new Date(26192246400000L + (long) random.nextInt(1_000_000) * 1_000_000L), random.nextBoolean(),
+                    random.nextInt(99) / 100.0 + 0.01, random.nextInt(9999) + 1, random.nextInt(8000) / 100.0);
+            ship.setId((long) i + 1);
+            bitmaps.shipCreated(ship);
+            columns.shipCreated(ship);
+        }
+        System.out.println();
+        System.out.println(bitmaps.statistics().getBytes() + " bytes of bitmaps for " + ships + " ships");
+    }
+
+    @Benchmark
+    public Long bitmapTypeAndYears() {
+        return bitmaps.count(typeAndYears, ids -> 0);
+    }
+
+    @Benchmark
+    public Long columnTypeAndYears() {
+        return columns.count(typeAndYears);
+    }
+
+    @Benchmark
+    public Long bitmapRanges() {
+        return bitmaps.count(ranges, ids -> 0);
+    }
+
+    @Benchmark
+    public Long columnRanges() {
+        return columns.count(ranges);
+    }
+
+    @Benchmark
+    public Long bitmapRefined() {
+        return bitmaps.count(refined, ids -> ids.length);
+    }
+}
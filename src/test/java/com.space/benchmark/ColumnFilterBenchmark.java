@@ -0,0 +1,65 @@
+package com.space.benchmark;
+
+import com.space.index.ShipColumns;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.service.ShipFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Rows per second and core of a ShipColumns count over a million generated ships, one thread. Each operation
+// is a row: wide speed and rating ranges plus isUsed, which pass about a third of the rows and so defeat
+// branch prediction, and a narrow crew range that rejects almost every row
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@OperationsPerInvocation(ColumnFilterBenchmark.SHIPS)
+public class ColumnFilterBenchmark {
+
+    static final int SHIPS = 1_000_000;
+
+    private final ShipColumns columns = new ShipColumns(true);
+    private final ShipFilter wide = new ShipFilter(null, null, null, null, null, true,
+            0.1, 0.9, null, null, 5.0, 60.0);
+    private final ShipFilter narrow = new ShipFilter(null, null, null, null, null, null,
+            null, null, 5000, 5010, null, null);
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        ShipType[] types = ShipType.values();
+        for (int i = 0; i < SHIPS; i++) {
+            Ship ship = new Ship("Ship " + random.nextInt(100_000), "Planet " + random.nextInt(50), types[random.nextInt(types.length)],
+                    new Date(26192246400000L + (long) random.nextInt(1_000_000) * 1_000_000L), random.nextBoolean(),
+                    random.nextInt(99) / 100.0 + 0.01, random.nextInt(9999) + 1, random.nextInt(8000) / 100.0);
+            ship.setId((long) i + 1);
+            columns.shipCreated(ship);
+        }
+    }
+
+    @Benchmark
+    public Long wideRanges() {
+        return columns.count(wide);
+    }
+
+    @Benchmark
+    public Long narrowRange() {
+        return columns.count(narrow);
+    }
+}
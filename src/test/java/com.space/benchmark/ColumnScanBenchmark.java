@@ -0,0 +1,73 @@
+package com.space.benchmark;
+
+import com.space.controller.ShipOrder;
+import com.space.index.ShipColumns;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.service.ShipFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// List pages and counts answered by ShipColumns over a generated catalog: a count with three range bounds,
+// the first page by rating of a type and range filter, and the first page by id of a substring filter
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class ColumnScanBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int ships;
+
+    private final ShipColumns columns = new ShipColumns(true);
+    private final ShipFilter ranges = new ShipFilter(null, null, null, null, null, null,
+            0.3, 0.6, 100, 4000, null, 5.0);
+    private final ShipFilter typeAndRange = new ShipFilter(null, null, ShipType.MILITARY, null, null, true,
+            0.5, null, null, null, null, null);
+    private final ShipFilter name = new ShipFilter("77", null, null, null, null, null,
+            null, null, null, null, null, null);
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        ShipType[] types = ShipType.values();
+        for (int i = 0; i < ships; i++) {
+            Ship ship = new Ship("Ship " + random.nextInt(100_000), "Planet " + random.nextInt(50), types[random.nextInt(types.length)],
+                    new Date(26192246400000L + (long) random.nextInt(1_000_000) * 1_000_000L), random.nextBoolean(),
+                    random.nextInt(99) / 100.0 + 0.01, random.nextInt(9999) + 1, random.nextInt(8000) / 100.0);
+            ship.setId((long) i + 1);
+            columns.shipCreated(ship);
+        }
+    }
+
+    @Benchmark
+    public Long countRanges() {
+        return columns.count(ranges);
+    }
+
+    @Benchmark
+    public List<Ship> topByRating() {
+        return columns.find(typeAndRange, ShipOrder.RATING, 0, 20);
+    }
+
+    @Benchmark
+    public List<Ship> firstPageByName() {
+        return columns.find(name, ShipOrder.ID, 0, 20);
+    }
+}
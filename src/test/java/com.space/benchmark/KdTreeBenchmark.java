@@ -0,0 +1,126 @@
+package com.space.benchmark;
+
+import com.space.index.KdTreeStatistics;
+import com.space.index.ShipColumns;
+import com.space.index.ShipKdTree;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.service.ShipFilter;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// A count bounding speed, crew size, rating and production date at once, answered by ShipKdTree, by a
+// ShipColumns scan and by H2 over the migrated schema plus a composite index on the four columns.
+// The tree statistics printed after each trial tell how many ships a query compared on average
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class KdTreeBenchmark {
+
+    private static final String COUNT = "SELECT COUNT(*) FROM ship WHERE speed BETWEEN ? AND ? AND crewSize BETWEEN ? AND ?"
+            + " AND rating BETWEEN ? AND ? AND prodDate BETWEEN ? AND ?";
+
+    @Param({"100000", "1000000"})
+    private int ships;
+
+    private final ShipKdTree tree = new ShipKdTree(true, 1000);
+    private final ShipColumns columns = new ShipColumns(true);
+    private final LocalDate after = LocalDate.of(2805, 1, 1);
+    private final LocalDate before = LocalDate.of(2820, 12, 31);
+    private final ShipFilter box = new ShipFilter(null, null, null, millis(after), millis(before), null,
+            0.3, 0.5, 2000, 4000, 10.0, 30.0);
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+
+    private static long millis(LocalDate date) {
+        return date.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    @Setup
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder().generateUniqueName(true).setType(EmbeddedDatabaseType.H2).build();
+        Flyway.configure().dataSource(database).locations("classpath:db/migration").load().migrate();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE INDEX ix_ship_ranges ON ship (speed, crewSize, rating, prodDate)");
+        jdbcTemplate.execute("CREATE INDEX ix_ship_ranges_crew ON ship (crewSize, rating, speed, prodDate)");
+
+        Random random = new Random(42);
+        ShipType[] types = ShipType.values();
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < ships; i++) {
+            Ship ship = new Ship("Ship " + random.nextInt(100_000), "Planet " + random.nextInt(50), types[random.nextInt(types.length)],
+                    new Date(26192246400000L + (long) random.nextInt(1_000_000) * 1_000_000L), random.nextBoolean(),
+                    random.nextInt(99) / 100.0 + 0.01, random.nextInt(9999) + 1, random.nextInt(8000) / 100.0);
+            ship.setId((long) i + 1);
+            tree.shipCreated(ship);
+            columns.shipCreated(ship);
+            batch.add(new Object[]{ship.getId(), ship.getName(), ship.getPlanet(), ship.getShipType().name(),
+                    new java.sql.Date(ship.getProdDate().getTime()), ship.getUsed(), ship.getSpeed(), ship.getCrewSize(), ship.getRating()});
+            if (batch.size() == 10_000) {
+                insert(batch);
+            }
+        }
+        insert(batch);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    private void insert(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("INSERT INTO ship (id, name, planet, shipType, prodDate, isUsed, speed, crewSize, rating)"
+                + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", batch);
+        batch.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        KdTreeStatistics statistics = tree.statistics();
+        if (statistics.getQueries() > 0) {
+            System.out.println();
+            System.out.println("k-d tree: " + statistics.getVisits() / statistics.getQueries() + " of " + ships
+                    + " ships compared per query, " + kdTree() + " matching, depth " + statistics.getDepth());
+        }
+        database.shutdown();
+    }
+
+    @Benchmark
+    public Long kdTree() {
+        return tree.count(box);
+    }
+
+    @Benchmark
+    public Long columnScan() {
+        return columns.count(box);
+    }
+
+    @Benchmark
+    public Long sqlCompositeIndex() {
+        return jdbcTemplate.queryForObject(COUNT, Long.class, 0.3, 0.5, 2000, 4000, 10.0, 30.0,
+                java.sql.Date.valueOf(after), java.sql.Date.valueOf(before));
+    }
+}
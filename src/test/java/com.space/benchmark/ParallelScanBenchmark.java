@@ -0,0 +1,73 @@
+package com.space.benchmark;
+
+import com.space.controller.ShipOrder;
+import com.space.index.ShipColumns;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.service.ShipFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Latency of a ShipColumns count and a rating-ordered page over a million generated ships, with the scan
+// split across 1, 2 or 4 pool threads. Speedup is bounded by the cores of the machine running it
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class ParallelScanBenchmark {
+
+    private static final int SHIPS = 1_000_000;
+
+    @Param({"1", "2", "4"})
+    private int parallelism;
+
+    private ShipColumns columns;
+    private final ShipFilter filter = new ShipFilter(null, null, null, null, null, true,
+            0.1, 0.9, null, null, 5.0, 60.0);
+
+    @Setup
+    public void setUp() {
+        columns = new ShipColumns(true, parallelism, 1);
+        Random random = new Random(42);
+        ShipType[] types = ShipType.values();
+        for (int i = 0; i < SHIPS; i++) {
+            Ship ship = new Ship("Ship " + random.nextInt(100_000), "Planet " + random.nextInt(50), types[random.nextInt(types.length)],
+                    new Date(26192246400000L + (long) random.nextInt(1_000_000) * 1_000_000L), random.nextBoolean(),
+                    random.nextInt(99) / 100.0 + 0.01, random.nextInt(9999) + 1, random.nextInt(8000) / 100.0);
+            ship.setId((long) i + 1);
+            columns.shipCreated(ship);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        columns.destroy();
+    }
+
+    @Benchmark
+    public Long count() {
+        return columns.count(filter);
+    }
+
+    @Benchmark
+    public List<Ship> topByRating() {
+        return columns.find(filter, ShipOrder.RATING, 0, 20);
+    }
+}
@@ -0,0 +1,81 @@
+package com.space.benchmark;
+
+import com.space.service.ShipRatingEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Calendar;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Validation plus rating of one ship the way ShipServiceImpl used to do it (Calendar, BigDecimal) against
+// ShipRatingEngine. JMH's gc profiler (-prof gc) shows the allocation per ship as well
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RatingBenchmark {
+
+    private static final int SHIPS = 4096;
+
+    private final ShipRatingEngine engine = new ShipRatingEngine(ZoneId.systemDefault(), 2600, 3219);
+    private final long[] prodDates = new long[SHIPS];
+    private final double[] speeds = new double[SHIPS];
+    private final boolean[] used = new boolean[SHIPS];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < SHIPS; i++) {
+            LocalDate date = LocalDate.ofEpochDay(LocalDate.of(2800, 1, 1).toEpochDay() + random.nextInt(80_000));
+            prodDates[i] = date.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            speeds[i] = random.nextInt(990) / 1000.0 + 0.01;
+            used[i] = random.nextBoolean();
+        }
+    }
+
+    private int nextShip() {
+        return next = (next + 1) & (SHIPS - 1);
+    }
+
+    @Benchmark
+    public void calendarAndBigDecimal(Blackhole blackhole) {
+        int i = nextShip();
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(prodDates[i]);
+        int checkedYear = calendar.get(Calendar.YEAR);
+        calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(prodDates[i]);
+        blackhole.consume(checkedYear == calendar.get(Calendar.YEAR));
+        blackhole.consume(BigDecimal.valueOf(speeds[i]).setScale(2, RoundingMode.HALF_UP).doubleValue());
+        calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(prodDates[i]);
+        double rating = 80 * speeds[i] * (used[i] ? 0.5 : 1) / (3019 - calendar.get(Calendar.YEAR) + 1);
+        blackhole.consume(BigDecimal.valueOf(rating).setScale(2, RoundingMode.HALF_UP).doubleValue());
+    }
+
+    @Benchmark
+    public void engine(Blackhole blackhole) {
+        int i = nextShip();
+        int year = engine.year(prodDates[i]);
+        blackhole.consume(year);
+        blackhole.consume(ShipRatingEngine.round2(speeds[i]));
+        blackhole.consume(engine.rating(speeds[i], used[i], engine.year(prodDates[i]), 3019));
+    }
+}
@@ -0,0 +1,99 @@
+package com.space.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.space.config.WebConfig;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Writing a page of 1000 ships the way GET /rest/ships does: reflective field mapping against ShipSerializer,
+// as JSON, Smile and CBOR. Setup prints the encoded size of the page in each format
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShipSerializationBenchmark {
+
+    private static final int SHIPS = 1000;
+
+    private final List<Ship> ships = new ArrayList<>();
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(256 * 1024);
+    private ObjectWriter reflectionJson;
+    private ObjectWriter json;
+    private ObjectWriter smile;
+    private ObjectWriter cbor;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        ShipType[] types = ShipType.values();
+        for (int i = 0; i < SHIPS; i++) {
+            Ship ship = new Ship("Ship " + random.nextInt(100_000), "Planet " + random.nextInt(50), types[random.nextInt(types.length)],
+                    new Date(26192246400000L + (long) random.nextInt(1_000_000) * 1_000_000L), random.nextBoolean(),
+                    random.nextInt(990) / 100.0 + 0.01, random.nextInt(9999) + 1, random.nextInt(8000) / 100.0);
+            ship.setId((long) i + 1);
+            ships.add(ship);
+        }
+
+        ObjectMapper fields = new ObjectMapper();
+        fields.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        fields.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        reflectionJson = fields.writer();
+        json = WebConfig.configure(new ObjectMapper()).writer();
+        smile = WebConfig.configure(new ObjectMapper(new SmileFactory())).writer();
+        cbor = WebConfig.configure(new ObjectMapper(new CBORFactory())).writer();
+
+        System.out.printf("%nbytes per %d ships: json %d, smile %d, cbor %d%n", SHIPS,
+                write(json), write(smile), write(cbor));
+    }
+
+    private int write(ObjectWriter writer) throws IOException {
+        out.reset();
+        writer.writeValue(out, ships);
+        return out.size();
+    }
+
+    @Benchmark
+    public int reflectionJson() throws IOException {
+        return write(reflectionJson);
+    }
+
+    @Benchmark
+    public int serializerJson() throws IOException {
+        return write(json);
+    }
+
+    @Benchmark
+    public int serializerSmile() throws IOException {
+        return write(smile);
+    }
+
+    @Benchmark
+    public int serializerCbor() throws IOException {
+        return write(cbor);
+    }
+}
@@ -0,0 +1,100 @@
+package com.space.benchmark;
+
+import com.space.index.TrigramIndex;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// LIKE '%term%' full scan against trigram narrowing + LIKE, on an H2 table of `rows` ships
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrigramSearchBenchmark {
+
+    private static final String[] WORDS = {"Orion", "Daedalus", "Eagle", "Mongoose", "Excalibur", "Explorer",
+            "Icarus", "Hermes", "Odyssey", "Orbit", "Aries", "Hunter", "Serenity", "Scorpio", "Hawk", "Excelsior",
+            "Amaterasu", "Cygnus", "Argonaut", "Avalon", "Arcadia", "Dwarf", "Derelict", "Terra", "Hyperion",
+            "Normandy", "Battlestar", "Titan", "Prometheus", "Centaur", "Venture", "Vorlon", "Liberator"};
+    private static final String[] PLANETS = {"Mars", "Jupiter", "Earth", "Neptune", "Mercury", "Saturn", "Venus", "Uranus"};
+
+    @Param({"1000000"})
+    private int rows;
+
+    @Param({"Mk4242", "Hawk Mk77"})
+    private String term;
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TrigramIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:trigram;DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        Random random = new Random(42);
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " Mk" + random.nextInt(10000);
+            batch.add(new Object[]{name, PLANETS[random.nextInt(PLANETS.length)], "MILITARY",
+                    Date.valueOf((2800 + random.nextInt(220)) + "-01-01"), false, 0.5, 100, 1.0});
+            if (batch.size() == 10000 || i == rows - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO ship(name, planet, shipType, prodDate, isUsed, speed, crewSize, rating) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        index = new TrigramIndex(1000);
+        index.rebuild(jdbcTemplate);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Benchmark
+    public Long likeScan() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ship WHERE name LIKE ?", Long.class, "%" + term + "%");
+    }
+
+    @Benchmark
+    public Long trigramNarrowed() {
+        long[] candidates = index.nameCandidates(term);
+        if (candidates == null) {
+            return likeScan();
+        }
+        if (candidates.length == 0) {
+            return 0L;
+        }
+        StringBuilder ids = new StringBuilder();
+        for (long id : candidates) {
+            ids.append(ids.length() == 0 ? "" : ",").append(id);
+        }
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ship WHERE id IN (" + ids + ") AND name LIKE ?",
+                Long.class, "%" + term + "%");
+    }
+}
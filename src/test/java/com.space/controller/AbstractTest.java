@@ -3,24 +3,33 @@ package com.space.controller;
 import com.space.config.AppConfig;
 import com.space.config.MyWebAppInit;
 import com.space.config.WebConfig;
+import com.space.service.ShipService;
 import org.junit.Before;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.context.jdbc.SqlConfig;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+
 @RunWith(SpringJUnit4ClassRunner.class)
 @ActiveProfiles("dev")
 @ContextConfiguration(classes = {AppConfig.class, MyWebAppInit.class, WebConfig.class})
 @WebAppConfiguration
 @Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+// DbExecutor runs handlers on the calling thread, so their results are ready for the async dispatch in perform
+@TestPropertySource(properties = "async.enabled=false")
 public abstract class AbstractTest {
 
     WebApplicationContext context;
@@ -33,6 +42,19 @@ public abstract class AbstractTest {
 
     @Before
     public void setup() {
+        // test.sql reloads the table behind the service's back
+        context.getBean(ShipService.class).reindex();
         mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
     }
+
+    // DeferredResult, Callable and streaming handlers finish in a second dispatch, as in the container
+    ResultActions perform(RequestBuilder request) throws Exception {
+        return perform(mockMvc, request);
+    }
+
+    ResultActions perform(MockMvc mvc, RequestBuilder request) throws Exception {
+        ResultActions actions = mvc.perform(request);
+        MvcResult result = actions.andReturn();
+        return result.getRequest().isAsyncStarted() ? mvc.perform(asyncDispatch(result)) : actions;
+    }
 }
@@ -0,0 +1,61 @@
+package com.space.controller;
+
+import com.space.pool.DbExecutor;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = {"async.enabled=true", "async.threads=1", "async.queueCapacity=1"})
+public class AsyncShipTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void getShipRunsOnDatabaseExecutor() throws Exception {
+        MvcResult result = mockMvc.perform(get("/rest/ships/14")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+    }
+
+    //test2
+    @Test
+    public void fullQueueReturnsServiceUnavailable() throws Exception {
+        DbExecutor dbExecutor = context.getBean(DbExecutor.class);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        dbExecutor.submit(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+        try {
+            started.await(5, TimeUnit.SECONDS);
+            dbExecutor.submit(() -> null);
+            long rejected = dbExecutor.getRejected();
+
+            mockMvc.perform(get("/rest/ships/count")
+                    .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isServiceUnavailable());
+            assertEquals("Отклоненный запрос не учтен.", rejected + 1, dbExecutor.getRejected());
+        } finally {
+            release.countDown();
+        }
+    }
+}
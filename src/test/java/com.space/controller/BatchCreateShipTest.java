@@ -0,0 +1,92 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class BatchCreateShipTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    private long count() throws Exception {
+        return count("");
+    }
+
+    private long count(String query) throws Exception {
+        MvcResult result = perform(get("/rest/ships/count?" + query)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn();
+        return Long.parseLong(result.getResponse().getContentAsString());
+    }
+
+    //test1
+    @Test
+    public void createShipsTest() throws Exception {
+        MvcResult result = perform(post("/rest/ships/batch")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("[" + TestsHelper.NORMAL_JSON + "," + TestsHelper.NORMAL_JSON.replace("Earth", "Mars") + "]"))
+                .andExpect(status().isOk())
+                .andReturn();
+        JsonNode ids = mapper.readTree(result.getResponse().getContentAsString()).get("ids");
+
+        assertEquals("Возвращается не правильное количество id при запросе POST /rest/ships/batch.", 2, ids.size());
+        assertEquals("Корабли не сохранены при запросе POST /rest/ships/batch.", 42L, count());
+
+        JsonNode ship = mapper.readTree(perform(get("/rest/ships/" + ids.get(1).asLong())
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        assertEquals("Сохранен не правильный корабль при запросе POST /rest/ships/batch.", "Mars", ship.get("planet").asText());
+        assertEquals("Не правильно посчитан рейтинг при запросе POST /rest/ships/batch.", 12.8, ship.get("rating").asDouble());
+    }
+
+    //test2
+    @Test
+    public void createShipsWithInvalidShipTest() throws Exception {
+        MvcResult result = perform(post("/rest/ships/batch")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("[" + TestsHelper.NORMAL_JSON + "," + TestsHelper.NO_SPEED_JSON + "," + TestsHelper.NORMAL_JSON + "]"))
+                .andExpect(status().isBadRequest())
+                .andReturn();
+        JsonNode errors = mapper.readTree(result.getResponse().getContentAsString()).get("errors");
+
+        assertEquals("Возвращается не правильное количество ошибок при запросе POST /rest/ships/batch.", 1, errors.size());
+        assertEquals("Ошибка указывает не на тот корабль.", 1, errors.get(0).get("index").asInt());
+        assertEquals("Сохранены корабли из отклоненного пакета.", 40L, count());
+    }
+
+    //test3
+    @Test
+    public void createShipsEmptyTest() throws Exception {
+        perform(post("/rest/ships/batch")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test4
+    @Test
+    public void batchRefreshesCachedCounts() throws Exception {
+        long mars = count("planet=Mars");
+
+        perform(post("/rest/ships/batch")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("[" + TestsHelper.NORMAL_JSON + "," + TestsHelper.NORMAL_JSON.replace("Earth", "Mars") + "]"))
+                .andExpect(status().isOk());
+
+        assertEquals("Возвращается устаревший результат после POST /rest/ships/batch.", mars + 1, count("planet=Mars"));
+    }
+}
@@ -0,0 +1,82 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.space.config.WebConfig;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class BinaryFormatTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<ShipInfoTest>> typeReference = new TypeReference<List<ShipInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void getShipAsSmile() throws Exception {
+        MvcResult result = perform(get("/rest/ships/14")
+                .accept(ShipRestController.SMILE_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(ShipRestController.SMILE_VALUE))
+                .andReturn();
+
+        JsonNode ship = new ObjectMapper(new SmileFactory()).readTree(result.getResponse().getContentAsByteArray());
+        assertEquals("Возвращается не правильный корабль в формате Smile.", "Scorpio E-X-1", ship.get("name").asText());
+        assertTrue("ETag представления Smile совпадает с ETag JSON.", result.getResponse().getHeader(HttpHeaders.ETAG).endsWith("-smile\""));
+    }
+
+    //test2
+    @Test
+    public void getAllAsCborMatchesJson() throws Exception {
+        MvcResult json = perform(get("/rest/ships?pageSize=40")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn();
+        MvcResult cbor = perform(get("/rest/ships?pageSize=40")
+                .accept(ShipRestController.CBOR_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(ShipRestController.CBOR_VALUE))
+                .andReturn();
+
+        List<ShipInfoTest> expected = mapper.readValue(json.getResponse().getContentAsString(), typeReference);
+        List<ShipInfoTest> actual = new ObjectMapper(new CBORFactory()).readValue(cbor.getResponse().getContentAsByteArray(), typeReference);
+        assertEquals("Ответ в формате CBOR не совпадает с JSON.", expected, actual);
+    }
+
+    //test3
+    @Test
+    public void shipSerializerMatchesFieldMapping() throws Exception {
+        ObjectMapper fields = new ObjectMapper();
+        fields.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        fields.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        ObjectMapper serializer = WebConfig.configure(new ObjectMapper());
+
+        Ship ship = new Ship("Orion III", "Mars", ShipType.MERCHANT, new Date(32661724800000L), true, 0.82, 617, 1.31);
+        ship.setId(1L);
+        ship.setVersion(3L);
+        assertEquals("ShipSerializer пишет не то же, что отражение.", fields.writeValueAsString(ship), serializer.writeValueAsString(ship));
+
+        Ship empty = new Ship();
+        assertEquals("ShipSerializer пишет пустые поля не так, как отражение.", fields.writeValueAsString(empty), serializer.writeValueAsString(empty));
+    }
+}
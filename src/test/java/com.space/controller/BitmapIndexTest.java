@@ -0,0 +1,128 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.TestsHelper;
+import com.space.index.ShipBitmaps;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.repository.ShipRepository;
+import com.space.service.ShipFilter;
+import com.space.service.ShipService;
+import org.junit.Test;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class BitmapIndexTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    private static long millis(int year, int month, int day) {
+        return LocalDate.of(year, month, day).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // Bounds on bucket bounds, which the bitmaps count alone
+    private static final List<ShipFilter> EXACT = Arrays.asList(
+            new ShipFilter(null, null, null, null, null, null, null, null, null, null, null, null),
+            new ShipFilter(null, null, ShipType.MILITARY, null, null, false, null, null, null, null, null, null),
+            new ShipFilter(null, null, null, millis(2995, 1, 1), millis(3011, 1, 1), null, null, null, null, null, null, null),
+            new ShipFilter(null, null, ShipType.MERCHANT, millis(3000, 1, 1), millis(3015, 1, 1) - 1, true, 0.5, 0.94, 100, 4999, null, null),
+            new ShipFilter(null, null, null, null, null, null, 0.08, 0.69, 1, 4500, 1.0, 5.0));
+
+    // Bounds inside buckets and substring terms, which may leave candidates to the database
+    private static final List<ShipFilter> REFINED = Arrays.asList(
+            new ShipFilter(null, null, null, millis(2995, 6, 1), millis(3011, 6, 1), null, null, null, null, null, null, null),
+            new ShipFilter(null, null, null, null, null, null, 0.245, 0.815, 150, 4527, 1.31, 4.25),
+            new ShipFilter("a", null, ShipType.TRANSPORT, null, null, null, null, null, null, null, null, null),
+            new ShipFilter(null, "Mer", null, null, null, false, null, null, null, null, 0.5, null));
+
+    private static Specification<Ship> byIds(long[] ids) {
+        return (root, query, cb) -> ids.length == 0 ? cb.disjunction() : root.get("id").in(Arrays.stream(ids).boxed().toArray());
+    }
+
+    //test1
+    @Test
+    public void countsAndCandidatesMatchDatabase() {
+        ShipBitmaps shipBitmaps = context.getBean(ShipBitmaps.class);
+        ShipService shipService = context.getBean(ShipService.class);
+        ShipRepository shipRepository = context.getBean(ShipRepository.class);
+
+        ToLongFunction<long[]> unexpected = ids -> {
+            throw new AssertionError("Точный фильтр проверяется в базе.");
+        };
+        for (ShipFilter filter : EXACT) {
+            assertEquals("Количество по битовым индексам не совпадает с базой.",
+                    shipRepository.count(shipService.filter(filter)), shipBitmaps.count(filter, unexpected));
+        }
+        for (ShipFilter filter : REFINED) {
+            Long count = shipBitmaps.count(filter, ids -> shipRepository.count(shipService.filter(filter).and(byIds(ids))));
+            assertEquals("Количество по битовым индексам не совпадает с базой.", shipRepository.count(shipService.filter(filter)), count);
+
+            long[] candidates = shipBitmaps.candidates(filter);
+            for (Ship ship : shipRepository.findAll(shipService.filter(filter))) {
+                assertTrue("Подходящий корабль не попал в кандидаты.", Arrays.binarySearch(candidates, ship.getId()) >= 0);
+            }
+        }
+    }
+
+    //test2
+    @Test
+    public void writesAreVisibleImmediately() throws Exception {
+        ShipBitmaps shipBitmaps = context.getBean(ShipBitmaps.class);
+        ShipFilter filter = new ShipFilter(null, null, ShipType.MILITARY, null, null, false, 0.8, 0.8, 1, 99, null, null);
+        ToLongFunction<long[]> unexpected = ids -> {
+            throw new AssertionError("Точный фильтр проверяется в базе.");
+        };
+        long before = shipBitmaps.count(filter, unexpected);
+
+        MvcResult created = perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk())
+                .andReturn();
+        long id = mapper.readTree(created.getResponse().getContentAsString()).get("id").asLong();
+        assertEquals("Созданный корабль не попал в битовые индексы.", before + 1, shipBitmaps.count(filter, unexpected));
+
+        perform(post("/rest/ships/" + id)
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"crewSize\":500}"))
+                .andExpect(status().isOk());
+        assertEquals("Изменение корабля не попало в битовые индексы.", before, shipBitmaps.count(filter, unexpected));
+
+        perform(delete("/rest/ships/" + id)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+        assertEquals("Удаленный корабль остался в битовых индексах.", 40L, shipBitmaps.size());
+    }
+
+    //test3
+    @Test
+    public void statisticsReportMemory() throws Exception {
+        MvcResult result = perform(get("/rest/index/bitmaps/stats")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn();
+        JsonNode stats = mapper.readTree(result.getResponse().getContentAsString());
+
+        assertEquals("Возвращается не правильное количество кораблей в битовых индексах.", 40L, stats.get("ships").asLong());
+        assertEquals("Возвращается не правильное количество измерений.", 6, stats.get("dimensions").size());
+        assertTrue("Не указан размер битовых индексов.", stats.get("bytes").asLong() > 0);
+    }
+
+}
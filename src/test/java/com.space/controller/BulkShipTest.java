@@ -0,0 +1,193 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.cache.ShipChangeCounter;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import com.space.service.ShipService;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Calendar;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class BulkShipTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    @After
+    public void restoreChunkSize() {
+        chunkSize(1000);
+    }
+
+    // Small chunks make the fixture span several transactions
+    private void chunkSize(int size) {
+        Object service = AopTestUtils.getTargetObject(context.getBean(ShipService.class));
+        ReflectionTestUtils.setField(service, "bulkChunkSize", size);
+    }
+
+    private long count(String query) throws Exception {
+        MvcResult result = perform(get("/rest/ships/count?" + query)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn();
+        return Long.parseLong(result.getResponse().getContentAsString());
+    }
+
+    private ShipInfoTest ship(long id) throws Exception {
+        ResultActions resultActions = perform(get("/rest/ships/" + id)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+        return mapper.readValue(resultActions.andReturn().getResponse().getContentAsString(), ShipInfoTest.class);
+    }
+
+    private static double rating(double speed, boolean isUsed, long prodDate) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(prodDate);
+        double result = 80 * speed * (isUsed ? 0.5 : 1) / (3019 - calendar.get(Calendar.YEAR) + 1);
+        return BigDecimal.valueOf(result).setScale(2, RoundingMode.HALF_UP).doubleValue();
+    }
+
+    //test1
+    @Test
+    public void deleteShipsByFilterTest() throws Exception {
+        chunkSize(2);
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByIsUsed(true,
+                testsHelper.getShipInfosByShipType(ShipType.TRANSPORT, testsHelper.getAllShips()));
+
+        MvcResult result = perform(delete("/rest/ships/bulk?shipType=TRANSPORT&isUsed=true")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertEquals("Возвращается не правильное количество удаленных кораблей.", (long) expected.size(), Long.parseLong(result.getResponse().getContentAsString()));
+        assertEquals("Корабли не удалены при запросе DELETE /rest/ships/bulk.", 0L, count("shipType=TRANSPORT&isUsed=true"));
+        assertEquals("Удалены лишние корабли при запросе DELETE /rest/ships/bulk.", 40L - expected.size(), count(""));
+    }
+
+    //test2
+    @Test
+    public void updateIsUsedRecomputesRatingTest() throws Exception {
+        chunkSize(2);
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByPlanet("Mars", testsHelper.getAllShips());
+
+        MvcResult result = perform(post("/rest/ships/bulk?planet=Mars")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"isUsed\":true}"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertEquals("Возвращается не правильное количество измененных кораблей.", (long) expected.size(), Long.parseLong(result.getResponse().getContentAsString()));
+        for (ShipInfoTest before : expected) {
+            ShipInfoTest after = ship(before.id);
+            assertEquals("Поле isUsed не изменено при запросе POST /rest/ships/bulk.", true, after.isUsed);
+            assertEquals("Не правильно пересчитан рейтинг при запросе POST /rest/ships/bulk.", rating(before.speed, true, before.prodDate), after.rating);
+        }
+    }
+
+    //test3
+    @Test
+    public void updateSpeedKeepsIsUsedFactorTest() throws Exception {
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByShipType(ShipType.MILITARY, testsHelper.getAllShips());
+
+        perform(post("/rest/ships/bulk?shipType=MILITARY")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"speed\":0.47}"))
+                .andExpect(status().isOk());
+
+        for (ShipInfoTest before : expected) {
+            ShipInfoTest after = ship(before.id);
+            assertEquals("Не правильно пересчитан рейтинг при запросе POST /rest/ships/bulk.", rating(0.47, before.isUsed, before.prodDate), after.rating);
+        }
+    }
+
+    //test4
+    @Test
+    public void bulkWithoutFilterTest() throws Exception {
+        perform(delete("/rest/ships/bulk")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test5
+    @Test
+    public void updateWithoutChangesTest() throws Exception {
+        perform(post("/rest/ships/bulk?planet=Mars")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test6
+    @Test
+    public void ratingTieMatchesServiceTest() throws Exception {
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByPlanet("Mars", testsHelper.getAllShips());
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2828, Calendar.JANUARY, 1);
+        long prodDate = calendar.getTimeInMillis();
+
+        // 80 * 0.06 / 192 is 0.025 in exact decimal arithmetic but just below it as a double
+        perform(post("/rest/ships/bulk?planet=Mars")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"speed\":0.06,\"isUsed\":false,\"prodDate\":" + prodDate + "}"))
+                .andExpect(status().isOk());
+        for (ShipInfoTest before : expected) {
+            assertEquals("Рейтинг на границе округления расходится с сервисом.", rating(0.06, false, prodDate), ship(before.id).rating);
+        }
+
+        // The same tie with isUsed and prodDate taken from the stored rows
+        perform(post("/rest/ships/bulk?planet=Mars")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"isUsed\":true}"))
+                .andExpect(status().isOk());
+        perform(post("/rest/ships/bulk?planet=Mars")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"speed\":0.12}"))
+                .andExpect(status().isOk());
+        for (ShipInfoTest before : expected) {
+            assertEquals("Рейтинг на границе округления расходится с сервисом.", rating(0.12, true, prodDate), ship(before.id).rating);
+        }
+    }
+
+    //test7
+    @Test
+    public void everyCommittedChunkChangesListTagTest() throws Exception {
+        chunkSize(2);
+        ShipChangeCounter counter = context.getBean(ShipChangeCounter.class);
+        long expected = testsHelper.getShipInfosByPlanet("Mars", testsHelper.getAllShips()).size();
+        String before = counter.tag();
+
+        perform(post("/rest/ships/bulk?planet=Mars")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"crewSize\":77}"))
+                .andExpect(status().isOk());
+
+        long changes = Long.parseLong(counter.tag().substring(counter.tag().indexOf('-') + 1))
+                - Long.parseLong(before.substring(before.indexOf('-') + 1));
+        assertEquals("Тег списков меняется не один раз на каждую часть массовой операции.", (expected + 1) / 2, changes);
+        assertEquals("Счетчики не видят изменения массовой операции.", expected, count("minCrewSize=77&maxCrewSize=77"));
+    }
+}
@@ -0,0 +1,103 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.TestsHelper;
+import com.space.index.ShipColumns;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.repository.ShipRepository;
+import com.space.service.ShipFilter;
+import com.space.service.ShipService;
+import org.junit.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "columns.enabled=true")
+public class ColumnStoreTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    private static long millis(int year, int month, int day) {
+        return LocalDate.of(year, month, day).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static ShipFilter nameFilter(String name) {
+        return new ShipFilter(name, null, null, null, null, null, null, null, null, null, null, null);
+    }
+
+    // Terms whose case does not matter, the in-memory comparison is case-insensitive like MySQL, H2 is not
+    private static final List<ShipFilter> FILTERS = Arrays.asList(
+            new ShipFilter(null, null, null, null, null, null, null, null, null, null, null, null),
+            new ShipFilter(null, null, ShipType.MILITARY, null, null, false, null, null, null, null, null, null),
+            new ShipFilter(null, null, null, millis(3000, 1, 1), millis(3015, 6, 1) + 3600_000, null, null, null, null, null, null, null),
+            new ShipFilter(null, null, null, millis(3000, 1, 1) + 1, null, true, 0.5, 0.9, 100, 5000, null, null),
+            new ShipFilter(null, "upit", null, null, null, null, null, null, null, null, 1.5, null),
+            new ShipFilter("ra", null, null, null, null, null, null, null, null, null, null, 10.0));
+
+    //test1
+    @Test
+    public void pagesAndCountsMatchDatabase() {
+        ShipColumns shipColumns = context.getBean(ShipColumns.class);
+        ShipService shipService = context.getBean(ShipService.class);
+        ShipRepository shipRepository = context.getBean(ShipRepository.class);
+
+        for (ShipFilter filter : FILTERS) {
+            assertEquals("Количество в хранилище столбцов не совпадает с базой.",
+                    shipRepository.count(shipService.filter(filter)), shipColumns.count(filter));
+            for (ShipOrder order : ShipOrder.values()) {
+                for (int[] page : new int[][]{{0, 7}, {1, 7}, {3, 7}, {0, 100}}) {
+                    Sort sort = Sort.by(order.getFieldName()).and(Sort.by(ShipOrder.ID.getFieldName()));
+                    List<Long> expected = shipRepository.findContent(shipService.filter(filter), PageRequest.of(page[0], page[1], sort))
+                            .stream().map(Ship::getId).collect(Collectors.toList());
+                    List<Long> actual = shipColumns.find(filter, order, (long) page[0] * page[1], page[1])
+                            .stream().map(Ship::getId).collect(Collectors.toList());
+                    assertEquals("Страница из хранилища столбцов не совпадает с базой (" + order + ").", expected, actual);
+                }
+            }
+        }
+    }
+
+    //test2
+    @Test
+    public void writesAreVisibleImmediately() throws Exception {
+        ShipColumns shipColumns = context.getBean(ShipColumns.class);
+
+        MvcResult created = perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk())
+                .andReturn();
+        long id = mapper.readTree(created.getResponse().getContentAsString()).get("id").asLong();
+        assertEquals("Созданный корабль не попал в хранилище столбцов.", 1L, shipColumns.count(nameFilter("12345")));
+
+        perform(post("/rest/ships/" + id)
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\":\"Renamed\"}"))
+                .andExpect(status().isOk());
+        assertEquals("Изменение корабля не попало в хранилище столбцов.", 0L, shipColumns.count(nameFilter("12345")));
+        assertEquals("Изменение корабля не попало в хранилище столбцов.", id,
+                shipColumns.find(nameFilter("Renamed"), ShipOrder.ID, 0, 10).get(0).getId().longValue());
+
+        perform(delete("/rest/ships/" + id)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+        assertEquals("Удаленный корабль остался в хранилище столбцов.", 0L, shipColumns.count(nameFilter("Renamed")));
+        assertEquals("Удаленный корабль остался в хранилище столбцов.", 40, shipColumns.size());
+    }
+}
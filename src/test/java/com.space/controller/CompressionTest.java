@@ -0,0 +1,115 @@
+package com.space.controller;
+
+import com.space.config.CompressionFilter;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.servlet.resource.ResourceUrlProvider;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class CompressionTest extends AbstractTest {
+
+    private static final String BOOTSTRAP = "/resources/bootstrap-4.3.1-dist/css/bootstrap.min.css";
+
+    private MockMvc compressingMvc;
+
+    @Before
+    public void setupCompression() {
+        compressingMvc = MockMvcBuilders.webAppContextSetup(context)
+                .addFilters(context.getBean(CompressionFilter.class))
+                .build();
+    }
+
+    private static byte[] gunzip(byte[] bytes) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return StreamUtils.copyToByteArray(in);
+        }
+    }
+
+    //test1
+    @Test
+    public void largeListIsGzipped() throws Exception {
+        MvcResult plain = perform(get("/rest/ships?pageSize=40")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn();
+        MvcResult gzip = perform(compressingMvc, get("/rest/ships?pageSize=40")
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertEquals("Большой ответ не сжат.", "gzip", gzip.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertTrue("Нет заголовка Vary: Accept-Encoding.", gzip.getResponse().getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING));
+        assertEquals("Сжатый ответ не совпадает с несжатым.", plain.getResponse().getContentAsString(),
+                new String(gunzip(gzip.getResponse().getContentAsByteArray()), "UTF-8"));
+    }
+
+    //test2
+    @Test
+    public void smallResponseIsNotCompressed() throws Exception {
+        MvcResult result = perform(compressingMvc, get("/rest/ships/count")
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertEquals("Ответ меньше порога сжат.", null, result.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships/count.", "40", result.getResponse().getContentAsString());
+    }
+
+    //test3
+    @Test
+    public void weakTagOfCompressedListMatches() throws Exception {
+        MvcResult result = perform(compressingMvc, get("/rest/ships?pageSize=40")
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andReturn();
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        assertTrue("ETag сжатого ответа не слабый.", etag.startsWith("W/\""));
+
+        perform(compressingMvc, get("/rest/ships?pageSize=40")
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    //test4
+    @Test
+    public void versionedStaticResourceIsCompressedAndImmutable() throws Exception {
+        String url = context.getBean(ResourceUrlProvider.class).getForLookupPath(BOOTSTRAP);
+        assertTrue("Ссылка на ресурс не содержит хеш содержимого.", url.matches(".*/bootstrap\\.min-[0-9a-f]{32}\\.css"));
+
+        MvcResult versioned = perform(get(url)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertEquals("Статический ресурс не сжат.", "gzip", versioned.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertTrue("Ресурс с хешем в имени не помечен как неизменяемый.",
+                versioned.getResponse().getHeader(HttpHeaders.CACHE_CONTROL).contains("immutable"));
+        assertEquals("Распакованный ресурс не совпадает с файлом.", new File("src/main/webapp" + BOOTSTRAP).length(),
+                (long) gunzip(versioned.getResponse().getContentAsByteArray()).length);
+
+        MvcResult plain = perform(get(BOOTSTRAP))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertEquals("Ресурс сжат для клиента без Accept-Encoding.", null, plain.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("Ресурс без хеша в имени кэшируется без проверки.", "no-cache", plain.getResponse().getHeader(HttpHeaders.CACHE_CONTROL));
+    }
+}
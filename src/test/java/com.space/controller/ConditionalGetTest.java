@@ -0,0 +1,88 @@
+package com.space.controller;
+
+import com.space.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ConditionalGetTest extends AbstractTest {
+
+    private String etag(String url) throws Exception {
+        return perform(get(url)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    //test1
+    @Test
+    public void unchangedShipReturnsNotModified() throws Exception {
+        String etag = etag("/rest/ships/14");
+
+        String body = perform(get("/rest/ships/14")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isNotModified())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Ответ 304 содержит тело.", "", body);
+    }
+
+    //test2
+    @Test
+    public void updatedShipGetsNewEtag() throws Exception {
+        String etag = etag("/rest/ships/14");
+
+        perform(post("/rest/ships/14")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\":\"Renamed\"}"))
+                .andExpect(status().isOk());
+
+        perform(get("/rest/ships/14")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+        assertNotEquals("ETag не изменился после обновления корабля.", etag, etag("/rest/ships/14"));
+    }
+
+    //test3
+    @Test
+    public void listEtagChangesWithTable() throws Exception {
+        String url = "/rest/ships?shipType=MILITARY&pageSize=5";
+        String etag = etag(url);
+
+        perform(get(url)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isNotModified());
+        assertNotEquals("Разные фильтры получили одинаковый ETag.", etag, etag("/rest/ships?shipType=MERCHANT&pageSize=5"));
+
+        perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+
+        perform(get(url)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+    }
+
+    //test4
+    @Test
+    public void countSupportsIfNoneMatch() throws Exception {
+        String etag = etag("/rest/ships/count?isUsed=true");
+
+        perform(get("/rest/ships/count?isUsed=true")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isNotModified());
+    }
+}
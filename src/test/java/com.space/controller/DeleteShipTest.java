@@ -12,7 +12,7 @@ public class DeleteShipTest extends AbstractTest {
     //test1
     @Test
     public void deleteShipByIdZeroTest() throws Exception {
-        mockMvc.perform(delete("/rest/ships/0")
+        perform(delete("/rest/ships/0")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isBadRequest());
     }
@@ -20,7 +20,7 @@ public class DeleteShipTest extends AbstractTest {
     //test2
     @Test
     public void deleteShipByIdNotNumberTest() throws Exception {
-        mockMvc.perform(delete("/rest/ships/test")
+        perform(delete("/rest/ships/test")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isBadRequest());
     }
@@ -28,7 +28,7 @@ public class DeleteShipTest extends AbstractTest {
     //test3
     @Test
     public void deleteShipByIdNotExistTest() throws Exception {
-        mockMvc.perform(delete("/rest/ships/426")
+        perform(delete("/rest/ships/426")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isNotFound());
     }
@@ -36,11 +36,11 @@ public class DeleteShipTest extends AbstractTest {
     //test4
     @Test
     public void deleteShipByIdTest() throws Exception {
-        mockMvc.perform(delete("/rest/ships/1")
+        perform(delete("/rest/ships/1")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
-        mockMvc.perform(get("/rest/ships/1")
+        perform(get("/rest/ships/1")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isNotFound());
     }
@@ -0,0 +1,59 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class EntityCacheTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    private JsonNode ship(long id) throws Exception {
+        MvcResult result = perform(get("/rest/ships/" + id)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn();
+        return mapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    private JsonNode stats() throws Exception {
+        MvcResult result = perform(get("/rest/cache/ship/stats")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn();
+        return mapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    //test1
+    @Test
+    public void repeatedGetIsServedFromCache() throws Exception {
+        ship(14);
+        long hits = stats().get("hits").asLong();
+        long misses = stats().get("misses").asLong();
+
+        assertEquals("Возвращается не правильный корабль при повторном запросе GET /rest/ships/{id}.", "Scorpio E-X-1", ship(14).get("name").asText());
+        assertEquals("Повторный запрос не обслуживается из кэша.", hits + 1, stats().get("hits").asLong());
+        assertEquals("Повторный запрос обращается к базе данных.", misses, stats().get("misses").asLong());
+    }
+
+    //test2
+    @Test
+    public void updateIsVisibleThroughCache() throws Exception {
+        ship(14);
+
+        perform(post("/rest/ships/14")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\":\"Cached\"}"))
+                .andExpect(status().isOk());
+
+        assertEquals("Возвращается устаревший корабль после обновления.", "Cached", ship(14).get("name").asText());
+    }
+}
@@ -0,0 +1,67 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import org.junit.Test;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ExportShipTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    private String export(String query) throws Exception {
+        MvcResult result = mockMvc.perform(get("/rest/ships/export?" + query))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+        return result.getResponse().getContentAsString();
+    }
+
+    //test1
+    @Test
+    public void exportNdjsonTest() throws Exception {
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByOrder(ShipOrder.SPEED,
+                testsHelper.getShipInfosByShipType(ShipType.MILITARY, testsHelper.getAllShips()));
+
+        String content = export("shipType=MILITARY&order=SPEED");
+
+        List<ShipInfoTest> actual = new ArrayList<>();
+        for (String line : content.split("\n")) {
+            actual.add(mapper.readValue(line, ShipInfoTest.class));
+        }
+        assertEquals("Выгружаются не правильные корабли при запросе GET /rest/ships/export.", expected, actual);
+    }
+
+    //test2
+    @Test
+    public void exportCsvTest() throws Exception {
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByPlanet("Mars", testsHelper.getAllShips());
+
+        String[] lines = export("planet=Mars&format=CSV").split("\r\n");
+
+        assertEquals("Не правильный заголовок CSV при запросе GET /rest/ships/export.", "id,name,planet,shipType,prodDate,isUsed,speed,crewSize,rating", lines[0]);
+        assertEquals("Выгружается не правильное количество кораблей при запросе GET /rest/ships/export.", expected.size(), lines.length - 1);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals("Выгружается не правильный корабль при запросе GET /rest/ships/export.", expected.get(i).id, Long.valueOf(lines[i + 1].split(",")[0]));
+        }
+    }
+
+    //test3
+    @Test
+    public void exportEmptyResultTest() throws Exception {
+        assertEquals("Выгружаются лишние данные при пустом результате.", "", export("name=NoSuchShip"));
+    }
+}
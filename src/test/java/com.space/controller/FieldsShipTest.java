@@ -0,0 +1,99 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class FieldsShipTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    private static List<String> names(JsonNode node) {
+        List<String> names = new ArrayList<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+
+    //test1
+    @Test
+    public void getAllReturnsOnlyRequestedFields() throws Exception {
+        MvcResult result = perform(get("/rest/ships?fields=rating,id,name&pageSize=5")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn();
+        JsonNode ships = mapper.readTree(result.getResponse().getContentAsString());
+
+        assertEquals("Возвращается не правильное количество кораблей.", 5, ships.size());
+        for (JsonNode ship : ships) {
+            assertEquals("Возвращаются не те поля при запросе с параметром fields.", Arrays.asList("rating", "id", "name"), names(ship));
+            ShipInfoTest expected = testsHelper.getShipInfosById(ship.get("id").asLong());
+            assertEquals("Возвращается не правильное имя.", expected.name, ship.get("name").asText());
+            assertEquals("Возвращается не правильный рейтинг.", expected.rating, ship.get("rating").asDouble());
+        }
+    }
+
+    //test2
+    @Test
+    public void searchKeepsValueFormats() throws Exception {
+        MvcResult result = perform(get("/rest/ships/search?fields=id,shipType,prodDate,isUsed&pageSize=40")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn();
+        JsonNode page = mapper.readTree(result.getResponse().getContentAsString());
+
+        assertEquals("Возвращается не правильное общее количество.", 40, page.get("total").asInt());
+        for (JsonNode ship : page.get("items")) {
+            ShipInfoTest expected = testsHelper.getShipInfosById(ship.get("id").asLong());
+            assertEquals("Возвращается не правильный тип.", expected.shipType.name(), ship.get("shipType").asText());
+            assertEquals("Возвращается не правильная дата.", (long) expected.prodDate, ship.get("prodDate").asLong());
+            assertEquals("Возвращается не правильный признак isUsed.", expected.isUsed, ship.get("isUsed").asBoolean());
+        }
+    }
+
+    //test3
+    @Test
+    public void cursorWalksAllPagesWithoutOrderField() throws Exception {
+        List<String> actual = new ArrayList<>();
+        String cursor = "";
+        while (cursor != null) {
+            MvcResult result = perform(get("/rest/ships?fields=name&order=RATING&pageSize=7&cursor=" + cursor)
+                    .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            Iterator<JsonNode> ships = mapper.readTree(result.getResponse().getContentAsString()).elements();
+            ships.forEachRemaining(ship -> {
+                assertEquals("Возвращаются лишние поля.", Arrays.asList("name"), names(ship));
+                actual.add(ship.get("name").asText());
+            });
+            cursor = result.getResponse().getHeader(ShipRestController.NEXT_CURSOR_HEADER);
+        }
+
+        List<ShipInfoTest> ships = testsHelper.getAllShips();
+        ships.sort((o1, o2) -> o1.rating.equals(o2.rating) ? Long.compare(o1.id, o2.id) : Double.compare(o1.rating, o2.rating));
+        List<String> expected = ships.stream().map(ship -> ship.name).collect(Collectors.toList());
+        assertEquals("Возвращается не правильный результат при обходе с параметрами fields и cursor.", expected, actual);
+    }
+
+    //test4
+    @Test
+    public void unknownFieldIsRejected() throws Exception {
+        perform(get("/rest/ships?fields=id,password")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -7,9 +7,12 @@ import com.space.controller.utils.TestsHelper;
 import com.space.model.ShipType;
 import org.junit.Test;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
+import javax.sql.DataSource;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.springframework.test.util.AssertionErrors.assertEquals;
@@ -26,7 +29,7 @@ public class GetAllTest extends AbstractTest {
     //test1
     @Test
     public void getAllWithoutFiltersReturnAllShips() throws Exception {
-        ResultActions resultActions = mockMvc.perform(get("/rest/ships")
+        ResultActions resultActions = perform(get("/rest/ships")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -42,7 +45,7 @@ public class GetAllTest extends AbstractTest {
     //test2
     @Test
     public void getAllWithFiltersNamePageNumber() throws Exception {
-        ResultActions resultActions = mockMvc.perform(get("/rest/ships?name=ra&pageNumber=1")
+        ResultActions resultActions = perform(get("/rest/ships?name=ra&pageNumber=1")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -59,7 +62,7 @@ public class GetAllTest extends AbstractTest {
     //test3
     @Test
     public void getAllWithFiltersPlanetPageSize() throws Exception {
-        ResultActions resultActions = mockMvc.perform(get("/rest/ships?planet=ur&pageSize=4")
+        ResultActions resultActions = perform(get("/rest/ships?planet=ur&pageSize=4")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -78,7 +81,7 @@ public class GetAllTest extends AbstractTest {
     public void getAllWithFiltersShipTypeAfterBefore() throws Exception {
         //after 00:00 01.01.3000
         //before 00:00 01.01.3011
-        ResultActions resultActions = mockMvc.perform(get("/rest/ships?shipType=MILITARY&after=32503672800000&before=32850741600000")
+        ResultActions resultActions = perform(get("/rest/ships?shipType=MILITARY&after=32503672800000&before=32850741600000")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -99,7 +102,7 @@ public class GetAllTest extends AbstractTest {
     //test5
     @Test
     public void getAllWithFiltersShipTypeMinSpeedMaxSpeed() throws Exception {
-        ResultActions resultActions = mockMvc.perform(get("/rest/ships?shipType=TRANSPORT&minSpeed=0.3&maxSpeed=0.6")
+        ResultActions resultActions = perform(get("/rest/ships?shipType=TRANSPORT&minSpeed=0.3&maxSpeed=0.6")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -119,7 +122,7 @@ public class GetAllTest extends AbstractTest {
     //test6
     @Test
     public void getAllWithFiltersShipTypeMinCrewSizeMaxCrewSize() throws Exception {
-        ResultActions resultActions = mockMvc.perform(get("/rest/ships?shipType=MERCHANT&minCrewSize=10&maxCrewSize=1000")
+        ResultActions resultActions = perform(get("/rest/ships?shipType=MERCHANT&minCrewSize=10&maxCrewSize=1000")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -139,7 +142,7 @@ public class GetAllTest extends AbstractTest {
     //test7
     @Test
     public void getAllWithFiltersIsUsedMinMaxRating() throws Exception {
-        ResultActions resultActions = mockMvc.perform(get("/rest/ships?isUsed=true&minRating=2&maxRating=4")
+        ResultActions resultActions = perform(get("/rest/ships?isUsed=true&minRating=2&maxRating=4")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -159,7 +162,7 @@ public class GetAllTest extends AbstractTest {
     //test8
     @Test
     public void getAllWithFiltersIsUsedMaxSpeedMaxRating() throws Exception {
-        ResultActions resultActions = mockMvc.perform(get("/rest/ships?isUsed=false&maxSpeed=0.6&maxRating=7")
+        ResultActions resultActions = perform(get("/rest/ships?isUsed=false&maxSpeed=0.6&maxRating=7")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -179,7 +182,7 @@ public class GetAllTest extends AbstractTest {
     //test9
     @Test
     public void getAllWithFiltersNameOrderSpeed() throws Exception {
-        ResultActions resultActions = mockMvc.perform(get("/rest/ships?name=ca&order=SPEED")
+        ResultActions resultActions = perform(get("/rest/ships?name=ca&order=SPEED")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -200,7 +203,7 @@ public class GetAllTest extends AbstractTest {
     public void getAllWithFiltersAfterBeforeMinCrewMaxCrew() throws Exception {
         //after 00:00 01.01.2996
         //before 00:00 01.01.3009
-        ResultActions resultActions = mockMvc.perform(get("/rest/ships?after=32377442400000&before=32787669600000&minCrewSize=20&maxCrewSize=1500&pageNumber=1")
+        ResultActions resultActions = perform(get("/rest/ships?after=32377442400000&before=32787669600000&minCrewSize=20&maxCrewSize=1500&pageNumber=1")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -217,4 +220,70 @@ public class GetAllTest extends AbstractTest {
 
         assertEquals("Возвращается не правильный результат при запросе GET /rest/ships с параметрами after, before, minCrewSize и maxCrewSize.", expected, actual);
     }
+
+    //test11
+    @Test
+    public void getAllWithCursorWalksAllPagesOrderRating() throws Exception {
+        List<ShipInfoTest> actual = new ArrayList<>();
+        String cursor = "";
+        while (cursor != null) {
+            MvcResult result = perform(get("/rest/ships?isUsed=false&order=RATING&pageSize=4&cursor=" + cursor)
+                    .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            actual.addAll(mapper.readValue(result.getResponse().getContentAsString(), typeReference));
+            cursor = result.getResponse().getHeader(ShipRestController.NEXT_CURSOR_HEADER);
+        }
+
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByOrder(ShipOrder.RATING,
+                testsHelper.getShipInfosByIsUsed(false,
+                        testsHelper.getAllShips()));
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships с параметрами isUsed, order и cursor.", expected, actual);
+    }
+
+    //test12
+    @Test
+    public void getAllWithCursorOfOtherOrder() throws Exception {
+        MvcResult result = perform(get("/rest/ships?order=SPEED&cursor=")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn();
+        String cursor = result.getResponse().getHeader(ShipRestController.NEXT_CURSOR_HEADER);
+
+        perform(get("/rest/ships?order=DATE&cursor=" + cursor)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+        perform(get("/rest/ships?cursor=test")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test13
+    @Test
+    public void getAllWithCursorWalksShipsWithoutSpeed() throws Exception {
+        new JdbcTemplate(context.getBean(DataSource.class)).update("UPDATE ship SET speed = NULL WHERE id IN (3, 7)");
+        List<Long> actual = new ArrayList<>();
+        String cursor = "";
+        while (cursor != null) {
+            MvcResult result = perform(get("/rest/ships?order=SPEED&pageSize=1&fields=id&cursor=" + cursor)
+                    .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            for (ShipInfoTest ship : mapper.readValue(result.getResponse().getContentAsString(), typeReference)) {
+                actual.add(ship.id);
+            }
+            cursor = result.getResponse().getHeader(ShipRestController.NEXT_CURSOR_HEADER);
+        }
+
+        List<Long> expected = new ArrayList<>();
+        expected.add(3L);
+        expected.add(7L);
+        List<ShipInfoTest> withSpeed = testsHelper.getAllShips();
+        withSpeed.removeIf(ship -> ship.id == 3 || ship.id == 7);
+        for (ShipInfoTest ship : testsHelper.getShipInfosByOrder(ShipOrder.SPEED, withSpeed)) {
+            expected.add(ship.id);
+        }
+        assertEquals("Курсор не проходит корабли без скорости при запросе GET /rest/ships с параметрами order и cursor.", expected, actual);
+    }
 }
\ No newline at end of file
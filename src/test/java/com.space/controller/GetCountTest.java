@@ -7,8 +7,12 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
+import java.text.SimpleDateFormat;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 public class GetCountTest extends AbstractTest {
@@ -18,7 +22,7 @@ public class GetCountTest extends AbstractTest {
     //test1
     @Test
     public void getCountWithoutFiltersReturnAllShips() throws Exception {
-        ResultActions resultActions = this.mockMvc.perform(get("/rest/ships/count")
+        ResultActions resultActions = this.perform(get("/rest/ships/count")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -33,7 +37,7 @@ public class GetCountTest extends AbstractTest {
     //test2
     @Test
     public void getCountWithFiltersMinRatingMinCrewSizeMinSpeed() throws Exception {
-        ResultActions resultActions = this.mockMvc.perform(get("/rest/ships/count?minRating=0.5&minCrewSize=100&minSpeed=0.3")
+        ResultActions resultActions = this.perform(get("/rest/ships/count?minRating=0.5&minCrewSize=100&minSpeed=0.3")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -52,7 +56,7 @@ public class GetCountTest extends AbstractTest {
     @Test
     public void getCountWithFiltersNameAfterMaxRating() throws Exception {
         //after 00:00 01/01/2900
-        ResultActions resultActions = this.mockMvc.perform(get("/rest/ships/count?name=nt&after=32188140000000&maxRating=3")
+        ResultActions resultActions = this.perform(get("/rest/ships/count?name=nt&after=32188140000000&maxRating=3")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -70,7 +74,7 @@ public class GetCountTest extends AbstractTest {
     //test4
     @Test
     public void getCountWithFiltersShipTypeIsUsed() throws Exception {
-        ResultActions resultActions = this.mockMvc.perform(get("/rest/ships/count?shipType=MERCHANT&isUsed=true")
+        ResultActions resultActions = this.perform(get("/rest/ships/count?shipType=MERCHANT&isUsed=true")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -87,7 +91,7 @@ public class GetCountTest extends AbstractTest {
     //test5
     @Test
     public void getCountWithFiltersShipTypeMaxCrewSize() throws Exception {
-        ResultActions resultActions = this.mockMvc.perform(get("/rest/ships/count?shipType=MILITARY&maxCrewSize=400")
+        ResultActions resultActions = this.perform(get("/rest/ships/count?shipType=MILITARY&maxCrewSize=400")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -104,7 +108,7 @@ public class GetCountTest extends AbstractTest {
     //test6
     @Test
     public void getCountWithFiltersPlanet() throws Exception {
-        ResultActions resultActions = this.mockMvc.perform(get("/rest/ships/count?planet=us")
+        ResultActions resultActions = this.perform(get("/rest/ships/count?planet=us")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -120,7 +124,7 @@ public class GetCountTest extends AbstractTest {
     @Test
     public void getCountWithFiltersShipTypeBeforeMaxSpeed() throws Exception {
         //before 00:00 01/01/3015
-        ResultActions resultActions = this.mockMvc.perform(get("/rest/ships/count?shipType=TRANSPORT&before=32976972000000&maxSpeed=0.7")
+        ResultActions resultActions = this.perform(get("/rest/ships/count?shipType=TRANSPORT&before=32976972000000&maxSpeed=0.7")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -138,7 +142,7 @@ public class GetCountTest extends AbstractTest {
     //test8
     @Test
     public void getCountWithFiltersIsUsedMinMaxSpeed() throws Exception {
-        ResultActions resultActions = this.mockMvc.perform(get("/rest/ships/count?isUsed=false&minSpeed=0.3&maxSpeed=0.6")
+        ResultActions resultActions = this.perform(get("/rest/ships/count?isUsed=false&minSpeed=0.3&maxSpeed=0.6")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -152,4 +156,48 @@ public class GetCountTest extends AbstractTest {
 
         assertSame("Во звращается не правильный результат при запросе GET /rest/ships/count с параметрами isUsed, minSpeed и maxSpeed.", expected, actual);
     }
+
+    private long count(String query) throws Exception {
+        MvcResult result = this.perform(get("/rest/ships/count?" + query)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn();
+        return Long.parseLong(result.getResponse().getContentAsString());
+    }
+
+    //test9
+    @Test
+    public void getCountWithFiltersShipTypeIsUsedAfterBefore() throws Exception {
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+        //after 00:00:00.001 01/01/3001, before 00:00 01/01/3011
+        long after = sdf.parse("3001-01-01").getTime() + 1;
+        long before = sdf.parse("3011-01-01").getTime();
+
+        long expected = testsHelper.getShipInfosByBefore(before,
+                testsHelper.getShipInfosByAfter(after,
+                        testsHelper.getShipInfosByIsUsed(false,
+                                testsHelper.getShipInfosByShipType(ShipType.MERCHANT,
+                                        testsHelper.getAllShips())))).size();
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships/count с параметрами shipType, isUsed, after и before.",
+                expected, count("shipType=MERCHANT&isUsed=false&after=" + after + "&before=" + before));
+    }
+
+    //test10
+    @Test
+    public void getCountAfterUpdateOfShipType() throws Exception {
+        long merchant = count("shipType=MERCHANT&isUsed=true");
+        long military = count("shipType=MILITARY&isUsed=true");
+
+        this.perform(post("/rest/ships/1")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"shipType\": \"MILITARY\"}"))
+                .andExpect(status().isOk());
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships/count после обновления shipType.",
+                merchant - 1, count("shipType=MERCHANT&isUsed=true"));
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships/count после обновления shipType.",
+                military + 1, count("shipType=MILITARY&isUsed=true"));
+    }
 }
\ No newline at end of file
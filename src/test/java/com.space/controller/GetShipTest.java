@@ -16,7 +16,7 @@ public class GetShipTest extends AbstractTest {
     //test1
     @Test
     public void getShipByIdEqualZeroTest() throws Exception {
-        mockMvc.perform(get("/rest/ships/0")
+        perform(get("/rest/ships/0")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isBadRequest());
     }
@@ -24,7 +24,7 @@ public class GetShipTest extends AbstractTest {
     //test2
     @Test
     public void getShipByIdNotNumberTest() throws Exception {
-        mockMvc.perform(get("/rest/ships/test")
+        perform(get("/rest/ships/test")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isBadRequest());
     }
@@ -32,7 +32,7 @@ public class GetShipTest extends AbstractTest {
     //test3
     @Test
     public void getShipByIdNotExistTest() throws Exception {
-        mockMvc.perform(get("/rest/ships/410")
+        perform(get("/rest/ships/410")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isNotFound());
     }
@@ -42,7 +42,7 @@ public class GetShipTest extends AbstractTest {
     public void getShipByIdTest() throws Exception {
         ShipInfoTest expected = new TestsHelper().getShipInfosById(14);
 
-        ResultActions resultActions = mockMvc.perform(get("/rest/ships/14")
+        ResultActions resultActions = perform(get("/rest/ships/14")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
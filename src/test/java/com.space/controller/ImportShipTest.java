@@ -0,0 +1,145 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.cache.ShipChangeCounter;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import com.space.service.ShipImporter;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ImportShipTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    private long count(String query) throws Exception {
+        MvcResult result = perform(get("/rest/ships/count?" + query)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn();
+        return Long.parseLong(result.getResponse().getContentAsString());
+    }
+
+    private JsonNode importShips(String format, String content) throws Exception {
+        MvcResult result = perform(post("/rest/ships/import?format=" + format)
+                .contentType(MediaType.TEXT_PLAIN)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(content))
+                .andExpect(status().isOk())
+                .andReturn();
+        return mapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    //test1
+    @Test
+    public void importNdjsonTest() throws Exception {
+        JsonNode report = importShips("NDJSON", TestsHelper.NORMAL_JSON + "\n\n" + TestsHelper.NO_SPEED_JSON + "\n{broken\n" + TestsHelper.NORMAL_JSON + "\n");
+
+        assertEquals("Не правильный статус импорта.", "DONE", report.get("state").asText());
+        assertEquals("Не правильное количество записей в отчете импорта.", 4L, report.get("records").asLong());
+        assertEquals("Не правильное количество сохраненных кораблей в отчете импорта.", 2L, report.get("inserted").asLong());
+        assertEquals("Не правильное количество отклоненных записей в отчете импорта.", 2L, report.get("rejected").asLong());
+        Set<Integer> lines = new HashSet<>();
+        report.get("errors").forEach(error -> lines.add(error.get("index").asInt()));
+        assertEquals("Ошибки импорта указывают не на те строки.", new HashSet<>(Arrays.asList(3, 4)), lines);
+        assertEquals("Корабли не сохранены при импорте.", 42L, count(""));
+    }
+
+    //test2
+    @Test
+    public void importCsvTest() throws Exception {
+        String csv = "shipType,name,planet,prodDate,isUsed,speed,crewSize\r\n"
+                + "MILITARY,\"Comma, Inc\",Earth,3010-01-01,true,0.5,100\r\n"
+                + "MERCHANT,\"Multi\nline\",Mars,3000-01-01,,0.5,100\r\n"
+                + "TRANSPORT,Slow,Venus,1900-01-01,false,0.5,100\r\n";
+        JsonNode report = importShips("CSV", csv);
+
+        assertEquals("Не правильное количество сохраненных кораблей в отчете импорта.", 2L, report.get("inserted").asLong());
+        assertEquals("Ошибка импорта указывает не на ту строку.", 5, report.get("errors").get(0).get("index").asInt());
+        assertEquals("Не сохранен корабль с запятой в имени.", 1L, count("name=Comma, Inc"));
+    }
+
+    //test3
+    @Test
+    public void exportImportRoundTripTest() throws Exception {
+        long merchants = testsHelper.getShipInfosByShipType(ShipType.MERCHANT, testsHelper.getAllShips()).size();
+        MvcResult export = mockMvc.perform(get("/rest/ships/export?shipType=MERCHANT&format=CSV")).andReturn();
+        mockMvc.perform(asyncDispatch(export)).andExpect(status().isOk());
+
+        JsonNode report = importShips("CSV", export.getResponse().getContentAsString());
+
+        assertEquals("Не все выгруженные корабли загружены обратно.", merchants, report.get("inserted").asLong());
+        assertEquals("Не правильное количество кораблей после импорта.", 2 * merchants, count("shipType=MERCHANT"));
+    }
+
+    //test4
+    @Test
+    public void importCsvWithoutHeaderTest() throws Exception {
+        perform(post("/rest/ships/import?format=CSV")
+                .contentType(MediaType.TEXT_PLAIN)
+                .content("1,2,3\r\n"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test5
+    @Test
+    public void importFileDisabledTest() throws Exception {
+        perform(post("/rest/ships/import?format=CSV&path=ships.csv"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test6
+    @Test
+    public void strayQuoteRejectsOneBoundedRecordTest() throws Exception {
+        StringBuilder csv = new StringBuilder("shipType,name,planet,prodDate,isUsed,speed,crewSize\r\n")
+                .append("MILITARY,\"Broken,Earth,3010-01-01,true,0.5,100\r\n");
+        for (int i = 0; i < 3000; i++) {
+            csv.append("TRANSPORT,Ship ").append(i).append(",Venus,3005-01-01,false,0.5,100\r\n");
+        }
+        JsonNode report = importShips("CSV", csv.toString());
+
+        assertEquals("Не правильный статус импорта.", "DONE", report.get("state").asText());
+        assertEquals("Запись с лишней кавычкой должна быть отклонена одна.", 1L, report.get("rejected").asLong());
+        assertEquals("Ошибка импорта указывает не на ту строку.", 2, report.get("errors").get(0).get("index").asInt());
+        assertEquals("Записи после слишком длинной не разобраны по отдельности.",
+                report.get("records").asLong() - 1, report.get("inserted").asLong());
+        assertEquals("Строки после слишком длинной записи не импортированы.", true, report.get("inserted").asLong() > 1000);
+    }
+
+    //test7
+    @Test
+    public void everyWrittenBatchChangesListTagTest() throws Exception {
+        ShipImporter importer = context.getBean(ShipImporter.class);
+        ReflectionTestUtils.setField(importer, "batchSize", 2);
+        ShipChangeCounter counter = context.getBean(ShipChangeCounter.class);
+        String before = counter.tag();
+        try {
+            StringBuilder csv = new StringBuilder("shipType,name,planet,prodDate,isUsed,speed,crewSize\r\n");
+            for (int i = 0; i < 5; i++) {
+                csv.append("TRANSPORT,Batch ").append(i).append(",Venus,3005-01-01,false,0.5,100\r\n");
+            }
+            importShips("CSV", csv.toString());
+        } finally {
+            ReflectionTestUtils.setField(importer, "batchSize", 500);
+        }
+
+        long changes = Long.parseLong(counter.tag().substring(counter.tag().indexOf('-') + 1))
+                - Long.parseLong(before.substring(before.indexOf('-') + 1));
+        assertEquals("Тег списков меняется не один раз на каждую записанную пачку.", 3L, changes);
+        assertEquals("Счетчики не видят импортированные корабли.", 5L, count("name=Batch"));
+    }
+}
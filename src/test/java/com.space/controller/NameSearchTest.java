@@ -0,0 +1,96 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class NameSearchTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<ShipInfoTest>> typeReference = new TypeReference<List<ShipInfoTest>>() {
+    };
+
+    private long count(String query) throws Exception {
+        MvcResult result = perform(get("/rest/ships/count?" + query)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn();
+        return Long.parseLong(result.getResponse().getContentAsString());
+    }
+
+    //test1
+    @Test
+    public void getAllWithLongNameTerm() throws Exception {
+        MvcResult result = perform(get("/rest/ships?name=tar&pageSize=10")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        List<ShipInfoTest> actual = mapper.readValue(result.getResponse().getContentAsString(), typeReference);
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByPage(0, 10,
+                testsHelper.getShipInfosByName("tar",
+                        testsHelper.getAllShips()));
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships с параметром name из трех и более символов.", expected, actual);
+    }
+
+    //test2
+    @Test
+    public void getCountWithLongPlanetTerm() throws Exception {
+        long expected = testsHelper.getShipInfosByPlanet("turn", testsHelper.getAllShips()).size();
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships/count с параметром planet из трех и более символов.",
+                expected, count("planet=turn"));
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships/count с несуществующим planet.",
+                0L, count("planet=Pluto"));
+    }
+
+    //test3
+    @Test
+    public void createdShipIsFoundByName() throws Exception {
+        perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON.replace("123456789", "Quasar Runner")))
+                .andExpect(status().isOk());
+
+        assertEquals("Созданный корабль не находится по имени.", 1L, count("name=asar Run"));
+    }
+
+    //test4
+    @Test
+    public void updatedShipIsFoundByNewNameOnly() throws Exception {
+        perform(post("/rest/ships/1")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\": \"Zephyr\", \"planet\": \"Pluto\"}"))
+                .andExpect(status().isOk());
+
+        assertEquals("Корабль находится по старому имени после обновления.", 0L, count("name=Orion"));
+        assertEquals("Корабль не находится по новому имени после обновления.", 1L, count("name=Zephyr"));
+        assertEquals("Корабль не находится по новой планете после обновления.", 1L, count("planet=Pluto"));
+    }
+
+    //test5
+    @Test
+    public void deletedShipIsNotFoundByName() throws Exception {
+        perform(delete("/rest/ships/40")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        assertEquals("Удаленный корабль находится по имени.", 0L, count("name=Destroyer"));
+    }
+}
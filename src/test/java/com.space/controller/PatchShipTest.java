@@ -0,0 +1,100 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.sql.DataSource;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class PatchShipTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    private MvcResult getShip(long id) throws Exception {
+        return perform(get("/rest/ships/" + id)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn();
+    }
+
+    //test1
+    @Test
+    public void patchChangesOnlySuppliedFields() throws Exception {
+        String etag = getShip(14).getResponse().getHeader(HttpHeaders.ETAG);
+
+        MvcResult result = perform(patch("/rest/ships/14")
+                .header(HttpHeaders.IF_MATCH, etag)
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"speed\":0.5}"))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertNotEquals("ETag не изменился после PATCH.", etag, result.getResponse().getHeader(HttpHeaders.ETAG));
+
+        JsonNode ship = mapper.readTree(getShip(14).getResponse().getContentAsString());
+        assertEquals("Скорость не обновлена.", 0.5, ship.get("speed").asDouble());
+        assertEquals("Рейтинг не пересчитан.", 6.67, ship.get("rating").asDouble());
+        assertEquals("Изменено поле, не переданное в запросе.", "Scorpio E-X-1", ship.get("name").asText());
+    }
+
+    //test2
+    @Test
+    public void staleEtagReturnsConflict() throws Exception {
+        String etag = getShip(14).getResponse().getHeader(HttpHeaders.ETAG);
+
+        perform(patch("/rest/ships/14")
+                .header(HttpHeaders.IF_MATCH, etag)
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\":\"First\"}"))
+                .andExpect(status().isOk());
+
+        perform(patch("/rest/ships/14")
+                .header(HttpHeaders.IF_MATCH, etag)
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\":\"Second\"}"))
+                .andExpect(status().isConflict());
+
+        JsonNode ship = mapper.readTree(getShip(14).getResponse().getContentAsString());
+        assertEquals("Конфликтующее изменение перезаписало корабль.", "First", ship.get("name").asText());
+    }
+
+    //test3
+    @Test
+    public void invalidFieldIsRejected() throws Exception {
+        perform(patch("/rest/ships/14")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"crewSize\":10000}"))
+                .andExpect(status().isBadRequest());
+
+        perform(patch("/rest/ships/4000")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"crewSize\":10}"))
+                .andExpect(status().isNotFound());
+    }
+
+    //test4
+    @Test
+    public void shipChangedPastCacheIsReadAgain() throws Exception {
+        getShip(14);
+        new JdbcTemplate(context.getBean(DataSource.class)).update("UPDATE ship SET name = 'Elsewhere', version = version + 1 WHERE id = 14");
+
+        perform(patch("/rest/ships/14")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"speed\":0.5}"))
+                .andExpect(status().isOk());
+
+        JsonNode ship = mapper.readTree(getShip(14).getResponse().getContentAsString());
+        assertEquals("Скорость не обновлена.", 0.5, ship.get("speed").asDouble());
+        assertEquals("PATCH вернул поле из устаревшей копии корабля.", "Elsewhere", ship.get("name").asText());
+    }
+}
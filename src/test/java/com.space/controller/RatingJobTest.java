@@ -0,0 +1,215 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.repository.ShipRepository;
+import com.space.service.ShipService;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Calendar;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = {"rating.currentYear=3029", "rating.rerate.autoStart=false",
+        "rating.rerate.chunkSize=7", "rating.rerate.rowsPerSecond=0"})
+public class RatingJobTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    private static double rating(ShipInfoTest ship, int year) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(ship.prodDate);
+        double result = 80 * ship.speed * (ship.isUsed ? 0.5 : 1) / (year - calendar.get(Calendar.YEAR) + 1);
+        return BigDecimal.valueOf(result).setScale(2, RoundingMode.HALF_UP).doubleValue();
+    }
+
+    private JsonNode progress() throws Exception {
+        return mapper.readTree(perform(get("/rest/rating-job")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private JsonNode runJob(boolean restart) throws Exception {
+        perform(post("/rest/rating-job?restart=" + restart)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+        long deadline = System.currentTimeMillis() + 10_000;
+        JsonNode progress = progress();
+        while (progress.get("state").asText().equals("RUNNING") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            progress = progress();
+        }
+        return progress;
+    }
+
+    private double storedRating(long id) {
+        return new JdbcTemplate(context.getBean(DataSource.class)).queryForObject("SELECT rating FROM ship WHERE id = ?", Double.class, id);
+    }
+
+    //test1
+    @Test
+    public void jobMovesAllRatingsToConfiguredYear() throws Exception {
+        JsonNode progress = runJob(true);
+
+        assertEquals("Задача пересчета не завершилась.", "IDLE", progress.get("state").asText());
+        assertEquals("Опорный год не обновлен.", 3029, progress.get("referenceYear").asInt());
+        assertEquals("Пересчитаны не все корабли.", 40L, progress.get("updated").asLong());
+        for (ShipInfoTest ship : testsHelper.getAllShips()) {
+            assertEquals("Рейтинг не пересчитан для корабля " + ship.id, rating(ship, 3029), storedRating(ship.id));
+        }
+    }
+
+    //test2
+    @Test
+    public void interruptedPassResumesAfterLastChunk() throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+        jdbcTemplate.update("UPDATE rating_job SET reference_year = 3019, target_year = 3029, last_id = 21, updated = 21 WHERE id = 1");
+        jdbcTemplate.update("INSERT INTO ship_rating_next (id, rating, version) SELECT id, 50, version FROM ship WHERE id <= 21");
+        // Changed after its chunk, the stored rating no longer matches the ship
+        jdbcTemplate.update("UPDATE ship SET version = version + 1 WHERE id = 5");
+
+        JsonNode progress = runJob(false);
+
+        assertEquals("Пересчитаны не все корабли.", 40L, progress.get("updated").asLong());
+        for (ShipInfoTest ship : testsHelper.getAllShips()) {
+            double expected = ship.id <= 21 && ship.id != 5 ? 50 : rating(ship, 3029);
+            assertEquals("Пересчет продолжен не с места остановки для корабля " + ship.id, expected, storedRating(ship.id));
+        }
+        assertEquals("Промежуточные рейтинги не удалены.", 0,
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ship_rating_next", Integer.class).intValue());
+    }
+
+    //test3
+    @Test
+    public void tieIsRoundedLikeService() throws Exception {
+        // 80 * 0.06 / 192 is 0.025 in exact decimal arithmetic but just below it as a double
+        new JdbcTemplate(context.getBean(DataSource.class)).update(
+                "UPDATE ship SET speed = 0.06, isUsed = FALSE, prodDate = ? WHERE id = 1", Date.valueOf("2838-01-01"));
+
+        runJob(true);
+
+        assertEquals("Рейтинг на границе округления расходится с сервисом.", 0.02, storedRating(1));
+    }
+
+    //test4
+    @Test
+    public void unfinishedPassIsNotVisible() throws Exception {
+        new JdbcTemplate(context.getBean(DataSource.class)).update(
+                "UPDATE rating_job SET reference_year = 3019, target_year = 3029, last_id = 0, updated = 0 WHERE id = 1");
+        context.getBean(ShipService.class).reindex();
+
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).execute(status ->
+                context.getBean(ShipRepository.class).rerateChunk(0, 7, ship -> 99));
+
+        for (ShipInfoTest ship : testsHelper.getAllShips()) {
+            assertEquals("Рейтинг изменен до конца пересчета для корабля " + ship.id, ship.rating, storedRating(ship.id));
+        }
+        JsonNode created = mapper.readTree(perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.CORRECT_COMPUTE_RATING_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        assertEquals("Новый корабль должен получить рейтинг опорного года.", 1.78, created.get("rating").asDouble());
+    }
+
+    //test5
+    @Test
+    public void shipNotRatableForReferenceYearIsRejected() throws Exception {
+        new JdbcTemplate(context.getBean(DataSource.class)).update(
+                "UPDATE rating_job SET reference_year = 3019, target_year = 3029, last_id = 0, updated = 0 WHERE id = 1");
+        context.getBean(ShipService.class).reindex();
+        long prodDate = LocalDate.of(3025, 6, 1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.CORRECT_COMPUTE_RATING_JSON.replace("32872203569853", String.valueOf(prodDate))))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test6
+    @Test
+    public void interruptedCopyResumesWithNewYear() throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+        jdbcTemplate.update("UPDATE rating_job SET reference_year = 3019, target_year = 3029, copying = TRUE, last_id = 21, "
+                + "updated = 40 WHERE id = 1");
+        jdbcTemplate.update("INSERT INTO ship_rating_next (id, rating, version) SELECT id, 50, version FROM ship WHERE id > 21");
+        context.getBean(ShipService.class).reindex();
+
+        JsonNode created = mapper.readTree(perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.CORRECT_COMPUTE_RATING_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        assertEquals("Во время копирования новый корабль должен получить рейтинг целевого года.", 0.84, created.get("rating").asDouble());
+
+        JsonNode progress = runJob(false);
+
+        assertEquals("Опорный год не обновлен.", 3029, progress.get("referenceYear").asInt());
+        for (ShipInfoTest ship : testsHelper.getAllShips()) {
+            double expected = ship.id <= 21 ? ship.rating : 50;
+            assertEquals("Копирование продолжено не с места остановки для корабля " + ship.id, expected, storedRating(ship.id));
+        }
+        assertEquals("Рейтинг нового корабля изменен копированием.", 0.84, storedRating(created.get("id").asLong()));
+        assertEquals("Промежуточные рейтинги не удалены.", 0,
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ship_rating_next", Integer.class).intValue());
+    }
+
+    //test7
+    @Test
+    public void searchesDuringCopySeeTargetYear() throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+        jdbcTemplate.update("UPDATE rating_job SET reference_year = 3019, target_year = 3029, copying = TRUE, last_id = 21, "
+                + "updated = 40 WHERE id = 1");
+        jdbcTemplate.update("DELETE FROM ship_rating_next");
+        jdbcTemplate.update("INSERT INTO ship_rating_next (id, rating, version) SELECT id, 50, version FROM ship WHERE id > 21");
+        context.getBean(ShipService.class).reindex();
+
+        String count = perform(get("/rest/ships/count?minRating=50")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Фильтр по рейтингу во время копирования не учитывает рейтинги целевого года.", "19", count);
+
+        JsonNode sorted = mapper.readTree(perform(get("/rest/ships?order=RATING&pageSize=40")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        for (int i = 21; i < 40; i++) {
+            assertEquals("Сортировка по рейтингу во время копирования смешивает годы.", true, sorted.get(i).get("id").asLong() > 21);
+            assertEquals("Во время копирования показан рейтинг опорного года.", 50.0, sorted.get(i).get("rating").asDouble());
+        }
+
+        String etag = perform(get("/rest/ships/30")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertEquals("ETag не отличает рейтинг целевого года.", true, etag.contains("-n"));
+
+        runJob(false);
+
+        assertEquals("После копирования фильтр по рейтингу дает другой результат.", "19", perform(get("/rest/ships/count?minRating=50")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,95 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Counts that the bitmaps or the k-d tree answer never reach the cache
+@TestPropertySource(properties = {"bitmaps.enabled=false", "kdtree.enabled=false"})
+public class SearchCacheTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    private long count(String query) throws Exception {
+        MvcResult result = perform(get("/rest/ships/count?" + query)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn();
+        return Long.parseLong(result.getResponse().getContentAsString());
+    }
+
+    private JsonNode stats() throws Exception {
+        MvcResult result = perform(get("/rest/cache/search/stats")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn();
+        return mapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    //test1
+    @Test
+    public void repeatedCountIsServedFromCache() throws Exception {
+        long expected = testsHelper.getShipInfosByShipType(ShipType.MERCHANT, testsHelper.getAllShips()).size();
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships/count.", expected, count("shipType=MERCHANT&minCrewSize=1"));
+
+        long hits = stats().get("hits").asLong();
+        assertEquals("Возвращается не правильный результат при повторном запросе GET /rest/ships/count.", expected, count("shipType=MERCHANT&minCrewSize=1"));
+        assertEquals("Повторный запрос не обслуживается из кэша.", hits + 1, stats().get("hits").asLong());
+    }
+
+    //test2
+    @Test
+    public void createInvalidatesOnlyMatchingFilters() throws Exception {
+        long military = count("shipType=MILITARY&minCrewSize=1");
+        long merchant = count("shipType=MERCHANT&minCrewSize=1");
+        long invalidations = stats().get("invalidations").asLong();
+
+        perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+
+        assertEquals("Кэш не сброшен для фильтра, которому соответствует новый корабль.", invalidations + 1, stats().get("invalidations").asLong());
+        assertEquals("Возвращается устаревший результат после создания корабля.", military + 1, count("shipType=MILITARY&minCrewSize=1"));
+        assertEquals("Возвращается не правильный результат для фильтра, не затронутого созданием.", merchant, count("shipType=MERCHANT&minCrewSize=1"));
+    }
+
+    //test3
+    @Test
+    public void wildcardTermIsNotCached() throws Exception {
+        // "_" matches any character in LIKE, so "3_5" finds the new ship named 123456789
+        long before = count("name=3_5");
+
+        perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+
+        assertEquals("Возвращается устаревший результат для фильтра с шаблоном LIKE.", before + 1, count("name=3_5"));
+    }
+
+    //test4
+    @Test
+    public void equivalentFiltersShareEntry() throws Exception {
+        long expected = count("shipType=MERCHANT&minCrewSize=2&name=&after=32503669212345");
+
+        long hits = stats().get("hits").asLong();
+        // An empty term and a bound later on the same day select the same ships
+        assertEquals("Возвращается не правильный результат для равносильного фильтра.", expected,
+                count("shipType=MERCHANT&minCrewSize=2&after=32503669212346"));
+        assertEquals("Равносильный фильтр не обслуживается из кэша.", hits + 1, stats().get("hits").asLong());
+    }
+}
@@ -0,0 +1,94 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class SearchShipTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<ShipInfoTest>> typeReference = new TypeReference<List<ShipInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void searchWithoutFiltersReturnFirstPageAndTotal() throws Exception {
+        ResultActions resultActions = perform(get("/rest/ships/search")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        MvcResult result = resultActions.andReturn();
+        JsonNode page = mapper.readTree(result.getResponse().getContentAsString());
+
+        List<ShipInfoTest> actual = mapper.convertValue(page.get("items"), typeReference);
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByPage(0, 3,
+                testsHelper.getAllShips());
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships/search.", expected, actual);
+        assertEquals("Возвращается не правильный total при запросе GET /rest/ships/search.",
+                (long) testsHelper.getAllShips().size(), page.get("total").asLong());
+        assertEquals("Возвращается не правильный pageNumber при запросе GET /rest/ships/search.", 0, page.get("pageNumber").asInt());
+        assertEquals("Возвращается не правильный pageSize при запросе GET /rest/ships/search.", 3, page.get("pageSize").asInt());
+    }
+
+    //test2
+    @Test
+    public void searchNextPageWithSameFilterKeepsTotal() throws Exception {
+        List<ShipInfoTest> filtered = testsHelper.getShipInfosByShipType(ShipType.TRANSPORT,
+                testsHelper.getAllShips());
+
+        for (int pageNumber = 0; pageNumber < 3; pageNumber++) {
+            ResultActions resultActions = perform(get("/rest/ships/search?shipType=TRANSPORT&pageSize=4&pageNumber=" + pageNumber)
+                    .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk());
+
+            MvcResult result = resultActions.andReturn();
+            JsonNode page = mapper.readTree(result.getResponse().getContentAsString());
+
+            List<ShipInfoTest> actual = mapper.convertValue(page.get("items"), typeReference);
+            List<ShipInfoTest> expected = testsHelper.getShipInfosByPage(pageNumber, 4, filtered);
+
+            assertEquals("Возвращается не правильный результат при запросе GET /rest/ships/search с параметрами shipType и pageNumber.", expected, actual);
+            assertEquals("Возвращается не правильный total при запросе GET /rest/ships/search с параметрами shipType и pageNumber.",
+                    (long) filtered.size(), page.get("total").asLong());
+        }
+    }
+
+    //test3
+    @Test
+    public void searchTotalIsRecountedAfterDelete() throws Exception {
+        perform(get("/rest/ships/search?shipType=MILITARY")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        long militaryId = testsHelper.getShipInfosByShipType(ShipType.MILITARY, testsHelper.getAllShips()).get(0).id;
+        perform(delete("/rest/ships/" + militaryId)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        MvcResult result = perform(get("/rest/ships/search?shipType=MILITARY&pageNumber=1")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn();
+        JsonNode page = mapper.readTree(result.getResponse().getContentAsString());
+
+        long expected = testsHelper.getShipInfosByShipType(ShipType.MILITARY, testsHelper.getAllShips()).size() - 1;
+        assertEquals("Возвращается не правильный total при запросе GET /rest/ships/search после удаления корабля.",
+                expected, page.get("total").asLong());
+    }
+}
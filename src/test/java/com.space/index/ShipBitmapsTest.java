@@ -0,0 +1,83 @@
+package com.space.index;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.service.ShipFilter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
+
+// Writes notified while a rebuild reads the table must still be in the bitmaps that the rebuild swaps in
+public class ShipBitmapsTest {
+
+    private final ShipBitmaps bitmaps = new ShipBitmaps(true, 1000);
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+
+    private static Ship ship(long id, ShipType type, double rating) {
+        Date prodDate = Date.from(LocalDate.of(3000, 1, 1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        Ship ship = new Ship("Orion", "Mars", type, prodDate, false, 0.5, 100, rating);
+        ship.setId(id);
+        return ship;
+    }
+
+    private static ShipFilter filter(ShipType type, Double minRating) {
+        return new ShipFilter(null, null, type, null, null, null, null, null, null, null, minRating, null);
+    }
+
+    private long count(ShipFilter filter) {
+        return bitmaps.count(filter, ids -> {
+            throw new AssertionError("Рейтинги совпадают с границами корзин, уточнение не нужно.");
+        });
+    }
+
+    @Before
+    public void createTable() {
+        database = new EmbeddedDatabaseBuilder().generateUniqueName(true).setType(H2).build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE ship (id BIGINT PRIMARY KEY, shipType VARCHAR(9), prodDate DATE, "
+                + "isUsed BOOLEAN, speed DOUBLE, crewSize INT, rating DOUBLE)");
+        jdbcTemplate.update("INSERT INTO ship VALUES (1, 'MERCHANT', '3000-01-01', FALSE, 0.5, 100, 10), "
+                + "(2, 'MILITARY', '3000-01-01', FALSE, 0.5, 100, 10)");
+    }
+
+    @After
+    public void dropTable() {
+        database.shutdown();
+    }
+
+    //test1
+    @Test
+    public void changesDuringRebuildAreReplayed() {
+        bitmaps.rebuild(new JdbcTemplate(database) {
+            @Override
+            public void query(String sql, RowCallbackHandler handler) {
+                // Seen by the read, and notified after it
+                jdbcTemplate.update("DELETE FROM ship WHERE id = 2");
+                super.query(sql, handler);
+                bitmaps.shipDeleted(ship(2, ShipType.MILITARY, 10));
+                // Committed after the read
+                jdbcTemplate.update("INSERT INTO ship VALUES (3, 'MILITARY', '3000-01-01', FALSE, 0.5, 100, 10)");
+                bitmaps.shipCreated(ship(3, ShipType.MILITARY, 10));
+                jdbcTemplate.update("UPDATE ship SET shipType = 'MILITARY' WHERE id = 1");
+                bitmaps.shipUpdated(ship(1, ShipType.MERCHANT, 10), ship(1, ShipType.MILITARY, 10));
+            }
+        });
+
+        assertEquals(2, bitmaps.size());
+        assertEquals(2, count(filter(ShipType.MILITARY, null)));
+        assertEquals(0, count(filter(ShipType.MERCHANT, null)));
+    }
+
+}
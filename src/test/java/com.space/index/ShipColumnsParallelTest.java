@@ -0,0 +1,78 @@
+package com.space.index;
+
+import com.space.controller.ShipOrder;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.service.ShipFilter;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+// The partitioned scan has to give the same counts and pages as the request thread scanning alone
+public class ShipColumnsParallelTest {
+
+    private final Random random = new Random(11);
+    private final ShipColumns sequential = new ShipColumns(true);
+    private final ShipColumns parallel = new ShipColumns(true, 4, 1);
+
+    @After
+    public void shutDown() {
+        parallel.destroy();
+    }
+
+    private Ship ship(long id) {
+        ShipType[] types = ShipType.values();
+        Ship ship = new Ship("Ship " + random.nextInt(1000), "Planet " + random.nextInt(20), types[random.nextInt(types.length)],
+                new Date(26192246400000L + (long) random.nextInt(1_000_000) * 1_000_000L), random.nextBoolean(),
+                (random.nextInt(99) + 1) / 100.0, random.nextInt(9999) + 1, random.nextInt(80) + 0.5);
+        ship.setId(id);
+        return ship;
+    }
+
+    private ShipFilter randomFilter() {
+        return new ShipFilter(random.nextInt(4) == 0 ? String.valueOf(random.nextInt(10)) : null,
+                random.nextInt(4) == 0 ? "planet 1" : null,
+                random.nextInt(3) == 0 ? ShipType.values()[random.nextInt(ShipType.values().length)] : null,
+                null, null,
+                random.nextInt(3) == 0 ? random.nextBoolean() : null,
+                random.nextBoolean() ? random.nextInt(50) / 100.0 : null, null,
+                null, random.nextBoolean() ? random.nextInt(9999) : null,
+                null, random.nextBoolean() ? (double) random.nextInt(80) : null);
+    }
+
+    private static List<Long> ids(List<Ship> ships) {
+        return ships.stream().map(Ship::getId).collect(Collectors.toList());
+    }
+
+    //test1
+    @Test
+    public void partitionsMatchSingleThread() {
+        for (long id = 1; id <= 30_000; id++) {
+            Ship ship = ship(id);
+            sequential.shipCreated(ship);
+            parallel.shipCreated(ship);
+        }
+        // Deleted rows stay in place until compaction, partitions have to skip them as well
+        for (long id = 5; id <= 30_000; id += 7) {
+            Ship ship = new Ship();
+            ship.setId(id);
+            sequential.shipDeleted(ship);
+            parallel.shipDeleted(ship);
+        }
+        for (int i = 0; i < 100; i++) {
+            ShipFilter filter = randomFilter();
+            assertEquals("Количество при параллельном просмотре расходится.", sequential.count(filter), parallel.count(filter));
+            for (ShipOrder order : ShipOrder.values()) {
+                long offset = random.nextInt(3) * 20L;
+                assertEquals("Страница при параллельном просмотре расходится (" + order + ").",
+                        ids(sequential.find(filter, order, offset, 20)), ids(parallel.find(filter, order, offset, 20)));
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.space.index;
+
+import com.space.controller.ShipOrder;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.service.ShipFilter;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
+
+// The column store answers instead of the database, so it must either give the database's answer or none
+public class ShipColumnsTest {
+
+    private final ShipColumns columns = new ShipColumns(true);
+
+    @After
+    public void shutDown() {
+        columns.destroy();
+    }
+
+    private static Ship ship(long id, String name) {
+        Ship ship = new Ship(name, "Mars", ShipType.MERCHANT, new Date(26192246400000L), false, 0.5, 100, 1.0);
+        ship.setId(id);
+        return ship;
+    }
+
+    private static ShipFilter byName(String name) {
+        return new ShipFilter(name, null, null, null, null, null, null, null, null, null, null, null);
+    }
+
+    //test1
+    @Test
+    public void accentsAreFoldedLikeTheCollation() {
+        columns.shipCreated(ship(1, "Orión"));
+        columns.shipCreated(ship(2, "Orion III"));
+        columns.shipCreated(ship(3, "Daedalus"));
+
+        assertEquals(Long.valueOf(2), columns.count(byName("ORION")));
+        assertEquals(2, columns.find(byName("orión"), ShipOrder.ID, 0, 10).size());
+    }
+
+    //test2
+    @Test
+    public void unfoldableNamesAreLeftToTheDatabase() {
+        columns.shipCreated(ship(1, "Straße"));
+        columns.shipCreated(ship(2, "Orion III"));
+
+        assertNull(columns.count(byName("strase")));
+        assertNull(columns.find(byName("orion"), ShipOrder.ID, 0, 10));
+        assertEquals(Long.valueOf(2), columns.count(byName(null)));
+    }
+
+    private static EmbeddedDatabase database() {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder().generateUniqueName(true).setType(H2).build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE ship (id BIGINT PRIMARY KEY, name VARCHAR(50), planet VARCHAR(50), shipType VARCHAR(9), "
+                + "prodDate DATE, isUsed BOOLEAN, speed DOUBLE, crewSize INT, rating DOUBLE)");
+        jdbcTemplate.update("INSERT INTO ship VALUES (1, 'Orion III', 'Mars', 'MERCHANT', '3000-01-01', FALSE, 0.5, 100, 1), "
+                + "(2, 'Daedalus', 'Mars', 'MERCHANT', '3000-01-01', FALSE, 0.5, 100, 1)");
+        return database;
+    }
+
+    //test3
+    @Test
+    public void changesDuringRebuildAreReplayed() {
+        EmbeddedDatabase database = database();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        try {
+            columns.rebuild(new JdbcTemplate(database) {
+                @Override
+                public void query(String sql, RowCallbackHandler handler) {
+                    // Seen by the read, and notified after it
+                    jdbcTemplate.update("DELETE FROM ship WHERE id = 2");
+                    super.query(sql, handler);
+                    columns.shipDeleted(ship(2, "Daedalus"));
+                    // Committed after the read
+                    jdbcTemplate.update("INSERT INTO ship VALUES (3, 'Serenity', 'Mars', 'MERCHANT', '3000-01-01', FALSE, 0.5, 100, 1)");
+                    columns.shipCreated(ship(3, "Serenity"));
+                    jdbcTemplate.update("UPDATE ship SET name = 'Orion IV' WHERE id = 1");
+                    columns.shipUpdated(ship(1, "Orion III"), ship(1, "Orion IV"));
+                }
+            });
+        } finally {
+            database.shutdown();
+        }
+
+        assertEquals(Long.valueOf(2), columns.count(byName(null)));
+        assertEquals(Long.valueOf(1), columns.count(byName("Serenity")));
+        assertEquals(Long.valueOf(1), columns.count(byName("Orion IV")));
+        assertEquals(Long.valueOf(0), columns.count(byName("Daedalus")));
+    }
+
+
+    //test4
+    @Test
+    public void unfoldableNameIsForgottenOnceGone() {
+        columns.shipCreated(ship(1, "Straße"));
+        columns.shipCreated(ship(2, "Orion III"));
+        columns.shipCreated(ship(3, "Mozart"));
+        assertNull(columns.count(byName("orion")));
+
+        columns.shipUpdated(ship(1, "Straße"), ship(1, "Strasse"));
+        columns.shipCreated(ship(4, "Straße"));
+        columns.shipDeleted(ship(4, "Straße"));
+
+        assertEquals(Long.valueOf(1), columns.count(byName("orion")));
+        assertEquals(Long.valueOf(1), columns.count(byName("strasse")));
+    }
+
+    //test5
+    @Test
+    public void renamesAreCompactedAway() {
+        columns.shipCreated(ship(1, "Orion"));
+        columns.shipCreated(ship(2, "Daedalus"));
+        columns.shipCreated(ship(3, "Orion III"));
+        for (int i = 0; i < 3000; i++) {
+            columns.shipUpdated(ship(2, "Daedalus " + i), ship(2, "Daedalus " + (i + 1)));
+        }
+
+        assertEquals(Long.valueOf(2), columns.count(byName("orion")));
+        assertEquals(Long.valueOf(1), columns.count(byName("daedalus 3000")));
+        assertEquals(Long.valueOf(0), columns.count(byName("daedalus 2999")));
+        List<Ship> found = columns.find(byName(null), ShipOrder.ID, 0, 10);
+        assertEquals("Orion", found.get(0).getName());
+        assertEquals("Daedalus 3000", found.get(1).getName());
+        assertEquals("Orion III", found.get(2).getName());
+    }
+}
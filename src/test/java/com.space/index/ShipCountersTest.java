@@ -0,0 +1,127 @@
+package com.space.index;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.service.ShipFilter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
+
+// Writes notified while a rebuild reads the table must be counted once in the counts that the rebuild swaps in
+public class ShipCountersTest {
+
+    private final ShipCounters counters = new ShipCounters(true);
+    private EmbeddedDatabase database;
+
+    private static Ship ship(long id, ShipType type, int year) {
+        Date prodDate = Date.from(LocalDate.of(year, 1, 1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        Ship ship = new Ship("Orion", "Mars", type, prodDate, false, 0.5, 100, 1.0);
+        ship.setId(id);
+        return ship;
+    }
+
+    private static ShipFilter byType(ShipType type) {
+        return new ShipFilter(null, null, type, null, null, null, null, null, null, null, null, null);
+    }
+
+    @Before
+    public void createTable() {
+        database = new EmbeddedDatabaseBuilder().generateUniqueName(true).setType(H2).build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE ship (id BIGINT PRIMARY KEY, shipType VARCHAR(9), isUsed BOOLEAN, prodDate DATE)");
+        jdbcTemplate.update("INSERT INTO ship VALUES (1, 'MERCHANT', FALSE, '3000-01-01'), (2, 'MILITARY', FALSE, '3001-01-01')");
+    }
+
+    @After
+    public void dropTable() {
+        database.shutdown();
+    }
+
+    // Outside the rebuild transaction, like the writes of the application
+    private void write(String sql) {
+        try (Connection connection = database.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate(sql);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void rebuild(Runnable beforeRead, Runnable afterRead) {
+        counters.rebuild(new JdbcTemplate(database) {
+            @Override
+            public void query(String sql, RowCallbackHandler handler) {
+                beforeRead.run();
+                super.query(sql, handler);
+                afterRead.run();
+            }
+        }, new TransactionTemplate(new DataSourceTransactionManager(database)));
+    }
+
+    private void notifyChanges() {
+        counters.shipCreated(ship(3, ShipType.MILITARY, 3002));
+        counters.shipUpdated(ship(1, ShipType.MERCHANT, 3000), ship(1, ShipType.MILITARY, 3000));
+        counters.shipDeleted(ship(2, ShipType.MILITARY, 3001));
+    }
+
+    private void writeChanges() {
+        write("INSERT INTO ship VALUES (3, 'MILITARY', FALSE, '3002-01-01')");
+        write("UPDATE ship SET shipType = 'MILITARY' WHERE id = 1");
+        write("DELETE FROM ship WHERE id = 2");
+    }
+
+    @Test
+    public void changesDuringRebuildAreCounted() {
+        rebuild(() -> {
+        }, () -> {
+            writeChanges();
+            notifyChanges();
+        });
+
+        assertEquals(Long.valueOf(2), counters.count(byType(null)));
+        assertEquals(Long.valueOf(2), counters.count(byType(ShipType.MILITARY)));
+        assertEquals(Long.valueOf(0), counters.count(byType(ShipType.MERCHANT)));
+    }
+
+    @Test
+    public void changesSeenByRebuildAreNotCountedTwice() {
+        rebuild(this::writeChanges, this::notifyChanges);
+
+        assertEquals(Long.valueOf(2), counters.count(byType(null)));
+        assertEquals(Long.valueOf(2), counters.count(byType(ShipType.MILITARY)));
+        assertEquals(Long.valueOf(0), counters.count(byType(ShipType.MERCHANT)));
+    }
+
+    @Test
+    public void countsAreUsableAgainOnceUncountedRowIsGone() {
+        write("INSERT INTO ship VALUES (3, 'MILITARY', FALSE, NULL)");
+        rebuild(() -> {
+        }, () -> {
+        });
+        assertNull(counters.count(byType(null)));
+
+        Ship uncounted = ship(3, ShipType.MILITARY, 3002);
+        uncounted.setProdDate(null);
+        write("UPDATE ship SET prodDate = '3002-01-01' WHERE id = 3");
+        counters.shipUpdated(uncounted, ship(3, ShipType.MILITARY, 3002));
+
+        assertEquals(Long.valueOf(3), counters.count(byType(null)));
+        assertEquals(Long.valueOf(2), counters.count(byType(ShipType.MILITARY)));
+    }
+}
@@ -0,0 +1,246 @@
+package com.space.index;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.service.ShipFilter;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
+
+// Compares the tree with a plain scan over the same ships, also after many writes in an order that unbalances it
+public class ShipKdTreeTest {
+
+    private static final long FIRST_MILLIS = LocalDate.of(2800, 1, 1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    private static final long DAY = 86_400_000L;
+
+    private final Random random = new Random(7);
+    private final ShipKdTree tree = new ShipKdTree(true, 500);
+    private final Map<Long, Ship> ships = new LinkedHashMap<>();
+
+    private Ship ship(long id, double speed) {
+        ShipType[] types = ShipType.values();
+        Ship ship = new Ship("Ship " + id, "Planet", types[random.nextInt(types.length)],
+                new Date(FIRST_MILLIS + random.nextInt(220 * 365) * DAY), random.nextBoolean(),
+                speed, random.nextInt(9999) + 1, random.nextInt(8000) / 100.0);
+        ship.setId(id);
+        return ship;
+    }
+
+    private void create(Ship ship) {
+        ships.put(ship.getId(), ship);
+        tree.shipCreated(ship);
+    }
+
+    private ShipFilter randomFilter() {
+        Double minSpeed = null;
+        Double maxSpeed = null;
+        Integer minCrew = null;
+        Integer maxCrew = null;
+        Double minRating = null;
+        Double maxRating = null;
+        Long after = null;
+        Long before = null;
+        if (random.nextBoolean()) {
+            minSpeed = random.nextInt(99) / 100.0;
+            maxSpeed = minSpeed + random.nextInt(40) / 100.0;
+        }
+        if (random.nextBoolean()) {
+            minCrew = random.nextInt(9999);
+            maxCrew = random.nextBoolean() ? null : minCrew + random.nextInt(4000);
+        }
+        if (random.nextBoolean()) {
+            maxRating = random.nextInt(8000) / 100.0;
+        }
+        if (random.nextBoolean()) {
+            after = FIRST_MILLIS + random.nextInt(220 * 365) * DAY + random.nextInt(2) * 3_600_000L;
+            before = after + random.nextInt(60 * 365) * DAY;
+        }
+        if (minSpeed == null && minCrew == null && maxRating == null && after == null) {
+            minRating = 40.0;
+        }
+        ShipType type = random.nextInt(3) == 0 ? ShipType.values()[random.nextInt(ShipType.values().length)] : null;
+        Boolean used = random.nextInt(3) == 0 ? random.nextBoolean() : null;
+        return new ShipFilter(null, null, type, after, before, used, minSpeed, maxSpeed, minCrew, maxCrew, minRating, maxRating);
+    }
+
+    private boolean matches(Ship ship, ShipFilter filter) {
+        int day = ProdDays.epochDay(ship.getProdDate().getTime());
+        // A ship without a rating fails every rating bound, as null does in the database
+        double rating = ship.getRating() == null ? Double.NaN : ship.getRating();
+        return (filter.getShipType() == null || filter.getShipType() == ship.getShipType())
+                && (filter.getUsed() == null || filter.getUsed().equals(ship.getUsed()))
+                && (filter.getAfter() == null || day >= ProdDays.firstDayFrom(filter.getAfter()))
+                && (filter.getBefore() == null || day <= ProdDays.epochDay(filter.getBefore()))
+                && (filter.getMinSpeed() == null || ship.getSpeed() >= filter.getMinSpeed())
+                && (filter.getMaxSpeed() == null || ship.getSpeed() <= filter.getMaxSpeed())
+                && (filter.getMinCrewSize() == null || ship.getCrewSize() >= filter.getMinCrewSize())
+                && (filter.getMaxCrewSize() == null || ship.getCrewSize() <= filter.getMaxCrewSize())
+                && (filter.getMinRating() == null || rating >= filter.getMinRating())
+                && (filter.getMaxRating() == null || rating <= filter.getMaxRating());
+    }
+
+    private void assertSameAsScan(int queries) {
+        for (int i = 0; i < queries; i++) {
+            ShipFilter filter = randomFilter();
+            long[] expected = ships.values().stream().filter(ship -> matches(ship, filter)).mapToLong(Ship::getId).sorted().toArray();
+            assertEquals("Количество из k-d дерева расходится с перебором.", (long) expected.length, (long) tree.count(filter));
+            long[] candidates = tree.candidates(filter);
+            if (expected.length > 500) {
+                assertNull("Возвращено больше кандидатов, чем разрешено.", candidates);
+            } else {
+                assertArrayEquals("Кандидаты из k-d дерева расходятся с перебором.", expected, candidates);
+            }
+        }
+    }
+
+    //test1
+    @Test
+    public void queriesMatchScan() {
+        for (long id = 1; id <= 20_000; id++) {
+            create(ship(id, (random.nextInt(99) + 1) / 100.0));
+        }
+        assertSameAsScan(300);
+    }
+
+    //test2
+    @Test
+    public void writesKeepTreeCorrectAndBalanced() {
+        // Ascending speeds send every insert to the rightmost leaf
+        for (long id = 1; id <= 20_000; id++) {
+            create(ship(id, 0.01 + id * 0.98 / 20_000));
+        }
+        for (long id = 1; id <= 20_000; id += 3) {
+            tree.shipDeleted(ships.remove(id));
+        }
+        for (long id = 2; id <= 20_000; id += 3) {
+            Ship previous = ships.get(id);
+            Ship current = ship(id, (random.nextInt(99) + 1) / 100.0);
+            ships.put(id, current);
+            tree.shipUpdated(previous, current);
+        }
+        assertEquals("Размер k-d дерева расходится с числом кораблей.", ships.size(), tree.size());
+        assertSameAsScan(300);
+
+        KdTreeStatistics statistics = tree.statistics();
+        assertTrue("Дерево не перестраивалось.", statistics.getRebuilds() > 1);
+        // Perfect halving needs about log2(ships / 32) levels
+        assertTrue("Дерево разбалансировано: глубина " + statistics.getDepth(), statistics.getDepth() <= 20);
+    }
+
+    //test3
+    @Test
+    public void selectiveQueryVisitsFewShips() {
+        for (long id = 1; id <= 50_000; id++) {
+            create(ship(id, (random.nextInt(99) + 1) / 100.0));
+        }
+        ShipFilter filter = new ShipFilter(null, null, null, FIRST_MILLIS + 100 * 365 * DAY, FIRST_MILLIS + 120 * 365 * DAY, null,
+                0.2, 0.4, 1000, 3000, 10.0, 30.0);
+        long visits = tree.statistics().getVisits();
+        tree.count(filter);
+        long visited = tree.statistics().getVisits() - visits;
+        assertTrue("Запрос сравнил " + visited + " кораблей из " + ships.size(), visited < ships.size() / 20);
+    }
+
+    //test4
+    @Test
+    public void updateBeforeRatingEventArrivesRemovesStalePoint() {
+        for (long id = 1; id <= 20_000; id++) {
+            create(ship(id, (random.nextInt(99) + 1) / 100.0));
+        }
+        // The job wrote new ratings, but a POST reads them before the event reaches the tree
+        for (long id = 7001; id <= 7300; id++) {
+            Ship rerated = new Ship(ships.get(id));
+            rerated.setRating(ships.get(id).getRating() >= 40 ? 1.0 : 79.0);
+            if (id % 50 == 0) {
+                rerated.setRating(null);
+            }
+            Ship current = new Ship(rerated);
+            current.setSpeed((random.nextInt(99) + 1) / 100.0);
+            ships.put(id, current);
+            tree.shipUpdated(rerated, current);
+        }
+
+        assertEquals("В k-d дереве остались старые точки кораблей.", ships.size(), tree.size());
+        assertSameAsScan(300);
+    }
+
+    //test5
+    @Test
+    public void changesDuringRebuildAreReplayed() {
+        for (long id = 1; id <= 5_000; id++) {
+            Ship ship = ship(id, (random.nextInt(99) + 1) / 100.0);
+            ships.put(id, ship);
+        }
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder().generateUniqueName(true).setType(H2).build();
+        try {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+            jdbcTemplate.execute("CREATE TABLE ship (id BIGINT PRIMARY KEY, shipType VARCHAR(9), prodDate DATE, "
+                    + "isUsed BOOLEAN, speed DOUBLE, crewSize INT, rating DOUBLE)");
+            ships.values().forEach(ship -> insert(jdbcTemplate, ship));
+            tree.rebuild(new JdbcTemplate(database) {
+                @Override
+                public void query(String sql, RowCallbackHandler handler) {
+                    // Seen by the read, and notified after it
+                    List<Ship[]> seen = new ArrayList<>();
+                    for (long id = 1; id <= 100; id++) {
+                        seen.add(rewrite(jdbcTemplate, id));
+                    }
+                    super.query(sql, handler);
+                    seen.forEach(change -> tree.shipUpdated(change[0], change[1]));
+                    // Committed after the read
+                    for (long id = 5_001; id <= 5_100; id++) {
+                        Ship ship = ship(id, (random.nextInt(99) + 1) / 100.0);
+                        ships.put(id, ship);
+                        insert(jdbcTemplate, ship);
+                        tree.shipCreated(ship);
+                    }
+                    for (long id = 200; id <= 300; id++) {
+                        jdbcTemplate.update("DELETE FROM ship WHERE id = ?", id);
+                        tree.shipDeleted(ships.remove(id));
+                    }
+                    for (long id = 400; id <= 500; id++) {
+                        Ship[] change = rewrite(jdbcTemplate, id);
+                        tree.shipUpdated(change[0], change[1]);
+                    }
+                }
+            });
+        } finally {
+            database.shutdown();
+        }
+
+        assertEquals("Размер k-d дерева расходится с числом кораблей.", ships.size(), tree.size());
+        assertSameAsScan(300);
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, Ship ship) {
+        jdbcTemplate.update("INSERT INTO ship VALUES (?, ?, ?, ?, ?, ?, ?)", ship.getId(), ship.getShipType().name(),
+                new java.sql.Date(ship.getProdDate().getTime()), ship.getUsed(), ship.getSpeed(), ship.getCrewSize(), ship.getRating());
+    }
+
+    private Ship[] rewrite(JdbcTemplate jdbcTemplate, long id) {
+        Ship previous = ships.get(id);
+        Ship current = ship(id, (random.nextInt(99) + 1) / 100.0);
+        current.setProdDate(previous.getProdDate());
+        ships.put(id, current);
+        jdbcTemplate.update("UPDATE ship SET shipType = ?, isUsed = ?, speed = ?, crewSize = ?, rating = ? WHERE id = ?",
+                current.getShipType().name(), current.getUsed(), current.getSpeed(), current.getCrewSize(), current.getRating(), id);
+        return new Ship[]{previous, current};
+    }
+}
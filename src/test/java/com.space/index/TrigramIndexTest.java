@@ -0,0 +1,94 @@
+package com.space.index;
+
+import com.space.model.Ship;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
+
+// Writes notified while a rebuild reads the table must still be in the index that the rebuild swaps in
+public class TrigramIndexTest {
+
+    private final TrigramIndex index = new TrigramIndex(1000);
+    private EmbeddedDatabase database;
+
+    private static Ship ship(long id, String name, String planet) {
+        Ship ship = new Ship();
+        ship.setId(id);
+        ship.setName(name);
+        ship.setPlanet(planet);
+        return ship;
+    }
+
+    @Before
+    public void createTable() {
+        database = new EmbeddedDatabaseBuilder().generateUniqueName(true).setType(H2).build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE ship (id BIGINT PRIMARY KEY, name VARCHAR(50), planet VARCHAR(50))");
+        jdbcTemplate.update("INSERT INTO ship VALUES (1, 'Orion III', 'Mars'), (2, 'Daedalus', 'Jupiter')");
+    }
+
+    @After
+    public void dropTable() {
+        database.shutdown();
+    }
+
+    @Test
+    public void changesDuringRebuildAreReplayed() {
+        index.rebuild(new JdbcTemplate(database) {
+            @Override
+            public void query(String sql, RowCallbackHandler handler) {
+                super.query(sql, handler);
+                // Committed after the read, or before it and seen by it, the index can not tell
+                index.shipCreated(ship(3, "Serenity", "Saturn"));
+                index.shipUpdated(ship(1, "Orion III", "Mars"), ship(1, "Orion IV", "Venus"));
+                index.shipDeleted(ship(2, "Daedalus", "Jupiter"));
+            }
+        });
+
+        assertArrayEquals(new long[]{3}, index.nameCandidates("Serenity"));
+        assertArrayEquals(new long[]{1}, index.nameCandidates("Orion IV"));
+        assertArrayEquals(new long[0], index.nameCandidates("Orion III"));
+        assertArrayEquals(new long[]{1}, index.planetCandidates("Venus"));
+        assertArrayEquals(new long[0], index.planetCandidates("Jupiter"));
+    }
+
+    @Test
+    public void changesSeenByRebuildAreNotAppliedTwice() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        index.rebuild(new JdbcTemplate(database) {
+            @Override
+            public void query(String sql, RowCallbackHandler handler) {
+                jdbcTemplate.update("UPDATE ship SET name = 'Orion IV' WHERE id = 1");
+                jdbcTemplate.update("DELETE FROM ship WHERE id = 2");
+                super.query(sql, handler);
+                index.shipUpdated(ship(1, "Orion III", "Mars"), ship(1, "Orion IV", "Mars"));
+                index.shipDeleted(ship(2, "Daedalus", "Jupiter"));
+            }
+        });
+
+        assertArrayEquals(new long[]{1}, index.nameCandidates("Orion IV"));
+        assertArrayEquals(new long[0], index.nameCandidates("Orion III"));
+        assertArrayEquals(new long[0], index.nameCandidates("Daedalus"));
+    }
+
+    // Accents fold like the collation, a value with ß may match terms in ways only the database knows
+    @Test
+    public void foldsAccentsAndKeepsUnfoldedValuesAsCandidates() {
+        index.rebuild(new JdbcTemplate(database));
+        index.add(3, "Orión", "Mars");
+        index.add(4, "Straße", "Mars");
+
+        assertArrayEquals(new long[]{1, 3, 4}, index.nameCandidates("ORION"));
+        assertArrayEquals(new long[]{2, 4}, index.nameCandidates("daedalus"));
+        assertArrayEquals(new long[]{4}, index.nameCandidates("stras"));
+        assertNull(index.nameCandidates("straß"));
+    }
+}
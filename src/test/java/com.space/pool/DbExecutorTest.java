@@ -0,0 +1,32 @@
+package com.space.pool;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import static org.junit.Assert.assertTrue;
+
+// Runs tasks on the executor's own thread, no request or database is involved
+public class DbExecutorTest {
+
+    private final DbExecutor executor = new DbExecutor(true, 1, 1, 10000);
+
+    @After
+    public void shutDown() {
+        executor.shutdown();
+    }
+
+    //test1
+    @Test
+    public void errorInTaskIsTheResult() throws Exception {
+        DeferredResult<Object> result = executor.submit(() -> {
+            throw new StackOverflowError();
+        });
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!result.hasResult() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue("Ошибка задачи не стала результатом запроса.", result.getResult() instanceof StackOverflowError);
+    }
+}
@@ -0,0 +1,96 @@
+package com.space.pool;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+// Feeds the tracker known acquire times, no pool or database is involved
+public class PoolMetricsTest {
+
+    private static void acquire(PoolMetrics metrics, double millis, int times) {
+        for (int i = 0; i < times; i++) {
+            metrics.recordConnectionAcquiredNanos((long) (millis * TimeUnit.MILLISECONDS.toNanos(1)));
+        }
+    }
+
+    //test1
+    @Test
+    public void durationsLandInTheirBuckets() {
+        PoolMetrics metrics = new PoolMetrics();
+        acquire(metrics, 0.5, 50);
+        acquire(metrics, 3, 40);
+        acquire(metrics, 20, 5);
+        acquire(metrics, 200, 4);
+        acquire(metrics, 2000, 1);
+
+        PoolStatistics statistics = metrics.snapshot();
+        assertEquals("Гистограмма времени получения соединения неверна.",
+                Arrays.asList(50L, 40L, 0L, 5L, 0L, 4L, 0L, 1L), Arrays.asList(statistics.getAcquireHistogram().values().toArray()));
+        assertEquals("Границы корзин гистограммы неверны.",
+                Arrays.asList("<1ms", "<5ms", "<10ms", "<50ms", "<100ms", "<500ms", "<1000ms", ">=1000ms"),
+                Arrays.asList(statistics.getAcquireHistogram().keySet().toArray()));
+        assertEquals("Количество получений соединения неверно.", 100, statistics.getAcquireCount());
+        assertEquals("Среднее время получения соединения неверно.", 30.45, statistics.getMeanAcquireMillis(), 1e-9);
+    }
+
+    //test2
+    @Test
+    public void bucketBoundsAreExclusive() {
+        PoolMetrics metrics = new PoolMetrics();
+        acquire(metrics, 1, 1);
+        acquire(metrics, 1000, 1);
+        acquire(metrics, 0.999, 1);
+
+        assertEquals("Граница корзины должна относиться к следующей корзине.",
+                Arrays.asList(1L, 1L, 0L, 0L, 0L, 0L, 0L, 1L),
+                Arrays.asList(metrics.snapshot().getAcquireHistogram().values().toArray()));
+    }
+
+    //test3
+    @Test
+    public void percentilesAreBucketUpperBounds() {
+        PoolMetrics metrics = new PoolMetrics();
+        acquire(metrics, 0.5, 50);
+        acquire(metrics, 3, 40);
+        acquire(metrics, 20, 5);
+        acquire(metrics, 200, 4);
+        acquire(metrics, 2000, 1);
+
+        PoolStatistics statistics = metrics.snapshot();
+        assertEquals("p50 времени получения соединения неверен.", 1, statistics.getP50AcquireMillis());
+        assertEquals("p95 времени получения соединения неверен.", 50, statistics.getP95AcquireMillis());
+        assertEquals("p99 времени получения соединения неверен.", 500, statistics.getP99AcquireMillis());
+    }
+
+    //test4
+    @Test
+    public void openBucketPercentileIsSlowestAcquire() {
+        PoolMetrics metrics = new PoolMetrics();
+        acquire(metrics, 3, 90);
+        acquire(metrics, 1500, 8);
+        acquire(metrics, 2500, 2);
+
+        PoolStatistics statistics = metrics.snapshot();
+        assertEquals("p50 времени получения соединения неверен.", 5, statistics.getP50AcquireMillis());
+        assertEquals("p95 в открытой корзине должен быть самым долгим получением.", 2500, statistics.getP95AcquireMillis());
+        assertEquals("p99 в открытой корзине должен быть самым долгим получением.", 2500, statistics.getP99AcquireMillis());
+    }
+
+    //test5
+    @Test
+    public void emptyTrackerReportsZeros() {
+        PoolMetrics metrics = new PoolMetrics();
+        metrics.recordConnectionTimeout();
+        metrics.recordConnectionCreatedMillis(12);
+
+        PoolStatistics statistics = metrics.snapshot();
+        assertEquals("Без получений соединений количество должно быть 0.", 0, statistics.getAcquireCount());
+        assertEquals("Без получений соединений среднее должно быть 0.", 0, statistics.getMeanAcquireMillis(), 0);
+        assertEquals("Без получений соединений p99 должен быть 0.", 0, statistics.getP99AcquireMillis());
+        assertEquals("Таймауты не учтены.", 1, statistics.getTimeouts());
+        assertEquals("Созданные соединения не учтены.", 1, statistics.getConnectionsCreated());
+    }
+}
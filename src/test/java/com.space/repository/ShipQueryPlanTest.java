@@ -0,0 +1,193 @@
+package com.space.repository;
+
+import com.space.config.AppConfig;
+import com.space.model.ShipType;
+import com.space.service.ShipFilter;
+import com.space.service.ShipService;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// The plans are taken for the statements Hibernate sends for the service's specifications, not for hand-written SQL.
+// Hibernate renders numeric and boolean criteria as literals, only enums, dates and the limit are bound
+@RunWith(SpringJUnit4ClassRunner.class)
+@ActiveProfiles("dev")
+@ContextConfiguration(classes = {AppConfig.class, ShipQueryPlanTest.Inspection.class})
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class ShipQueryPlanTest {
+
+    @Configuration
+    static class Inspection {
+
+        @Bean
+        public static BeanPostProcessor statementInspection() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                    if (bean instanceof LocalContainerEntityManagerFactoryBean) {
+                        ((LocalContainerEntityManagerFactoryBean) bean).getJpaPropertyMap()
+                                .put(AvailableSettings.STATEMENT_INSPECTOR, StatementRecorder.class.getName());
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    // Hibernate creates its own instance, so the statements are kept in one static list
+    public static class StatementRecorder implements StatementInspector {
+
+        private static final List<String> STATEMENTS = new ArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            synchronized (STATEMENTS) {
+                STATEMENTS.add(sql);
+            }
+            return sql;
+        }
+
+        static void clear() {
+            synchronized (STATEMENTS) {
+                STATEMENTS.clear();
+            }
+        }
+
+        static String only() {
+            synchronized (STATEMENTS) {
+                assertEquals("Ожидался ровно один запрос: " + STATEMENTS, 1, STATEMENTS.size());
+                return STATEMENTS.get(0);
+            }
+        }
+    }
+
+    @Autowired
+    private ShipService shipService;
+    @Autowired
+    private ShipRepository shipRepository;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public void setDataSource(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Before
+    public void analyze() {
+        jdbcTemplate.execute("ANALYZE");
+        StatementRecorder.clear();
+    }
+
+    private static long millis(String date) {
+        return Date.valueOf(date).getTime();
+    }
+
+    private String list(ShipFilter filter, String order) {
+        shipRepository.findContent(shipService.filter(filter), PageRequest.of(0, 3, Sort.by(order)));
+        return StatementRecorder.only();
+    }
+
+    private String count(ShipFilter filter) {
+        shipRepository.count(shipService.filter(filter));
+        return StatementRecorder.only();
+    }
+
+    private static void assertShape(String sql, String... parts) {
+        String normalized = sql.replaceAll("\\s+", " ").replaceAll("\\b[A-Za-z_]\\w*\\.", "");
+        for (String part : parts) {
+            assertTrue("Сгенерированный запрос не содержит \"" + part + "\": " + sql, normalized.contains(part));
+        }
+    }
+
+    private void assertPlanUses(String index, String sql, Object... parameters) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, parameters);
+        assertTrue("План запроса не использует индекс " + index + ": " + plan, plan.toUpperCase().contains(index));
+    }
+
+    //test1
+    @Test
+    public void listByShipTypeIsUsedDateUsesCompositeIndex() {
+        String sql = list(new ShipFilter(null, null, ShipType.MILITARY, millis("3000-01-01"), null, true,
+                null, null, null, null, null, null), "id");
+        assertShape(sql, "shipType=?", "prodDate>=?", "isUsed=1", "order by id asc", "limit ?");
+        assertPlanUses("IX_SHIP_TYPE_USED_DATE", sql, "MILITARY", new Date(millis("3000-01-01")), 3);
+    }
+
+    //test2
+    @Test
+    public void countByShipTypeIsUsedUsesCompositeIndex() {
+        String sql = count(new ShipFilter(null, null, ShipType.TRANSPORT, null, null, false,
+                null, null, null, null, null, null));
+        assertShape(sql, "count(id)", "shipType=?", "isUsed=0");
+        assertPlanUses("IX_SHIP_TYPE_USED_DATE", sql, "TRANSPORT");
+    }
+
+    //test3
+    @Test
+    public void listOrderedBySpeedUsesSpeedIndex() {
+        String sql = list(new ShipFilter(null, null, null, null, null, null,
+                0.3, 0.6, null, null, null, null), "speed");
+        assertShape(sql, "speed between 0.3 and 0.6", "order by speed asc", "limit ?");
+        assertPlanUses("IX_SHIP_SPEED", sql, 3);
+    }
+
+    //test4
+    @Test
+    public void listOrderedByRatingUsesRatingIndex() {
+        String sql = list(new ShipFilter(null, null, null, null, null, null,
+                null, null, null, null, 5.0, null), "rating");
+        assertShape(sql, "rating>=5.0", "order by rating asc", "limit ?");
+        assertPlanUses("IX_SHIP_RATING", sql, 3);
+    }
+
+    //test5
+    @Test
+    public void countByRatingUsesRatingIndex() {
+        String sql = count(new ShipFilter(null, null, null, null, null, null,
+                null, null, null, null, 1.0, 2.0));
+        assertShape(sql, "count(id)", "rating between 1.0 and 2.0");
+        assertPlanUses("IX_SHIP_RATING", sql);
+    }
+
+    //test6
+    @Test
+    public void listByDateUsesDateIndex() {
+        String sql = list(new ShipFilter(null, null, null, millis("3000-01-01"), millis("3010-01-01"), null,
+                null, null, null, null, null, null), "prodDate");
+        assertShape(sql, "prodDate between ? and ?", "order by prodDate asc", "limit ?");
+        assertPlanUses("IX_SHIP_PROD_DATE", sql, new Date(millis("3000-01-01")), new Date(millis("3010-01-01")), 3);
+    }
+
+    //test7
+    @Test
+    public void countByCrewSizeUsesCrewSizeIndex() {
+        String sql = count(new ShipFilter(null, null, null, null, null, null,
+                null, null, null, 400, null, null));
+        assertShape(sql, "count(id)", "crewSize<=400");
+        assertPlanUses("IX_SHIP_CREW_SIZE", sql);
+    }
+}
@@ -0,0 +1,48 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+// matches() decides which cached searches a write invalidates, so it may only err towards matching
+public class ShipFilterTest {
+
+    private static Ship ship(String name) {
+        Ship ship = new Ship();
+        ship.setName(name);
+        ship.setPlanet("Mars");
+        return ship;
+    }
+
+    private static ShipFilter byName(String name) {
+        return new ShipFilter(name, null, null, null, null, null, null, null, null, null, null, null);
+    }
+
+    //test1
+    @Test
+    public void foldDropsAccentsAndCase() {
+        assertEquals("orion", ShipFilter.fold("ORIÓN"));
+        assertEquals("cafe", ShipFilter.fold("Café"));
+        assertNull(ShipFilter.fold("Straße"));
+        assertNull(ShipFilter.fold("Восток"));
+    }
+
+    //test2
+    @Test
+    public void accentedNameMatchesPlainTerm() {
+        assertTrue("Имя с ударением не совпало с термином без него.", byName("orion").matches(ship("Orión")));
+        assertTrue("Термин с ударением не совпал с именем без него.", byName("ORIÓN").matches(ship("Orion III")));
+        assertFalse("Имя совпало с посторонним термином.", byName("orion").matches(ship("Daedalus")));
+    }
+
+    //test3
+    @Test
+    public void unfoldableNameOrTermMayMatch() {
+        assertTrue("Имя с ß должно считаться возможным совпадением.", byName("strasse").matches(ship("Straße")));
+        assertTrue("Термин с ß должен считаться возможным совпадением.", byName("straß").matches(ship("Strase")));
+    }
+}
@@ -0,0 +1,93 @@
+package com.space.service;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Calendar;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+
+// Compares the engine with the Calendar and BigDecimal code it replaced, over every input the service can see
+public class ShipRatingEngineTest {
+
+    private static final String[] ZONES = {"UTC", "Europe/Moscow", "America/New_York", "Australia/Lord_Howe", "Pacific/Chatham"};
+    private static final long DAY = 86_400_000L;
+
+    private static int calendarYear(TimeZone zone, long millis) {
+        Calendar calendar = Calendar.getInstance(zone);
+        calendar.setTimeInMillis(millis);
+        return calendar.get(Calendar.YEAR);
+    }
+
+    private static double bigDecimalRound(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP).doubleValue();
+    }
+
+    private static void assertSameRound(double value) {
+        assertEquals("Округление расходится для " + value,
+                Double.doubleToLongBits(bigDecimalRound(value)), Double.doubleToLongBits(ShipRatingEngine.round2(value)));
+    }
+
+    //test1
+    @Test
+    public void yearMatchesCalendarForEveryDay() {
+        for (String id : ZONES) {
+            ZoneId zone = ZoneId.of(id);
+            TimeZone timeZone = TimeZone.getTimeZone(zone);
+            ShipRatingEngine engine = new ShipRatingEngine(zone, 2700, 3100);
+            long from = LocalDate.of(2650, 1, 1).atStartOfDay(zone).toInstant().toEpochMilli();
+            long to = LocalDate.of(3150, 1, 1).atStartOfDay(zone).toInstant().toEpochMilli();
+            for (long day = from; day < to; day += DAY) {
+                // Around midnight in every offset the zones use, including the last millisecond of a year
+                for (long millis : new long[]{day - 1, day, day + DAY / 2, day + DAY - 1}) {
+                    assertEquals("Год расходится в " + id + " для " + millis, calendarYear(timeZone, millis), engine.year(millis));
+                }
+            }
+        }
+    }
+
+    //test2
+    @Test
+    public void roundingMatchesBigDecimalOnEveryTie() {
+        for (int i = -200_000; i <= 200_000; i++) {
+            double tie = i / 1000.0;
+            assertSameRound(tie);
+            assertSameRound(Math.nextUp(tie));
+            assertSameRound(Math.nextDown(tie));
+            assertSameRound(i / 100.0);
+        }
+        for (double value : new double[]{0.0, -0.0, 1.005, 2.675, 9.99999999999e11 + 0.005, 1e12, 9.298681487080994e12, 1e300,
+                Double.MIN_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE}) {
+            assertSameRound(value);
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < 2_000_000; i++) {
+            assertSameRound(random.nextDouble() * 200 - 100);
+            double bits = Double.longBitsToDouble(random.nextLong());
+            if (!Double.isNaN(bits) && !Double.isInfinite(bits)) {
+                assertSameRound(bits);
+            }
+        }
+    }
+
+    //test3
+    @Test
+    public void ratingMatchesOldFormulaForAllValidShips() {
+        ShipRatingEngine engine = new ShipRatingEngine(ZoneId.systemDefault(), 2600, 3200);
+        for (int speedMillis = 0; speedMillis <= 1000; speedMillis++) {
+            double speed = speedMillis / 1000.0;
+            for (int year = 2800; year <= 3019; year++) {
+                for (boolean used : new boolean[]{false, true}) {
+                    double expected = bigDecimalRound(80 * speed * (used ? 0.5 : 1) / (3019 - year + 1));
+                    assertEquals("Рейтинг расходится для speed=" + speed + ", year=" + year + ", isUsed=" + used,
+                            Double.doubleToLongBits(expected), Double.doubleToLongBits(engine.rating(speed, used, year, 3019)));
+                }
+            }
+        }
+    }
+}